@@ -0,0 +1,12 @@
+package com.sellaway.apigateway.config;
+
+import com.sellaway.common.jwt.JwtVerificationConfig;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+// Token verification beans from jwt-common, used by JwtAuthenticationGlobalFilter and RateLimitGlobalFilter. Imported here rather than on the
+// application class so test slices (@WebMvcTest, @GraphQlTest) don't pick them up
+@Configuration
+@Import(JwtVerificationConfig.class)
+public class TokenVerificationConfig {
+}
@@ -0,0 +1,126 @@
+package com.sellaway.apigateway.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Netty client the gateway uses towards the services. Replaces the default factory only to give
+ * each route its own pool limits: a route's metadata may set {@value #POOL_MAX_CONNECTIONS} and
+ * {@value #POOL_MAX_PENDING}, which apply to its upstream host (routes to the same host share
+ * one pool). Everything else comes from {@code spring.cloud.gateway.httpclient.pool}.
+ * Routes with an {@code lb://} uri have no fixed host and always use the defaults.
+ */
+@Configuration
+public class UpstreamHttpClientConfig {
+
+    public static final String POOL_MAX_CONNECTIONS = "pool-max-connections";
+    public static final String POOL_MAX_PENDING = "pool-max-pending";
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamHttpClientConfig.class);
+
+    @Bean
+    public HttpClientFactory gatewayHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                                      List<HttpClientCustomizer> customizers, HttpClientSslConfigurer sslConfigurer,
+                                                      GatewayProperties gatewayProperties) {
+        return new HttpClientFactory(properties, serverProperties, sslConfigurer, customizers) {
+            @Override
+            protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+                return connectionProvider(properties.getPool(), gatewayProperties.getRoutes());
+            }
+        };
+    }
+
+    /**
+     * Cleartext HTTP/2 (h2c, negotiated by upgrade) to the services, falling back to HTTP/1.1 for an
+     * upstream that doesn't accept the upgrade. Multiplexing keeps the connection count per
+     * service flat under load instead of one connection per in-flight request.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gateway.upstream.http2", havingValue = "true", matchIfMissing = true)
+    public HttpClientCustomizer http2UpstreamCustomizer() {
+        return client -> client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+
+    static ConnectionProvider connectionProvider(HttpClientProperties.Pool pool, List<RouteDefinition> routes) {
+        if (pool.getType() == HttpClientProperties.Pool.PoolType.DISABLED) {
+            return ConnectionProvider.newConnection();
+        }
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(pool.getName())
+                .metrics(pool.isMetrics())
+                .evictInBackground(pool.getEvictionInterval());
+        if (pool.getType() == HttpClientProperties.Pool.PoolType.FIXED) {
+            builder.maxConnections(pool.getMaxConnections())
+                    .pendingAcquireTimeout(Duration.ofMillis(pool.getAcquireTimeout()));
+        } else {
+            builder.maxConnections(Integer.MAX_VALUE)
+                    .pendingAcquireTimeout(Duration.ZERO)
+                    .pendingAcquireMaxCount(-1);
+        }
+        if (pool.getMaxIdleTime() != null) {
+            builder.maxIdleTime(pool.getMaxIdleTime());
+        }
+        if (pool.getMaxLifeTime() != null) {
+            builder.maxLifeTime(pool.getMaxLifeTime());
+        }
+        if (pool.getLeasingStrategy() == HttpClientProperties.Pool.LeasingStrategy.LIFO) {
+            builder.lifo();
+        }
+
+        for (RouteDefinition route : routes) {
+            Map<String, Object> metadata = route.getMetadata();
+            Integer maxConnections = intValue(metadata.get(POOL_MAX_CONNECTIONS));
+            Integer maxPending = intValue(metadata.get(POOL_MAX_PENDING));
+            InetSocketAddress host = upstreamHost(route.getUri());
+            if ((maxConnections == null && maxPending == null) || host == null) {
+                continue;
+            }
+            builder.forRemoteHost(host, spec -> {
+                spec.pendingAcquireTimeout(Duration.ofMillis(pool.getAcquireTimeout()));
+                if (maxConnections != null) {
+                    spec.maxConnections(maxConnections);
+                }
+                if (maxPending != null) {
+                    spec.pendingAcquireMaxCount(maxPending);
+                }
+                if (pool.getMaxIdleTime() != null) {
+                    spec.maxIdleTime(pool.getMaxIdleTime());
+                }
+                spec.metrics(pool.isMetrics());
+            });
+            log.info("Route {} uses its own pool for {} (max connections {}, max pending {})",
+                    route.getId(), host, maxConnections, maxPending);
+        }
+        return builder.build();
+    }
+
+    // Unresolved, like the address reactor-netty keys its pools by
+    private static InetSocketAddress upstreamHost(URI uri) {
+        if (uri == null || uri.getHost() == null || !("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))) {
+            return null;
+        }
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+        return InetSocketAddress.createUnresolved(uri.getHost(), port);
+    }
+
+    private static Integer intValue(Object value) {
+        return value == null ? null : Integer.valueOf(String.valueOf(value));
+    }
+}
@@ -0,0 +1,123 @@
+package com.sellaway.apigateway.filter;
+
+import com.sellaway.apigateway.config.IdentityHeader;
+import com.sellaway.common.jwt.JwtVerifier;
+import com.sellaway.common.jwt.VerifiedJwt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Verifies the bearer token once, at the edge, and forwards the caller as a signed
+ * {@link IdentityHeader}. Any {@code X-Identity} the client sent is dropped first, so only the
+ * gateway can set it. Routes require a valid token unless their metadata has
+ * {@code auth-required: false}; on those a token is still verified and forwarded if it is valid,
+ * and the request passes through without an identity if it isn't.
+ * <p>
+ * The Authorization header is forwarded unchanged (user-service's logout needs the token itself).
+ */
+@Component
+public class JwtAuthenticationGlobalFilter implements GlobalFilter, Ordered {
+
+    /** Route metadata key; {@code false} makes authentication optional on the route. */
+    public static final String AUTH_REQUIRED = "auth-required";
+    /** Exchange attribute holding the {@link VerifiedJwt} of an authenticated request. */
+    public static final String VERIFIED_JWT_ATTR = JwtAuthenticationGlobalFilter.class.getName() + ".verifiedJwt";
+
+    // Early, so later filters (rate limiting) can key on the verified caller
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationGlobalFilter.class);
+
+    private final JwtVerifier jwtVerifier;
+    private final IdentityHeader identityHeader;
+
+    private final Counter authenticated;
+    private final Counter rejected;
+    private final Counter anonymous;
+
+    public JwtAuthenticationGlobalFilter(JwtVerifier jwtVerifier, IdentityHeader identityHeader, MeterRegistry meterRegistry) {
+        this.jwtVerifier = jwtVerifier;
+        this.identityHeader = identityHeader;
+        this.authenticated = counter(meterRegistry, "authenticated");
+        this.rejected = counter(meterRegistry, "rejected");
+        this.anonymous = counter(meterRegistry, "anonymous");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+                .headers(headers -> headers.remove(IdentityHeader.NAME));
+        boolean required = isAuthRequired(exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR));
+
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (required) {
+                rejected.increment();
+                return unauthorized(exchange);
+            }
+            anonymous.increment();
+            return chain.filter(exchange.mutate().request(request.build()).build());
+        }
+
+        VerifiedJwt jwt = verify(authHeader.substring(7));
+        String identity = jwt != null ? identityHeader.create(jwt) : null;
+        if (identity == null) {
+            if (required) {
+                rejected.increment();
+                return unauthorized(exchange);
+            }
+            anonymous.increment();
+            return chain.filter(exchange.mutate().request(request.build()).build());
+        }
+
+        authenticated.increment();
+        exchange.getAttributes().put(VERIFIED_JWT_ATTR, jwt);
+        request.headers(headers -> headers.set(IdentityHeader.NAME, identity));
+        return chain.filter(exchange.mutate().request(request.build()).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private VerifiedJwt verify(String token) {
+        try {
+            VerifiedJwt jwt = jwtVerifier.verify(token);
+            return jwt.isExpired(System.currentTimeMillis()) ? null : jwt;
+        } catch (Exception e) {
+            log.warn("Invalid JWT token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isAuthRequired(Route route) {
+        return route == null || !"false".equals(String.valueOf(route.getMetadata().get(AUTH_REQUIRED)));
+    }
+
+    private static Mono<Void> unauthorized(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        return exchange.getResponse().setComplete();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.auth")
+                .description("Requests by outcome of edge token verification")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,129 @@
+package com.sellaway.apigateway.filter;
+
+import com.sellaway.apigateway.ratelimit.TokenBuckets;
+import com.sellaway.common.jwt.VerifiedJwt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-route token-bucket rate limiting, in memory on each gateway instance (no Redis round trip).
+ * Authenticated callers are limited by customerId, everyone else by client IP, each with its own
+ * bucket per route. A route's metadata may set {@value #CAPACITY} and {@value #REFILL_PER_SECOND};
+ * other routes use {@code gateway.rate-limit.*}. Over the limit the request is answered with 429 and
+ * a Retry-After before anything is sent upstream.
+ * <p>
+ * Runs after {@link JwtAuthenticationGlobalFilter}, which has already rejected missing or invalid
+ * tokens on protected routes, so a customerId here has been verified.
+ */
+@Component
+public class RateLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    public static final String CAPACITY = "rate-limit-capacity";
+    public static final String REFILL_PER_SECOND = "rate-limit-refill-per-second";
+
+    private final boolean enabled;
+    private final int defaultCapacity;
+    private final double defaultRefillPerSecond;
+    private final int maxKeys;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+
+    public RateLimitGlobalFilter(@Value("${gateway.rate-limit.enabled:true}") boolean enabled,
+                                 @Value("${gateway.rate-limit.capacity:50}") int defaultCapacity,
+                                 @Value("${gateway.rate-limit.refill-per-second:20}") double defaultRefillPerSecond,
+                                 @Value("${gateway.rate-limit.max-keys:100000}") int maxKeys,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.defaultCapacity = defaultCapacity;
+        this.defaultRefillPerSecond = defaultRefillPerSecond;
+        this.maxKeys = maxKeys;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!enabled || route == null) {
+            return chain.filter(exchange);
+        }
+        RouteLimiter limiter = limiters.computeIfAbsent(route.getId(), id -> limiter(route));
+        String key = key(exchange);
+        long now = System.nanoTime();
+        if (limiter.buckets.tryAcquire(key, now)) {
+            limiter.allowed.increment();
+            return chain.filter(exchange);
+        }
+
+        limiter.rejected.increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(limiter.buckets.nanosUntilAvailable(key, now) + 999_999_999L));
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return exchange.getResponse().setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        return JwtAuthenticationGlobalFilter.ORDER + 1;
+    }
+
+    private static String key(ServerWebExchange exchange) {
+        VerifiedJwt jwt = exchange.getAttribute(JwtAuthenticationGlobalFilter.VERIFIED_JWT_ATTR);
+        if (jwt != null) {
+            return jwt.getCustomerId();
+        }
+        // Direct peer address; behind a load balancer this is the balancer unless it preserves client IPs
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        return remote != null && remote.getAddress() != null ? "ip:" + remote.getAddress().getHostAddress() : "ip:unknown";
+    }
+
+    private RouteLimiter limiter(Route route) {
+        Map<String, Object> metadata = route.getMetadata();
+        int capacity = metadata.containsKey(CAPACITY) ? Integer.parseInt(String.valueOf(metadata.get(CAPACITY))) : defaultCapacity;
+        double refillPerSecond = metadata.containsKey(REFILL_PER_SECOND)
+                ? Double.parseDouble(String.valueOf(metadata.get(REFILL_PER_SECOND))) : defaultRefillPerSecond;
+        return new RouteLimiter(route.getId(), new TokenBuckets(capacity, refillPerSecond, maxKeys), meterRegistry);
+    }
+
+    private static final class RouteLimiter {
+
+        final TokenBuckets buckets;
+        final Counter allowed;
+        final Counter rejected;
+
+        RouteLimiter(String routeId, TokenBuckets buckets, MeterRegistry meterRegistry) {
+            this.buckets = buckets;
+            this.allowed = counter(meterRegistry, routeId, "allowed");
+            this.rejected = counter(meterRegistry, routeId, "rejected");
+            Gauge.builder("gateway.ratelimit.buckets", buckets, TokenBuckets::size)
+                    .description("Rate limit buckets held in memory")
+                    .tag("routeId", routeId)
+                    .register(meterRegistry);
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String routeId, String result) {
+            return Counter.builder("gateway.ratelimit")
+                    .description("Requests checked against the route's rate limit")
+                    .tag("routeId", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.sellaway.apigateway.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token buckets, one per key, for a single policy ({@code capacity} tokens, refilled at
+ * {@code refillPerSecond}). Each bucket is one {@link AtomicLong} holding the time at which it will be
+ * full again (the GCRA form of a token bucket), so taking a token is a read and a CAS: no lock, no
+ * allocation once the key has a bucket, and no refill thread.
+ * <p>
+ * Keys are spread over a power-of-two number of shards (4 per core), each bounded to its share of
+ * {@code maxKeys}. A shard that is full first drops buckets that have refilled completely, which is
+ * lossless since a missing bucket starts full; only if every bucket is still draining is an arbitrary
+ * tenth of the shard dropped (those keys get a fresh, full bucket).
+ */
+public class TokenBuckets {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeysPerShard;
+    private final Map<String, AtomicLong>[] shards;
+    private final int shardMask;
+
+    @SuppressWarnings("unchecked")
+    public TokenBuckets(int capacity, double refillPerSecond, int maxKeys) {
+        if (capacity < 1 || refillPerSecond <= 0 || maxKeys < 1) {
+            throw new IllegalArgumentException("capacity, refillPerSecond and maxKeys must be positive");
+        }
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = intervalNanos * capacity;
+        int shardCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4) * 2 - 1);
+        this.shards = new Map[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        this.shardMask = shardCount - 1;
+        this.maxKeysPerShard = Math.max(1, maxKeys / shardCount);
+    }
+
+    /** Takes a token from the key's bucket if one is available. {@code nowNanos} is {@link System#nanoTime()}. */
+    public boolean tryAcquire(String key, long nowNanos) {
+        AtomicLong fullAt = bucket(key, nowNanos);
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /** How long until the key's bucket has a token again; 0 if it has one now. */
+    public long nanosUntilAvailable(String key, long nowNanos) {
+        AtomicLong fullAt = shard(key).get(key);
+        if (fullAt == null) {
+            return 0;
+        }
+        return Math.max(0, Math.max(fullAt.get(), nowNanos) + intervalNanos - nowNanos - burstNanos);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, AtomicLong> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private AtomicLong bucket(String key, long nowNanos) {
+        Map<String, AtomicLong> shard = shard(key);
+        AtomicLong fullAt = shard.get(key);
+        if (fullAt != null) {
+            return fullAt;
+        }
+        if (shard.size() >= maxKeysPerShard) {
+            evict(shard, nowNanos);
+        }
+        // A new bucket is full: "full at" lies in the past
+        return shard.computeIfAbsent(key, k -> new AtomicLong(nowNanos - burstNanos));
+    }
+
+    private void evict(Map<String, AtomicLong> shard, long nowNanos) {
+        shard.values().removeIf(fullAt -> fullAt.get() - nowNanos <= 0);
+        int excess = shard.size() - (maxKeysPerShard - Math.max(1, maxKeysPerShard / 10));
+        Iterator<String> keys = shard.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private Map<String, AtomicLong> shard(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+}
@@ -0,0 +1,211 @@
+package com.sellaway.apigateway;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the gateway against a local reactor-netty stub that stands in for both user-service and
+ * cart-service: it serves a JWKS and echoes what the gateway forwarded back as response headers.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "gateway.rate-limit.capacity=5",
+        "gateway.rate-limit.refill-per-second=0.01"
+})
+class ApiGatewayRoutingTest {
+
+    private static final String KID = "test-key";
+    private static final KeyPair KEY_PAIR = ecKeyPair();
+    private static final AtomicInteger upstreamRequests = new AtomicInteger();
+    private static final DisposableServer upstream = HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .route(routes -> routes
+                    .get("/.well-known/jwks.json", (request, response) -> response
+                            .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                            .sendString(Mono.just(jwks())))
+                    .route(request -> true, (request, response) -> {
+                        upstreamRequests.incrementAndGet();
+                        String identity = request.requestHeaders().get("X-Identity");
+                        return request.receive().aggregate().asString().defaultIfEmpty("")
+                                .flatMap(body -> response
+                                        .header("X-Echo-Path", request.uri())
+                                        .header("X-Echo-Identity", identity != null ? identity : "")
+                                        .header("X-Echo-Body-Length", String.valueOf(body.length()))
+                                        .sendString(Mono.just("ok"))
+                                        .then());
+                    }))
+            .bindNow();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void upstreams(DynamicPropertyRegistry registry) {
+        String uri = "http://localhost:" + upstream.port();
+        registry.add("USER_SERVICE_URI", () -> uri);
+        registry.add("CART_SERVICE_URI", () -> uri);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        upstreamRequests.set(0);
+    }
+
+    @Test
+    void testCartRouteWithoutTokenIsRejectedAtTheEdge() {
+        webTestClient.get().uri("/carts").exchange()
+                .expectStatus().isUnauthorized()
+                .expectHeader().valueEquals(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+
+        assertEquals(0, upstreamRequests.get());
+    }
+
+    @Test
+    void testInvalidTokenIsRejectedAtTheEdge() {
+        String token = token("customer-1");
+        String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+        webTestClient.get().uri("/carts").header(HttpHeaders.AUTHORIZATION, "Bearer " + tampered).exchange()
+                .expectStatus().isUnauthorized();
+
+        assertEquals(0, upstreamRequests.get());
+    }
+
+    @Test
+    void testValidTokenForwardsSignedIdentity() {
+        webTestClient.get().uri("/carts").header(HttpHeaders.AUTHORIZATION, "Bearer " + token("customer-1")).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Echo-Path", "/carts")
+                .expectHeader().value("X-Echo-Identity", identity -> {
+                    String[] fields = identity.split(";");
+                    assertEquals(5, fields.length);
+                    assertEquals("customer-1", fields[0]);
+                });
+    }
+
+    @Test
+    void testClientSuppliedIdentityIsReplaced() {
+        webTestClient.get().uri("/carts")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("customer-1"))
+                .header("X-Identity", "someone-else;;0;9999999999999;forged")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("X-Echo-Identity", identity -> assertTrue(identity.startsWith("customer-1;"), identity));
+
+        webTestClient.post().uri("/auth/login")
+                .header("X-Identity", "someone-else;;0;9999999999999;forged")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Echo-Identity", "");
+    }
+
+    @Test
+    void testPublicRoutePassesThroughWithoutToken() {
+        String body = "{\"username\":\"alice\",\"password\":\"secret\"}";
+
+        webTestClient.post().uri("/auth/login")
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Echo-Path", "/auth/login")
+                .expectHeader().valueEquals("X-Echo-Body-Length", String.valueOf(body.length()));
+    }
+
+    @Test
+    void testGraphQLRoutesAreRewritten() {
+        webTestClient.post().uri("/graphql/carts")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("customer-1"))
+                .bodyValue("{\"query\":\"{ cart { id } }\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Echo-Path", "/graphql");
+
+        webTestClient.post().uri("/graphql/carts").bodyValue("{}").exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void testRateLimitIsPerCustomerAndAnswers429() {
+        String limited = token("customer-limited");
+        for (int i = 0; i < 5; i++) {
+            webTestClient.get().uri("/carts").header(HttpHeaders.AUTHORIZATION, "Bearer " + limited).exchange()
+                    .expectStatus().isOk();
+        }
+
+        webTestClient.get().uri("/carts").header(HttpHeaders.AUTHORIZATION, "Bearer " + limited).exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+        assertEquals(5, upstreamRequests.get());
+
+        webTestClient.get().uri("/carts").header(HttpHeaders.AUTHORIZATION, "Bearer " + token("customer-other")).exchange()
+                .expectStatus().isOk();
+    }
+
+    private static String token(String customerId) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setHeaderParam("kid", KID)
+                .setSubject("alice")
+                .claim("customerId", customerId)
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 60_000))
+                .signWith(KEY_PAIR.getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+    }
+
+    private static String jwks() {
+        ECPublicKey key = (ECPublicKey) KEY_PAIR.getPublic();
+        return "{\"keys\":[{\"kty\":\"EC\",\"crv\":\"P-256\",\"use\":\"sig\",\"kid\":\"" + KID + "\","
+                + "\"x\":\"" + coordinate(key.getW().getAffineX()) + "\","
+                + "\"y\":\"" + coordinate(key.getW().getAffineY()) + "\"}]}";
+    }
+
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    private static KeyPair ecKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.sellaway.apigateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRefillsAtTheConfiguredRate() {
+        TokenBuckets buckets = new TokenBuckets(3, 2, 100);
+        long now = 1_000 * SECOND;
+
+        assertTrue(buckets.tryAcquire("a", now));
+        assertTrue(buckets.tryAcquire("a", now));
+        assertTrue(buckets.tryAcquire("a", now));
+        assertFalse(buckets.tryAcquire("a", now));
+        assertEquals(SECOND / 2, buckets.nanosUntilAvailable("a", now));
+
+        assertTrue(buckets.tryAcquire("a", now + SECOND / 2));
+        assertFalse(buckets.tryAcquire("a", now + SECOND / 2));
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 100);
+        long now = System.nanoTime();
+
+        assertTrue(buckets.tryAcquire("a", now));
+        assertFalse(buckets.tryAcquire("a", now));
+        assertTrue(buckets.tryAcquire("b", now));
+        assertEquals(0, buckets.nanosUntilAvailable("c", now));
+    }
+
+    @Test
+    void idleBucketsDoNotOutgrowCapacity() {
+        TokenBuckets buckets = new TokenBuckets(2, 10, 100);
+        long now = System.nanoTime();
+
+        assertTrue(buckets.tryAcquire("a", now));
+        long later = now + 60 * SECOND;
+        assertTrue(buckets.tryAcquire("a", later));
+        assertTrue(buckets.tryAcquire("a", later));
+        assertFalse(buckets.tryAcquire("a", later));
+    }
+
+    @Test
+    void memoryStaysBounded() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 1_000);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 100_000; i++) {
+            buckets.tryAcquire("client-" + i, now + i * SECOND / 1_000);
+        }
+
+        assertTrue(buckets.size() <= 1_000, "size " + buckets.size());
+        assertTrue(buckets.size() > 0);
+    }
+}
@@ -0,0 +1,96 @@
+package com.sellaway.benchmarks;
+
+import com.sellaway.benchmarks.support.StandIns;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import com.sellaway.cartservice.repository.CartRepository;
+import com.sellaway.cartservice.service.CartMetrics;
+import com.sellaway.cartservice.service.CartMutationExecutor;
+import com.sellaway.cartservice.service.CartService;
+import com.sellaway.cartservice.service.CartVersionCache;
+import com.sellaway.cartservice.store.JpaCartStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CartService item lookups on carts of 1-1000 lines, against an in-memory repository and an
+ * outbox that discards events. The target is the last line, i.e. the worst case for a linear scan.
+ * The repository hands out a fresh copy of the cart per operation, so the service operations pay
+ * for building the item index on every request, as they do against the database.
+ * linearScan / indexedLookup isolate the lookup itself: the stream filter CartService used before
+ * Cart kept its id index, against Cart.findItem.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartItemScanBenchmark {
+
+    private static final String USER_ID = "bench-user";
+
+    @Param({"1", "10", "100", "500", "1000"})
+    public int itemCount;
+
+    private CartRepository cartRepository;
+    private CartService cartService;
+    private Cart cart;
+    private CartItem lastItem;
+    private int quantity;
+
+    @Setup
+    public void setUp() {
+        cartRepository = StandIns.cartRepository();
+        JpaCartStore cartStore = new JpaCartStore(cartRepository, StandIns.cartEventOutbox());
+        cartService = new CartService(cartStore, new CartVersionCache(0, 1),
+                new CartMutationExecutor(StandIns.transactionManager(), cartStore, 1024, 3), new CartMetrics(new SimpleMeterRegistry()));
+
+        cart = new Cart();
+        cart.setId(1L);
+        cart.setUserId(USER_ID);
+        for (long i = 1; i <= itemCount; i++) {
+            CartItem item = new CartItem();
+            item.setId(i);
+            item.setProductId(1_000 + i);
+            item.setQuantity(1);
+            cart.addItem(item);
+            lastItem = item;
+        }
+        cartRepository.save(cart);
+    }
+
+    @Benchmark
+    public Cart updateCartItem() {
+        return cartService.updateCartItem(USER_ID, lastItem.getId(), (quantity++ & 7) + 1);
+    }
+
+    @Benchmark
+    public Optional<CartItem> linearScan() {
+        Long itemId = lastItem.getId();
+        return cart.getItems().stream().filter(item -> item.getId().equals(itemId)).findFirst();
+    }
+
+    @Benchmark
+    public CartItem indexedLookup() {
+        return cart.findItem(lastItem.getId());
+    }
+
+    @Benchmark
+    public Cart addExistingProduct() {
+        CartItem item = new CartItem();
+        item.setProductId(lastItem.getProductId());
+        item.setQuantity(1);
+        return cartService.addItemToCart(USER_ID, item); // merges into lastItem instead of growing the cart
+    }
+
+    @Benchmark
+    public Cart removeItemFromCart() {
+        Cart result = cartService.removeItemFromCart(USER_ID, lastItem.getId());
+        cartRepository.save(cart); // put the line back so every invocation sees the same cart size
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package com.sellaway.benchmarks;
+
+import com.sellaway.benchmarks.support.Tokens;
+import com.sellaway.cartservice.config.GatewayIdentity;
+import com.sellaway.cartservice.config.JwtService;
+import com.sellaway.cartservice.config.TokenRevocationList;
+import com.sellaway.common.jwt.JwtClaimsCache;
+import com.sellaway.common.jwt.JwtVerifier;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What JwtAuthenticationFilter pays per request: isTokenValid followed by extractCustomerId.
+ * cacheSize=0 measures the raw parse + signature verification path, the default size measures cache hits.
+ * algorithm compares HS256 (shared secret) with ES256 against an already decoded JWKS key.
+ * gatewayIdentity is the same filter step for a request the api-gateway already verified (X-Identity).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartJwtBenchmark {
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    @Param({"HS256", "ES256"})
+    public String algorithm;
+
+    private static final String IDENTITY_SECRET = "bench-gateway-identity-secret-0123456789";
+
+    private JwtService jwtService;
+    private GatewayIdentity gatewayIdentity;
+    private String token;
+    private String identityHeader;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new JwtVerifier(new JwtClaimsCache(cacheSize), Tokens.jwksKeyProvider(), Tokens.SECRET),
+                new TokenRevocationList(100_000));
+        token = Tokens.issue(Tokens.userJwtService(algorithm), "bench-user", UUID.randomUUID().toString());
+        gatewayIdentity = new GatewayIdentity(IDENTITY_SECRET, new TokenRevocationList(100_000));
+        identityHeader = identityHeader(jwtService.verify(token).getCustomerId());
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token);
+    }
+
+    @Benchmark
+    public String extractCustomerId() {
+        return jwtService.extractCustomerId(token);
+    }
+
+    @Benchmark
+    public String filterPath() {
+        return jwtService.isTokenValid(token) ? jwtService.extractCustomerId(token) : null;
+    }
+
+    @Benchmark
+    public String gatewayIdentity() {
+        return gatewayIdentity.authenticate(identityHeader);
+    }
+
+    // Same format as the api-gateway's IdentityHeader
+    private static String identityHeader(String customerId) {
+        long now = System.currentTimeMillis();
+        String payload = customerId + ';' + UUID.randomUUID() + ';' + now + ';' + (now + 3_600_000);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(IDENTITY_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return payload + ';' + Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.sellaway.benchmarks;
+
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.event.CartEventBinaryDeserializer;
+import com.sellaway.cartservice.event.CartEventBinarySerializer;
+import com.sellaway.userservice.event.UserEvent;
+import com.sellaway.userservice.event.UserEventBinaryDeserializer;
+import com.sellaway.userservice.event.UserEventBinarySerializer;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CartEvent / UserEvent value (de)serialization: spring-kafka JsonSerializer with type headers, as
+ * configured by default, against the compact binary format. Encoded sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private static final String CART_TOPIC = "cart-events";
+    private static final String USER_TOPIC = "user-events";
+
+    private JsonSerializer<CartEvent> cartJsonSerializer;
+    private JsonDeserializer<CartEvent> cartJsonDeserializer;
+    private CartEventBinarySerializer cartBinarySerializer;
+    private CartEventBinaryDeserializer cartBinaryDeserializer;
+    private JsonSerializer<UserEvent> userJsonSerializer;
+    private UserEventBinarySerializer userBinarySerializer;
+    private UserEventBinaryDeserializer userBinaryDeserializer;
+
+    private CartEvent cartEvent;
+    private UserEvent userEvent;
+    private Headers cartJsonHeaders;
+    private byte[] cartJson;
+    private byte[] cartBinary;
+    private byte[] userBinary;
+
+    @Setup
+    public void setUp() {
+        cartJsonSerializer = new JsonSerializer<>();
+        cartJsonDeserializer = new JsonDeserializer<>(CartEvent.class);
+        cartBinarySerializer = new CartEventBinarySerializer();
+        cartBinaryDeserializer = new CartEventBinaryDeserializer();
+        userJsonSerializer = new JsonSerializer<>();
+        userBinarySerializer = new UserEventBinarySerializer();
+        userBinaryDeserializer = new UserEventBinaryDeserializer();
+
+        cartEvent = new CartEvent("CartItemAdded", 42L, 1_234_567L);
+        userEvent = new UserEvent("UserCreated", 42L);
+        cartJsonHeaders = new RecordHeaders();
+        cartJson = cartJsonSerializer.serialize(CART_TOPIC, cartJsonHeaders, cartEvent);
+        cartBinary = cartBinarySerializer.serialize(CART_TOPIC, cartEvent);
+        userBinary = userBinarySerializer.serialize(USER_TOPIC, userEvent);
+
+        Headers userJsonHeaders = new RecordHeaders();
+        byte[] userJson = userJsonSerializer.serialize(USER_TOPIC, userJsonHeaders, userEvent);
+        System.out.printf("%nCartEvent: json %d bytes + %d header bytes, binary %d bytes%n",
+                cartJson.length, headerBytes(cartJsonHeaders), cartBinary.length);
+        System.out.printf("UserEvent: json %d bytes + %d header bytes, binary %d bytes%n",
+                userJson.length, headerBytes(userJsonHeaders), userBinary.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cartJsonSerializer.close();
+        cartJsonDeserializer.close();
+        userJsonSerializer.close();
+    }
+
+    @Benchmark
+    public byte[] cartJsonSerialize() {
+        return cartJsonSerializer.serialize(CART_TOPIC, new RecordHeaders(), cartEvent);
+    }
+
+    @Benchmark
+    public byte[] cartBinarySerialize() {
+        return cartBinarySerializer.serialize(CART_TOPIC, cartEvent);
+    }
+
+    @Benchmark
+    public CartEvent cartJsonDeserialize() {
+        return cartJsonDeserializer.deserialize(CART_TOPIC, cartJsonHeaders, cartJson);
+    }
+
+    @Benchmark
+    public CartEvent cartBinaryDeserialize() {
+        return cartBinaryDeserializer.deserialize(CART_TOPIC, cartBinary);
+    }
+
+    @Benchmark
+    public byte[] userJsonSerialize() {
+        return userJsonSerializer.serialize(USER_TOPIC, new RecordHeaders(), userEvent);
+    }
+
+    @Benchmark
+    public byte[] userBinarySerialize() {
+        return userBinarySerializer.serialize(USER_TOPIC, userEvent);
+    }
+
+    @Benchmark
+    public UserEvent userBinaryDeserialize() {
+        return userBinaryDeserializer.deserialize(USER_TOPIC, userBinary);
+    }
+
+    private static int headerBytes(Headers headers) {
+        int size = 0;
+        for (var header : headers) {
+            size += header.key().length() + header.value().length;
+        }
+        return size;
+    }
+}
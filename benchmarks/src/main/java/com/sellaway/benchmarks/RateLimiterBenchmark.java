@@ -0,0 +1,44 @@
+package com.sellaway.benchmarks;
+
+import com.sellaway.apigateway.ratelimit.TokenBuckets;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the api-gateway's RateLimitGlobalFilter adds per request: one TokenBuckets.tryAcquire.
+ * keys=1 puts every thread on the same bucket (worst-case CAS contention), the larger counts spread
+ * requests over that many clients; 200000 is above max-keys, so it also exercises eviction.
+ * Run with -t to add threads and -prof gc: a hit on an existing bucket should allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000", "200000"})
+    public int keys;
+
+    private TokenBuckets buckets;
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        // Generous limits so the benchmark measures the check, not a stream of rejections
+        buckets = new TokenBuckets(1_000_000, 1_000_000_000, 100_000);
+        clients = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            clients[i] = "customer-" + i;
+        }
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        String key = clients[keys == 1 ? 0 : ThreadLocalRandom.current().nextInt(keys)];
+        return buckets.tryAcquire(key, System.nanoTime());
+    }
+}
@@ -0,0 +1,61 @@
+package com.sellaway.benchmarks;
+
+import com.sellaway.benchmarks.support.Tokens;
+import com.sellaway.cartservice.config.JwtService;
+import com.sellaway.cartservice.config.TokenRevocationList;
+import com.sellaway.common.jwt.JwtClaimsCache;
+import com.sellaway.common.jwt.JwtVerifier;
+import com.sellaway.common.jwt.VerifiedJwt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cart-service TokenRevocationList.isRevoked for a token that is not revoked (the common case) while
+ * revokedEntries other tokens and users are revoked, and for one that is. Run with -prof gc: the
+ * not-revoked path should allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenRevocationBenchmark {
+
+    @Param({"1000", "100000"})
+    public int revokedEntries;
+
+    private TokenRevocationList revocationList;
+    private VerifiedJwt liveToken;
+    private VerifiedJwt revokedToken;
+
+    @Setup
+    public void setUp() {
+        revocationList = new TokenRevocationList(100_000);
+        long expiresAt = System.currentTimeMillis() + Tokens.EXPIRATION_MS;
+        for (int i = 0; i < revokedEntries; i++) {
+            if (i % 10 == 0) {
+                revocationList.revokeUser("revoked-user-" + i, System.currentTimeMillis(), expiresAt);
+            } else {
+                revocationList.revokeToken(UUID.randomUUID().toString(), expiresAt);
+            }
+        }
+
+        JwtService jwtService = new JwtService(new JwtVerifier(new JwtClaimsCache(0), Tokens.jwksKeyProvider(), Tokens.SECRET), revocationList);
+        liveToken = jwtService.verify(Tokens.issue(Tokens.userJwtService(), "bench-user", UUID.randomUUID().toString()));
+        revokedToken = jwtService.verify(Tokens.issue(Tokens.userJwtService(), "bench-user", UUID.randomUUID().toString()));
+        revocationList.revokeToken(revokedToken.getJti(), expiresAt);
+    }
+
+    @Benchmark
+    public boolean notRevoked() {
+        return revocationList.isRevoked(liveToken);
+    }
+
+    @Benchmark
+    public boolean revoked() {
+        return revocationList.isRevoked(revokedToken);
+    }
+}
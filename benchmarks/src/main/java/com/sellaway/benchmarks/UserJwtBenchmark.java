@@ -0,0 +1,38 @@
+package com.sellaway.benchmarks;
+
+import com.sellaway.benchmarks.support.Tokens;
+import com.sellaway.userservice.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/** Token issuance cost on login (user-service JwtService.generateToken), HMAC vs ECDSA signing. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJwtBenchmark {
+
+    @Param({"HS256", "ES256"})
+    public String algorithm;
+
+    private JwtService jwtService;
+    private UserDetails userDetails;
+    private String customerId;
+
+    @Setup
+    public void setUp() {
+        jwtService = Tokens.userJwtService(algorithm);
+        userDetails = Tokens.user("bench-user");
+        customerId = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(userDetails, customerId);
+    }
+}
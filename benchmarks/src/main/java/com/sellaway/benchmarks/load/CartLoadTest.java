@@ -0,0 +1,159 @@
+package com.sellaway.benchmarks.load;
+
+import com.sellaway.benchmarks.support.Tokens;
+import com.sellaway.userservice.service.JwtService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running cart-service: {@code concurrency} clients each send the next
+ * request as soon as the previous one returns, spread over {@code users} distinct carts. Prints
+ * throughput, latency percentiles and the peak number of requests in flight.
+ *
+ * <p>Compare the platform-thread pool with virtual threads by running it against the same service
+ * started without and with the {@code virtual-threads} profile (Java 21 runtime), with a concurrency
+ * above Tomcat's 200 worker threads:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.sellaway.benchmarks.load.CartLoadTest \
+ *     --url http://localhost:8081/carts --concurrency 800 --duration 60 --warmup 10
+ * </pre>
+ */
+public class CartLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI uri = URI.create(options.getOrDefault("url", "http://localhost:8081/carts"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "400"));
+        int users = Integer.parseInt(options.getOrDefault("users", "10000"));
+        long warmupMs = Long.parseLong(options.getOrDefault("warmup", "10")) * 1000;
+        long durationMs = Long.parseLong(options.getOrDefault("duration", "60")) * 1000;
+
+        JwtService issuer = Tokens.userJwtService();
+        String[] tokens = new String[users];
+        for (int i = 0; i < users; i++) {
+            tokens[i] = Tokens.issue(issuer, "load-" + i, "load-user-" + i);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long measureFrom = start + warmupMs * 1_000_000;
+        long end = measureFrom + durationMs * 1_000_000;
+        LatencyRecorder[] recorders = new LatencyRecorder[concurrency];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int c = 0; c < concurrency; c++) {
+            LatencyRecorder recorder = recorders[c] = new LatencyRecorder();
+            int firstUser = c;
+            Thread thread = new Thread(() -> {
+                int next = firstUser;
+                try {
+                    while (System.nanoTime() < end) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .timeout(Duration.ofSeconds(30))
+                                .header("Authorization", "Bearer " + tokens[next % users])
+                                .GET()
+                                .build();
+                        next += concurrency;
+                        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        long sent = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                        } catch (Exception e) {
+                            ok = false;
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                        long received = System.nanoTime();
+                        if (sent >= measureFrom) {
+                            if (ok) {
+                                recorder.record(received - sent);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        long[] latencies = LatencyRecorder.merge(recorders);
+        double seconds = durationMs / 1000.0;
+        System.out.printf("url=%s concurrency=%d users=%d duration=%ds%n", uri, concurrency, users, durationMs / 1000);
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s peakInFlight=%d%n",
+                latencies.length, errors.get(), latencies.length / seconds, peakInFlight.get());
+        System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                percentile(latencies, 99.9), percentile(latencies, 100));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /** Per-client latency buffer, so recording is free of contention. */
+    private static final class LatencyRecorder {
+        private long[] values = new long[4096];
+        private int size;
+
+        void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        static long[] merge(LatencyRecorder[] recorders) {
+            int total = 0;
+            for (LatencyRecorder recorder : recorders) {
+                total += recorder.size;
+            }
+            long[] all = new long[total];
+            int pos = 0;
+            for (LatencyRecorder recorder : recorders) {
+                System.arraycopy(recorder.values, 0, all, pos, recorder.size);
+                pos += recorder.size;
+            }
+            Arrays.sort(all);
+            return all;
+        }
+    }
+}
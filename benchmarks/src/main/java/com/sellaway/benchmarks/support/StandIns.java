@@ -0,0 +1,150 @@
+package com.sellaway.benchmarks.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.event.CartEventOutbox;
+import com.sellaway.cartservice.event.CartEventPublisher;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.repository.CartOutboxRepository;
+import com.sellaway.cartservice.repository.CartRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * In-memory replacements for the infrastructure the services normally get from Spring
+ * (Postgres-backed repositories, a Kafka broker, @Value injection) so the suites run offline.
+ */
+public final class StandIns {
+
+    private StandIns() {
+    }
+
+    /**
+     * A {@link CartRepository} backed by a map keyed by userId. Like a JPA repository loading a new
+     * entity in every transaction, finds return a fresh copy of the stored cart (item index not yet
+     * built) and saves store a copy. Only the methods the cart service calls on its hot path are
+     * implemented; anything else fails loudly.
+     */
+    public static CartRepository cartRepository() {
+        Map<String, Cart> carts = new ConcurrentHashMap<>();
+        return (CartRepository) Proxy.newProxyInstance(
+                CartRepository.class.getClassLoader(),
+                new Class<?>[]{CartRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByUserId", "findReadOnlyByUserId" -> Optional.ofNullable(carts.get((String) args[0])).map(Cart::copy);
+                    case "save" -> {
+                        Cart cart = (Cart) args[0];
+                        carts.put(cart.getUserId(), cart.copy());
+                        yield cart;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryCartRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * A KafkaTemplate whose producer is an auto-completing {@link MockProducer} using the same
+     * serializers as cart-service, so sends still pay the JSON serialization cost.
+     */
+    public static KafkaTemplate<String, CartEvent> cartKafkaTemplate() {
+        MockProducer<String, CartEvent> producer = new DiscardingProducer<>();
+        KafkaTemplate<String, CartEvent> template = new KafkaTemplate<>(() -> producer);
+        template.setDefaultTopic("cart-events");
+        return template;
+    }
+
+    /** The cart-service outbox writer over a repository that discards what it is given. */
+    public static CartEventOutbox cartEventOutbox() {
+        CartOutboxRepository repository = (CartOutboxRepository) Proxy.newProxyInstance(
+                CartOutboxRepository.class.getClassLoader(),
+                new Class<?>[]{CartOutboxRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "DiscardingCartOutboxRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return new CartEventOutbox(repository, new ObjectMapper());
+    }
+
+    /** The cart-service publisher on top of {@link #cartKafkaTemplate()}, metrics to a throwaway registry. */
+    public static CartEventPublisher cartEventPublisher() {
+        return new CartEventPublisher(cartKafkaTemplate(), new SimpleMeterRegistry());
+    }
+
+    /** A transaction manager with nothing to commit, for services that demarcate their own transactions. */
+    public static PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    /**
+     * KafkaTemplate closes the producer after every send unless the factory caches it, and
+     * MockProducer keeps a history of everything sent; neither is wanted in a long-running benchmark.
+     */
+    private static final class DiscardingProducer<V> extends MockProducer<String, V> {
+
+        DiscardingProducer() {
+            super(true, new StringSerializer(), new JsonSerializer<>());
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, V> record, Callback callback) {
+            Future<RecordMetadata> result = super.send(record, callback);
+            clear();
+            return result;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+
+    /** Sets a (typically @Value-injected) private field. */
+    public static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getName(), e);
+        }
+    }
+}
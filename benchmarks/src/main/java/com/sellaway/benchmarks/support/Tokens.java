@@ -0,0 +1,52 @@
+package com.sellaway.benchmarks.support;
+
+import com.sellaway.common.jwt.JwksKeyProvider;
+import com.sellaway.userservice.service.JwtKeyRing;
+import com.sellaway.userservice.service.JwtService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Shared JWT fixtures: the secret from the services' configuration, one ES256 key ring standing in for
+ * user-service's, and user-service token issuers for either algorithm. HS256 is the default because
+ * tokens for a running cart-service (CartLoadTest) can only be minted offline with the shared secret.
+ */
+public final class Tokens {
+
+    public static final String SECRET = "YourVerySecretKeyWhichShouldBeLongAndSecureAndStoredSafelyPreferablyNotInCodebase";
+    public static final long EXPIRATION_MS = 86_400_000L;
+
+    public static final JwtKeyRing KEY_RING = new JwtKeyRing(EXPIRATION_MS);
+
+    private Tokens() {
+    }
+
+    public static JwtService userJwtService() {
+        return userJwtService("HS256");
+    }
+
+    public static JwtService userJwtService(String algorithm) {
+        JwtService jwtService = new JwtService(KEY_RING);
+        StandIns.setField(jwtService, "secretKey", SECRET);
+        StandIns.setField(jwtService, "jwtExpiration", EXPIRATION_MS);
+        StandIns.setField(jwtService, "signingAlgorithm", algorithm);
+        return jwtService;
+    }
+
+    /** cart-service's view of KEY_RING, as JwksKeyProvider holds it after fetching user-service's JWKS. */
+    public static JwksKeyProvider jwksKeyProvider() {
+        JwtKeyRing.SigningKey key = KEY_RING.activeKey();
+        return JwksKeyProvider.fixed(Map.of(key.kid(), key.publicKey()));
+    }
+
+    public static UserDetails user(String username) {
+        return new User(username, "", Collections.emptyList());
+    }
+
+    public static String issue(JwtService issuer, String username, String customerId) {
+        return issuer.generateToken(user(username), customerId);
+    }
+}
@@ -2,8 +2,10 @@ package com.sellaway.cartservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // CartOutboxRelay, JwksKeyProvider refresh
 public class CartServiceApplication {
 
     public static void main(String[] args) {
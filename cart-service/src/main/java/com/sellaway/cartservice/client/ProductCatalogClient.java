@@ -0,0 +1,70 @@
+package com.sellaway.cartservice.client;
+
+import com.sellaway.cartservice.dto.ProductInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Looks up product name and price in pricing-api. Meant to be called once per GraphQL request with
+ * every product id of the response (see {@code CartGraphQLController#product}); an unavailable
+ * catalog degrades to null enrichment fields rather than failing the cart query.
+ */
+@Component
+public class ProductCatalogClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalogClient.class);
+
+    private static final ParameterizedTypeReference<List<ProductInfo>> PRODUCT_LIST = new ParameterizedTypeReference<>() {};
+
+    private final RestClient restClient;
+
+    // No RestClient.Builder bean is auto-configured under the reactive profile, hence the fallback
+    public ProductCatalogClient(ObjectProvider<RestClient.Builder> builder,
+                                @Value("${cart.product-catalog.base-url:http://localhost:8080}") String baseUrl,
+                                @Value("${cart.product-catalog.connect-timeout-ms:500}") int connectTimeoutMs,
+                                @Value("${cart.product-catalog.read-timeout-ms:2000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        this.restClient = builder.getIfAvailable(RestClient::builder).baseUrl(baseUrl).requestFactory(requestFactory).build();
+    }
+
+    public Map<Long, ProductInfo> getProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String ids = productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            List<ProductInfo> products = restClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/products").queryParam("ids", ids).build())
+                    .retrieve()
+                    .body(PRODUCT_LIST);
+            Map<Long, ProductInfo> byId = new HashMap<>();
+            if (products != null) {
+                for (ProductInfo product : products) {
+                    if (productIds.contains(product.getId())) { // older pricing-api ignores ?ids and returns everything
+                        byId.put(product.getId(), product);
+                    }
+                }
+            }
+            return byId;
+        } catch (RestClientException e) {
+            log.warn("Product lookup for {} products failed: {}", productIds.size(), e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+}
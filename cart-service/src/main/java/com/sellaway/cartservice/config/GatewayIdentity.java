@@ -0,0 +1,105 @@
+package com.sellaway.cartservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Checks the {@code X-Identity} header the api-gateway adds after verifying a token
+ * ({@code customerId;jti;iatMillis;expMillis;signature}, HMAC-SHA256 with a shared secret).
+ * A valid header stands in for the token: one HMAC instead of a JWT parse and signature check.
+ * Expiry and revocation are still checked here. Without {@code cart.security.gateway-identity-secret}
+ * the header is ignored and every request needs its own bearer token, as before; a secret shorter
+ * than 32 characters fails startup, as it does in the gateway.
+ */
+@Component
+public class GatewayIdentity {
+
+    public static final String HEADER = "X-Identity";
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayIdentity.class);
+
+    private final Mac prototype;
+    private final TokenRevocationList revocationList;
+
+    public GatewayIdentity(@Value("${cart.security.gateway-identity-secret:}") String secret,
+                           TokenRevocationList revocationList) {
+        this.revocationList = revocationList;
+        if (secret == null || secret.isEmpty()) {
+            this.prototype = null;
+            return;
+        }
+        if (secret.length() < 32) { // same minimum as the api-gateway's IdentityHeader
+            throw new IllegalStateException("cart.security.gateway-identity-secret must be at least 32 characters");
+        }
+        try {
+            this.prototype = Mac.getInstance("HmacSHA256");
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return prototype != null;
+    }
+
+    /** The customerId the header vouches for, or null if it is malformed, forged, expired or revoked. */
+    public String authenticate(String header) {
+        if (prototype == null || header == null) {
+            return null;
+        }
+        int signatureStart = header.lastIndexOf(';');
+        String[] fields = header.substring(0, Math.max(signatureStart, 0)).split(";", -1);
+        if (signatureStart < 0 || fields.length != 4) {
+            log.warn("Malformed gateway identity header");
+            return null;
+        }
+        String payload = header.substring(0, signatureStart);
+        byte[] expected = sign(payload);
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(header.substring(signatureStart + 1));
+        } catch (IllegalArgumentException e) {
+            actual = new byte[0];
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            log.warn("Gateway identity header with a bad signature");
+            return null;
+        }
+
+        String customerId = fields[0];
+        String jti = fields[1].isEmpty() ? null : fields[1];
+        long issuedAtMillis;
+        long expiresAtMillis;
+        try {
+            issuedAtMillis = Long.parseLong(fields[2]);
+            expiresAtMillis = Long.parseLong(fields[3]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (customerId.isEmpty() || expiresAtMillis <= System.currentTimeMillis()
+                || revocationList.isRevoked(jti, customerId, issuedAtMillis)) {
+            return null;
+        }
+        return customerId;
+    }
+
+    private byte[] sign(String payload) {
+        Mac mac;
+        try {
+            mac = (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HmacSHA256 is not cloneable", e);
+        }
+        return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,10 +1,13 @@
 package com.sellaway.cartservice.config;
 
+import com.sellaway.common.jwt.VerifiedJwt;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,15 +19,30 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections; // For empty authorities
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
+@Profile("!reactive")
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final GatewayIdentity gatewayIdentity;
     // We don't need UserDetailsService here if we trust the JWT claims directly
     // after validation. We extract info directly from the token.
 
+    // cart.auth.jwt by outcome; cache hits and misses of the valid ones are counted by JwtClaimsCache
+    private final Timer valid;
+    private final Timer invalid;
+    private final Timer gateway;
+
+    public JwtAuthenticationFilter(JwtService jwtService, GatewayIdentity gatewayIdentity, MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.gatewayIdentity = gatewayIdentity;
+        this.valid = verificationTimer(meterRegistry, "valid");
+        this.invalid = verificationTimer(meterRegistry, "invalid");
+        this.gateway = verificationTimer(meterRegistry, "gateway");
+    }
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -36,6 +54,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String jwt;
         final String customerId; // We primarily care about the customerId now
 
+        // Already verified by the api-gateway: trust its signed identity and skip the JWT entirely
+        final String identityHeader = request.getHeader(GatewayIdentity.HEADER);
+        if (identityHeader != null && gatewayIdentity.isEnabled()) {
+            long start = System.nanoTime();
+            customerId = gatewayIdentity.authenticate(identityHeader);
+            (customerId != null ? gateway : invalid).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (customerId == null) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            authenticate(request, customerId);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response); // Continue without authentication
             return;
@@ -43,7 +76,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7); // Extract token after "Bearer "
 
-        if (!jwtService.isTokenValid(jwt)) {
+        long start = System.nanoTime();
+        VerifiedJwt verified = jwtService.authenticate(jwt);
+        (verified != null ? valid : invalid).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (verified == null) {
              logger.warn("Invalid or expired JWT token received.");
              response.setStatus(HttpServletResponse.SC_UNAUTHORIZED); // Or handle appropriately
              // Optionally write an error response body
@@ -52,33 +88,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
              return; // Stop filter chain for invalid token
         }
 
-        customerId = jwtService.extractCustomerId(jwt); // Extract customerId from validated token
+        customerId = verified.getCustomerId(); // Extract customerId from validated token
 
         // If token is valid and we have customerId, set authentication in context
-        if (customerId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // We don't have full UserDetails, but we can create a principal
-            // representing the authenticated user based on the token claims.
-            // Using customerId as the principal name here.
-            // We grant a dummy authority or none if roles aren't in the token.
-             UserDetails userDetails = User.builder()
-                     .username(customerId) // Use customerId as the principal identifier
-                     .password("") // Password not needed/available
-                     .authorities(Collections.emptyList()) // Add authorities if included in JWT claims
-                     .build();
-
-
-            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    userDetails, // Principal (can be UserDetails or just the customerId String)
-                    null,       // Credentials (not needed for JWT)
-                    userDetails.getAuthorities() // Authorities (can be empty)
-            );
-            authToken.setDetails(
-                    new WebAuthenticationDetailsSource().buildDetails(request)
-            );
-            // Update SecurityContext
-            SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (customerId != null) {
+            authenticate(request, customerId);
         }
          // Continue filter chain
         filterChain.doFilter(request, response);
     }
+
+    private void authenticate(HttpServletRequest request, String customerId) {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            return;
+        }
+        // We don't have full UserDetails, but we can create a principal
+        // representing the authenticated user based on the token claims.
+        // Using customerId as the principal name here.
+        // We grant a dummy authority or none if roles aren't in the token.
+        UserDetails userDetails = User.builder()
+                .username(customerId) // Use customerId as the principal identifier
+                .password("") // Password not needed/available
+                .authorities(Collections.emptyList()) // Add authorities if included in JWT claims
+                .build();
+
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails, // Principal (can be UserDetails or just the customerId String)
+                null,       // Credentials (not needed for JWT)
+                userDetails.getAuthorities() // Authorities (can be empty)
+        );
+        authToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        // Update SecurityContext
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    private static Timer verificationTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("cart.auth.jwt")
+                .description("Request authentication: JWT verification, or the gateway's signed identity")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
 }
@@ -1,26 +1,24 @@
 package com.sellaway.cartservice.config; // Or security package
 
+import com.sellaway.common.jwt.JwtVerifier;
+import com.sellaway.common.jwt.VerifiedJwt;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
-import java.util.Date;
 import java.util.function.Function;
 
+// Signature checks and their cache are JwtVerifier's (jwt-common, shared with the api-gateway); this adds revocation
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
     private static final Logger log = LoggerFactory.getLogger(JwtService.class);
 
-
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private final JwtVerifier verifier;
+    private final TokenRevocationList revocationList;
 
     public String extractUsername(String token) {
          try {
@@ -33,8 +31,7 @@ public class JwtService {
 
     public String extractCustomerId(String token) {
          try {
-             Claims claims = extractAllClaims(token);
-             return claims.get("customerId", String.class); // Extract custom claim
+             return verify(token).getCustomerId(); // Extract custom claim
          } catch (Exception e) {
              log.error("Error extracting customerId from token: {}", e.getMessage());
              return null;
@@ -46,36 +43,37 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    // Simplified validation for the filter - just checks expiration and structure
+    // Validation for the filter: signature, expiration and revocation (checked on every call, cache hit or not)
     public boolean isTokenValid(String token) {
         try {
-            return !isTokenExpired(token);
+            VerifiedJwt jwt = verify(token);
+            return !jwt.isExpired(System.currentTimeMillis()) && !revocationList.isRevoked(jwt);
         } catch (Exception e) {
              log.warn("Invalid JWT token: {}", e.getMessage());
              return false;
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // For the filter: the token if it is valid (as isTokenValid), else null, with a single cache lookup
+    public VerifiedJwt authenticate(String token) {
+        try {
+            VerifiedJwt jwt = verify(token);
+            return jwt.isExpired(System.currentTimeMillis()) || revocationList.isRevoked(jwt) ? null : jwt;
+        } catch (Exception e) {
+            log.warn("Invalid JWT token: {}", e.getMessage());
+            return null;
+        }
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Verifies the token signature (or returns the cached result of an earlier verification).
+     * Throws the underlying JJWT exception if the token is malformed, tampered with or expired.
+     */
+    public VerifiedJwt verify(String token) {
+        return verifier.verify(token);
     }
 
     private Claims extractAllClaims(String token) {
-         // It's important this parsing logic and key retrieval matches the user-service
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return verify(token).getClaims();
     }
 }
@@ -0,0 +1,146 @@
+package com.sellaway.cartservice.config;
+
+import com.sellaway.common.jwt.VerifiedJwt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revoked tokens (by jti) and revoked users (every token issued before a time), fed from the
+ * {@code token-revocations} topic. Exact maps are the source of truth; a bloom filter over their keys
+ * sits in front so the common case, a token that isn't revoked, costs two filter probes on the
+ * already-cached String hash codes and no allocation or map lookup. Entries are dropped once the
+ * tokens they cover have expired, and the filter is then rebuilt from what is left.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final int HASHES = 7;
+
+    private final int expectedEntries;
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>(); // jti -> token exp
+    private final Map<String, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    private volatile BloomFilter filter;
+
+    public TokenRevocationList(@Value("${jwt.revocation.expected-entries:100000}") int expectedEntries) {
+        this.expectedEntries = expectedEntries;
+        this.filter = new BloomFilter(expectedEntries);
+    }
+
+    /** Whether the token has been revoked, by its own jti or by a revocation of all its user's tokens. */
+    public boolean isRevoked(VerifiedJwt jwt) {
+        return isRevoked(jwt.getJti(), jwt.getCustomerId(), jwt.getIssuedAtMillis());
+    }
+
+    /** Same check from the fields alone, for callers that trust the gateway's identity header instead of a token. */
+    public boolean isRevoked(String jti, String userId, long issuedAtMillis) {
+        BloomFilter current = filter;
+        boolean jtiMaybe = jti != null && current.mightContain(jti);
+        boolean userMaybe = userId != null && current.mightContain(userId);
+        if (!jtiMaybe && !userMaybe) {
+            return false;
+        }
+        if (jtiMaybe && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        if (userMaybe) {
+            UserRevocation revocation = revokedUsers.get(userId);
+            // iat has second precision, so a login in the same second as a logout-all is revoked too
+            return revocation != null && issuedAtMillis <= revocation.issuedBefore();
+        }
+        return false;
+    }
+
+    public void revokeToken(String jti, long expiresAtMillis) {
+        synchronized (writeLock) {
+            revokedTokens.merge(jti, expiresAtMillis, Math::max);
+            filter.put(jti);
+        }
+    }
+
+    public void revokeUser(String userId, long issuedBeforeMillis, long expiresAtMillis) {
+        synchronized (writeLock) {
+            revokedUsers.merge(userId, new UserRevocation(issuedBeforeMillis, expiresAtMillis),
+                    (a, b) -> new UserRevocation(Math.max(a.issuedBefore(), b.issuedBefore()), Math.max(a.expiresAt(), b.expiresAt())));
+            filter.put(userId);
+        }
+    }
+
+    public int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    // Bloom filters can't delete, so purging rebuilds the filter from the remaining keys
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            boolean removed = revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+            removed |= revokedUsers.values().removeIf(revocation -> revocation.expiresAt() <= now);
+            if (removed) {
+                BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, size()));
+                revokedTokens.keySet().forEach(rebuilt::put);
+                revokedUsers.keySet().forEach(rebuilt::put);
+                filter = rebuilt;
+            }
+        }
+    }
+
+    private record UserRevocation(long issuedBefore, long expiresAt) {
+    }
+
+    // ~1% false positives at the expected size; double hashing from String.hashCode, which the String caches
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final int size;
+
+        BloomFilter(int expectedEntries) {
+            long bitCount = Math.max(64, (long) (expectedEntries * 9.6)); // -n ln(0.01) / ln(2)^2
+            this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE / 64, (bitCount + 63) / 64));
+            this.size = bits.length() * 64;
+        }
+
+        void put(String key) {
+            int h1 = key.hashCode();
+            int h2 = mix(h1);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, size);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                    // retry on a concurrent update of the same word
+                }
+            }
+        }
+
+        boolean mightContain(String key) {
+            int h1 = key.hashCode();
+            int h2 = mix(h1);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, size);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // murmur3 finalizer, forced odd so the probe sequence never collapses onto one bit
+        private static int mix(int h) {
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h | 1;
+        }
+    }
+}
@@ -1,21 +1,39 @@
 package com.sellaway.cartservice.controller;
 
+import com.sellaway.cartservice.client.ProductCatalogClient;
+import com.sellaway.cartservice.dto.CartItemOperation;
+import com.sellaway.cartservice.dto.ProductInfo;
 import com.sellaway.cartservice.model.Cart;
 import com.sellaway.cartservice.model.CartItem;
 import com.sellaway.cartservice.service.CartService;
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.GraphQlExceptionHandler;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.security.core.Authentication; // Import Authentication
 import org.springframework.security.core.context.SecurityContextHolder; // Alternative way
 import org.springframework.stereotype.Controller;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Controller
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class CartGraphQLController {
 
     private final CartService cartService;
+    private final ProductCatalogClient productCatalogClient;
 
     // Helper method to extract customerId from Authentication Principal
     // Can reuse the one from RestController or define locally/in a utility class
@@ -38,14 +56,42 @@ public class CartGraphQLController {
     //     String customerId = getCustomerId(authentication);
     //     return cartService.getCartByUserId(customerId);
     // }
+    // Another request changed the cart first; the REST endpoints answer 409 for the same case
+    @GraphQlExceptionHandler
+    public GraphQLError concurrentModification(OptimisticLockingFailureException e) {
+        return GraphQLError.newError()
+                .errorType(ErrorClassification.errorClassification("CONFLICT"))
+                .message("Cart was modified concurrently, retry")
+                .build();
+    }
+
     @QueryMapping
-    public Cart cart(Authentication authentication) { // Inject Authentication
+    public Cart cart(Authentication authentication, DataFetchingFieldSelectionSet selectionSet) { // Inject Authentication
         if (authentication == null || !authentication.isAuthenticated()) {
              // Handle appropriately - throw exception, return null based on schema nullability
              throw new RuntimeException("User not authenticated.");
         }
         String userId = authentication.getName(); // Or extract from principal details
-        return cartService.getCartByUserId(userId);
+        // Only join-fetch the items when the client asked for them
+        return selectionSet.contains("items") ? cartService.getCart(userId) : cartService.getCartWithoutItems(userId);
+    }
+
+    // Resolves CartItem.product for every item of the response with one pricing-api call per request
+    @BatchMapping(typeName = "CartItem")
+    public Map<CartItem, ProductInfo> product(List<CartItem> items) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        Map<Long, ProductInfo> products = productCatalogClient.getProducts(productIds);
+        Map<CartItem, ProductInfo> byItem = new HashMap<>();
+        for (CartItem item : items) {
+            ProductInfo product = products.get(item.getProductId());
+            if (product != null) {
+                byItem.put(item, product);
+            }
+        }
+        return byItem;
     }
 
 
@@ -60,6 +106,12 @@ public class CartGraphQLController {
         return cartService.addItemToCart(customerId, item);
     }
 
+    @MutationMapping
+    public Cart applyCartOperations(@Argument List<CartItemOperation> operations, Authentication authentication) {
+        String customerId = getCustomerId(authentication);
+        return cartService.applyCartOperations(customerId, operations);
+    }
+
     // @MutationMapping
     // public Cart updateCartItem(/*@Argument String userId,*/ @Argument Long itemId, @Argument int quantity,Authentication authentication) { // Inject Authentication, remove @Argument userId
     //     String customerId = getCustomerId(authentication);
@@ -1,16 +1,24 @@
 package com.sellaway.cartservice.controller;
 
+import com.sellaway.cartservice.dto.CartItemOperation;
 import com.sellaway.cartservice.model.Cart;
 import com.sellaway.cartservice.model.CartItem;
 import com.sellaway.cartservice.service.CartService;
+import com.sellaway.cartservice.service.CartVersionCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication; // Import Authentication
 import org.springframework.security.core.userdetails.UserDetails; // Import UserDetails
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
+@Profile("!reactive")
 @RequestMapping("/carts")
 @RequiredArgsConstructor
 public class CartRestController {
@@ -35,16 +43,43 @@ public class CartRestController {
          // throw new IllegalStateException("Cannot extract customerId from principal");
     }
 
+    // Conditional GET: a matching If-None-Match is answered 304 from the version cache without a query,
+    // or after the read without serializing the cart
     @GetMapping // Path variable {userId} removed
-    public ResponseEntity<Cart> getCart(Authentication authentication) { // Inject Authentication
+    public ResponseEntity<Cart> getCart(Authentication authentication, // Inject Authentication
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         String customerId = getCustomerId(authentication);
-        return ResponseEntity.ok(cartService.getCartByUserId(customerId)); // Use customerId
+        if (ifNoneMatch != null) {
+            String cachedETag = cartService.getCachedETag(customerId);
+            if (cachedETag != null && CartVersionCache.matches(ifNoneMatch, cachedETag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cachedETag).build();
+            }
+        }
+        Cart cart = cartService.getCart(customerId); // Use customerId
+        String eTag = CartVersionCache.eTag(cart);
+        if (ifNoneMatch != null && CartVersionCache.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(cart);
     }
 
     @PostMapping("/items") // Path variable {userId} removed
     public ResponseEntity<Cart> addItemToCart(Authentication authentication, @RequestBody CartItem item) { // Inject Authentication
         String customerId = getCustomerId(authentication);
-        return ResponseEntity.status(HttpStatus.CREATED).body(cartService.addItemToCart(customerId, item)); // Use customerId
+        Cart cart = cartService.addItemToCart(customerId, item); // Use customerId
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(CartVersionCache.eTag(cart)).body(cart);
+    }
+
+    // Bulk add/update/remove in one request and one transaction (guest cart merge, saved basket restore)
+    @PostMapping("/items:batch")
+    public ResponseEntity<Cart> applyCartOperations(Authentication authentication, @RequestBody List<CartItemOperation> operations) {
+        String customerId = getCustomerId(authentication);
+        try {
+            Cart cart = cartService.applyCartOperations(customerId, operations);
+            return ResponseEntity.ok().eTag(CartVersionCache.eTag(cart)).body(cart);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PutMapping("/items/{itemId}") // Path variable {userId} removed
@@ -52,7 +87,7 @@ public class CartRestController {
         String customerId = getCustomerId(authentication);
         Cart updatedCart = cartService.updateCartItem(customerId, itemId, quantity); // Use customerId
         if (updatedCart != null) {
-            return ResponseEntity.ok(updatedCart);
+            return ResponseEntity.ok().eTag(CartVersionCache.eTag(updatedCart)).body(updatedCart);
         } else {
             // Consider returning 403 Forbidden if the item doesn't belong to the user,
             // or 404 if the item/cart doesn't exist. Service layer should handle this.
@@ -65,7 +100,7 @@ public class CartRestController {
         String customerId = getCustomerId(authentication);
         Cart updatedCart = cartService.removeItemFromCart(customerId, itemId); // Use customerId
         if (updatedCart != null) {
-            return ResponseEntity.ok(updatedCart);
+            return ResponseEntity.ok().eTag(CartVersionCache.eTag(updatedCart)).body(updatedCart);
         } else {
              // Consider returning 403 Forbidden or 404
             return ResponseEntity.notFound().build();
@@ -78,4 +113,10 @@ public class CartRestController {
         cartService.clearCart(customerId); // Use customerId
         return ResponseEntity.noContent().build();
     }
+
+    // A concurrent request changed the cart between our read and our write; the client re-reads and retries
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> concurrentModification() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
 }
@@ -0,0 +1,21 @@
+package com.sellaway.cartservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One entry of a bulk cart mutation: ADD uses productId/quantity, UPDATE uses itemId/quantity, REMOVE uses itemId
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemOperation {
+
+    public enum Type { ADD, UPDATE, REMOVE }
+
+    private Type type;
+    private Long itemId;
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,21 @@
+package com.sellaway.cartservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Product enrichment for cart lines, as returned by pricing-api GET /products
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductInfo {
+    private Long id;
+    private String name;
+    @JsonProperty("base_price")
+    private Double basePrice;
+}
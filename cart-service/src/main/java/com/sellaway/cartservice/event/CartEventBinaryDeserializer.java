@@ -0,0 +1,32 @@
+package com.sellaway.cartservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka value deserializer for cart events. Reads the binary {@link CartEventCodec} format and
+ * falls back to JSON for records written by JsonSerializer, so a topic can carry both while
+ * producers are migrated.
+ */
+public class CartEventBinaryDeserializer implements Deserializer<CartEvent> {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public CartEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (CartEventCodec.isBinary(data)) {
+            return CartEventCodec.decode(data);
+        }
+        try {
+            return objectMapper.readValue(data, CartEvent.class);
+        } catch (IOException e) {
+            throw new SerializationException("CartEvent is neither binary nor JSON", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.sellaway.cartservice.event;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer writing the compact {@link CartEventCodec} format. Enable with
+ * {@code spring.kafka.producer.value-serializer: com.sellaway.cartservice.event.CartEventBinarySerializer}
+ * once consumers read with {@link CartEventBinaryDeserializer}.
+ */
+public class CartEventBinarySerializer implements Serializer<CartEvent> {
+
+    @Override
+    public byte[] serialize(String topic, CartEvent data) {
+        return data == null ? null : CartEventCodec.encode(data);
+    }
+}
@@ -0,0 +1,84 @@
+package com.sellaway.cartservice.event;
+
+import com.sellaway.common.codec.BinaryReader;
+import com.sellaway.common.codec.EventTypes;
+import com.sellaway.common.codec.VarInts;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Compact, schema-versioned binary encoding of {@link CartEvent}.
+ *
+ * <pre>
+ * byte    MAGIC (0xC5, never the first byte of a JSON document)
+ * byte    schema version (1)
+ * varint  event type code, 0 = type name follows as varint length + UTF-8 bytes
+ * byte    presence flags: bit 0 cartId, bit 1 productId
+ * varint  cartId    (zigzag, only if present)
+ * varint  productId (zigzag, only if present)
+ * </pre>
+ *
+ * A typical event is under 10 bytes against ~60 for the JSON form plus its type header. Codes in
+ * {@link #TYPES} are part of the wire format: only ever append to that list.
+ */
+final class CartEventCodec {
+
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte VERSION_1 = 1;
+
+    private static final EventTypes TYPES = new EventTypes(
+            "CartItemAdded",
+            "CartItemUpdated",
+            "CartItemRemoved",
+            "CartCleared",
+            "CartItemsBatchUpdated");
+
+    private static final int HAS_CART_ID = 1;
+    private static final int HAS_PRODUCT_ID = 1 << 1;
+
+    private CartEventCodec() {
+    }
+
+    static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    static byte[] encode(CartEvent event) {
+        int flags = (event.getCartId() != null ? HAS_CART_ID : 0) | (event.getProductId() != null ? HAS_PRODUCT_ID : 0);
+        int size = 2 + TYPES.size(event.getEventType()) + 1;
+        if ((flags & HAS_CART_ID) != 0) {
+            size += VarInts.size(VarInts.zigZag(event.getCartId()));
+        }
+        if ((flags & HAS_PRODUCT_ID) != 0) {
+            size += VarInts.size(VarInts.zigZag(event.getProductId()));
+        }
+
+        byte[] out = new byte[size];
+        out[0] = MAGIC;
+        out[1] = VERSION_1;
+        int pos = TYPES.write(out, 2, event.getEventType());
+        out[pos++] = (byte) flags;
+        if ((flags & HAS_CART_ID) != 0) {
+            pos = VarInts.write(out, pos, VarInts.zigZag(event.getCartId()));
+        }
+        if ((flags & HAS_PRODUCT_ID) != 0) {
+            VarInts.write(out, pos, VarInts.zigZag(event.getProductId()));
+        }
+        return out;
+    }
+
+    static CartEvent decode(byte[] data) {
+        BinaryReader in = new BinaryReader(data, "CartEvent");
+        if (in.readByte() != MAGIC) {
+            throw new SerializationException("Not a binary CartEvent");
+        }
+        byte version = in.readByte();
+        if (version != VERSION_1) {
+            throw new SerializationException("Unsupported CartEvent schema version " + version);
+        }
+        String eventType = TYPES.read(in);
+        int flags = in.readByte();
+        Long cartId = (flags & HAS_CART_ID) != 0 ? VarInts.unZigZag(in.readVarLong()) : null;
+        Long productId = (flags & HAS_PRODUCT_ID) != 0 ? VarInts.unZigZag(in.readVarLong()) : null;
+        return new CartEvent(eventType, cartId, productId);
+    }
+}
@@ -0,0 +1,33 @@
+package com.sellaway.cartservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.model.CartOutboxEvent;
+import com.sellaway.cartservice.repository.CartOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records cart events in the outbox table instead of sending them. Joins the caller's transaction,
+ * so an event is stored if and only if the cart change that produced it commits.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class CartEventOutbox {
+
+    private final CartOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(CartEvent event) {
+        try {
+            outboxRepository.save(new CartOutboxEvent(event.getCartId(), event.getEventType(), objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event, e);
+        }
+    }
+}
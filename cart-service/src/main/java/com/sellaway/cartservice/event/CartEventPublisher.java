@@ -0,0 +1,89 @@
+package com.sellaway.cartservice.event;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes cart events to {@value #CART_TOPIC}, keyed by cartId so every event of a cart lands on
+ * the same partition in order. Batching, compression and idempotence are producer settings
+ * (spring.kafka.producer in application.yml); this class records send latency and failures.
+ *
+ * <p>There are no re-sends here: the idempotent producer retries internally until delivery.timeout.ms
+ * without duplicating or reordering, and a send that still fails is retried by {@link CartOutboxRelay}
+ * from its outbox row. A re-send of our own would race that retry and reorder the cart's events.
+ */
+@Component
+@Profile("!reactive")
+public class CartEventPublisher {
+
+    public static final String CART_TOPIC = "cart-events";
+
+    private static final Logger log = LoggerFactory.getLogger(CartEventPublisher.class);
+
+    private final KafkaTemplate<String, CartEvent> kafkaTemplate;
+
+    private final Timer sendSuccess;
+    private final Timer sendFailure;
+
+    public CartEventPublisher(KafkaTemplate<String, CartEvent> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.sendSuccess = Timer.builder("cart.events.send")
+                .description("Time from send to broker acknowledgement for cart events")
+                .tag("result", "success")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.sendFailure = Timer.builder("cart.events.send")
+                .description("Time from send to broker acknowledgement for cart events")
+                .tag("result", "failure")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the event without blocking the caller. The returned future completes once the broker
+     * acknowledged the record, or exceptionally once the producer gave up on it.
+     */
+    public CompletableFuture<SendResult<String, CartEvent>> publish(CartEvent event) {
+        String key = key(event);
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, CartEvent>> sent;
+        try {
+            sent = kafkaTemplate.send(CART_TOPIC, key, event);
+        } catch (RuntimeException e) {
+            // e.g. buffer full / metadata timeout thrown synchronously by the producer
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent.whenComplete((sendResult, error) -> {
+            long elapsed = System.nanoTime() - start;
+            if (error == null) {
+                sendSuccess.record(elapsed, TimeUnit.NANOSECONDS);
+            } else {
+                sendFailure.record(elapsed, TimeUnit.NANOSECONDS);
+                log.warn("Send of {} for cart {} failed: {}", event.getEventType(), key, unwrap(error).getMessage());
+            }
+        });
+    }
+
+    private static String key(CartEvent event) {
+        return event.getCartId() != null ? event.getCartId().toString() : null;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof org.springframework.kafka.KafkaException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
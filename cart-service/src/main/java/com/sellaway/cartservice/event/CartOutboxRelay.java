@@ -0,0 +1,194 @@
+package com.sellaway.cartservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.model.CartOutboxEvent;
+import com.sellaway.cartservice.repository.CartOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the cart event outbox to Kafka in the background, at least once and in order per cart. No
+ * transaction stays open while events are in flight:
+ * <ol>
+ * <li>a short transaction claims carts ({@code FOR UPDATE SKIP LOCKED} on each cart's oldest row, so any
+ * number of instances can relay in parallel) and stamps their pending rows with {@code claimed_until};</li>
+ * <li>the events are sent and their acks awaited, up to {@code send-timeout-ms};</li>
+ * <li>a second short transaction deletes, per cart, the acknowledged events up to the first one that
+ * wasn't, and releases the cart's remaining rows once none of them is still in flight.</li>
+ * </ol>
+ * Rows whose send is still pending keep their claim until {@code claim-ttl-ms} has passed, which is longer
+ * than the producer's delivery.timeout.ms, so a late ack can't follow another relay's re-send. The same
+ * expiry frees the carts of a relay that died mid-batch.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "cart.events.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class CartOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(CartOutboxRelay.class);
+
+    private final CartOutboxRepository outboxRepository;
+    private final CartEventPublisher cartEventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxCartsPerBatch;
+    private final long sendTimeoutMs;
+    private final long claimTtlMs;
+
+    public CartOutboxRelay(
+            CartOutboxRepository outboxRepository,
+            CartEventPublisher cartEventPublisher,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${cart.events.outbox.relay.batch-size:500}") int batchSize,
+            @Value("${cart.events.outbox.relay.max-carts-per-batch:100}") int maxCartsPerBatch,
+            @Value("${cart.events.outbox.relay.send-timeout-ms:30000}") long sendTimeoutMs,
+            @Value("${cart.events.outbox.relay.claim-ttl-ms:150000}") long claimTtlMs
+    ) {
+        if (claimTtlMs <= sendTimeoutMs) {
+            throw new IllegalArgumentException("cart.events.outbox.relay.claim-ttl-ms must be longer than send-timeout-ms");
+        }
+        this.outboxRepository = outboxRepository;
+        this.cartEventPublisher = cartEventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxCartsPerBatch = maxCartsPerBatch;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.claimTtlMs = claimTtlMs;
+    }
+
+    @Scheduled(fixedDelayString = "${cart.events.outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed > 0);
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed, batch will be retried: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Relays one batch and returns the number of events sent (0 when there is nothing to claim). Throws
+     * if any event of the batch went unacknowledged, after settling the ones that were.
+     */
+    int relayBatch() {
+        List<CartOutboxEvent> claimed = transactionTemplate.execute(status -> claim());
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        List<CartEvent> events = claimed.stream().map(this::toEvent).toList(); // all readable before any is sent
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+        for (CartEvent event : events) {
+            sends.add(cartEventPublisher.publish(event));
+        }
+        awaitAcks(sends);
+
+        Set<Long> acked = new HashSet<>();
+        Set<Long> failed = new HashSet<>();
+        for (int i = 0; i < claimed.size(); i++) {
+            CompletableFuture<?> send = sends.get(i);
+            if (send.isDone()) {
+                (send.isCompletedExceptionally() ? failed : acked).add(claimed.get(i).getId());
+            }
+        }
+        Settlement settlement = settle(claimed, acked, failed);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!settlement.sent().isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(settlement.sent());
+            }
+            if (!settlement.released().isEmpty()) {
+                outboxRepository.releaseClaims(settlement.released());
+            }
+        });
+        if (settlement.sent().size() < claimed.size()) {
+            throw new IllegalStateException((claimed.size() - settlement.sent().size()) + " of " + claimed.size()
+                    + " cart events not acknowledged, " + failed.size() + " failed");
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Splits a sent batch (in id order) into rows to delete and rows to release; rows in neither stay
+     * claimed. A cart's events are deleted up to the first one that wasn't acknowledged. From there the
+     * cart is sent again on a later poll, so its remaining rows are released, but only once none of them
+     * is in flight any more. Shared with the reactive relay.
+     */
+    public static Settlement settle(List<CartOutboxEvent> rows, Set<Long> acked, Set<Long> failed) {
+        Map<Long, List<CartOutboxEvent>> byCart = new LinkedHashMap<>();
+        for (CartOutboxEvent row : rows) {
+            byCart.computeIfAbsent(row.getCartId(), cartId -> new ArrayList<>()).add(row);
+        }
+        List<Long> sent = new ArrayList<>(rows.size());
+        List<Long> released = new ArrayList<>();
+        for (List<CartOutboxEvent> cartRows : byCart.values()) {
+            int acknowledged = 0;
+            while (acknowledged < cartRows.size() && acked.contains(cartRows.get(acknowledged).getId())) {
+                sent.add(cartRows.get(acknowledged++).getId());
+            }
+            List<CartOutboxEvent> rest = cartRows.subList(acknowledged, cartRows.size());
+            if (rest.stream().allMatch(row -> acked.contains(row.getId()) || failed.contains(row.getId()))) {
+                rest.forEach(row -> released.add(row.getId()));
+            }
+        }
+        return new Settlement(sent, released);
+    }
+
+    private List<CartOutboxEvent> claim() {
+        Instant now = Instant.now();
+        List<Long> cartIds = outboxRepository.claimCarts(maxCartsPerBatch, now);
+        if (cartIds.isEmpty()) {
+            return List.of();
+        }
+        List<CartOutboxEvent> pending = outboxRepository.findByCartIdInOrderByIdAsc(cartIds, PageRequest.ofSize(batchSize));
+        outboxRepository.markClaimed(pending.stream().map(CartOutboxEvent::getId).toList(), now.plusMillis(claimTtlMs));
+        return pending;
+    }
+
+    // Waits for every send to settle or the timeout; the outcome is then read send by send
+    private void awaitAcks(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Cart event batch not fully acknowledged: {}", e.getMessage());
+        }
+    }
+
+    private CartEvent toEvent(CartOutboxEvent row) {
+        try {
+            return objectMapper.readValue(row.getPayload(), CartEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox row " + row.getId(), e);
+        }
+    }
+
+    /** Ids of the rows to delete (acknowledged) and to release (to be sent again). */
+    public record Settlement(List<Long> sent, List<Long> released) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.sellaway.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Mirror of user-service's TokenRevocationEvent: one token (jti) or all of a user's tokens issued before issuedBefore
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRevocationEvent {
+    private String jti;
+    private String userId;
+    private long issuedBefore;
+    private long expiresAt;
+}
@@ -0,0 +1,67 @@
+package com.sellaway.cartservice.event;
+
+import com.sellaway.cartservice.config.TokenRevocationList;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Feeds {@link TokenRevocationList} from {@value #REVOCATION_TOPIC}. Every instance needs every
+ * revocation, so each consumes in its own group and reads the topic from the start: on startup it
+ * replays what is still retained (keep retention at least the token lifetime) and rebuilds the list.
+ */
+@Configuration
+@ConditionalOnProperty(name = "jwt.revocation.enabled", havingValue = "true", matchIfMissing = true)
+public class TokenRevocationListener {
+
+    public static final String REVOCATION_TOPIC = "token-revocations";
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationListener.class);
+
+    private final TokenRevocationList revocationList;
+
+    public TokenRevocationListener(TokenRevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    // Own factory: revocations are JSON whatever the rest of the service (de)serializes, and offsets are never committed.
+    // Static: an instance method would make the factory wait on this listener bean, which needs the factory
+    @Bean
+    public static ConcurrentKafkaListenerContainerFactory<String, TokenRevocationEvent> tokenRevocationListenerFactory(
+            KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        props.put("auto.offset.reset", "earliest");
+        props.put("enable.auto.commit", false);
+        ConcurrentKafkaListenerContainerFactory<String, TokenRevocationEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new JsonDeserializer<>(TokenRevocationEvent.class, false)));
+        return factory;
+    }
+
+    @KafkaListener(topics = REVOCATION_TOPIC, groupId = "cart-service-revocations-${random.uuid}",
+            containerFactory = "tokenRevocationListenerFactory")
+    public void onRevocation(TokenRevocationEvent event) {
+        if (event.getExpiresAt() <= System.currentTimeMillis()) {
+            return; // replayed from before the tokens it covers expired
+        }
+        if (event.getJti() != null) {
+            revocationList.revokeToken(event.getJti(), event.getExpiresAt());
+        } else if (event.getUserId() != null) {
+            revocationList.revokeUser(event.getUserId(), event.getIssuedBefore(), event.getExpiresAt());
+        } else {
+            log.warn("Ignoring revocation without jti or userId: {}", event);
+        }
+    }
+}
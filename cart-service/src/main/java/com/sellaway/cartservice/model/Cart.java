@@ -1,29 +1,191 @@
 package com.sellaway.cartservice.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.PartitionKey;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
+@Table(indexes = @Index(name = "idx_cart_user_id", columnList = "userId", unique = true)) // one cart per user
 @Data
 public class Cart {
+    // Pooled sequence (50 ids per nextval) rather than IDENTITY, which makes Hibernate run every insert
+    // on its own to read the key back and so disables JDBC batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_seq")
+    @SequenceGenerator(name = "cart_seq", sequenceName = "cart_seq", allocationSize = 50)
     private Long id;
 
+    // The table is hash-partitioned by user_id (V2 migration): Hibernate adds it to the WHERE of the
+    // cart's UPDATE/DELETE so those touch one partition instead of probing all of them by id. Every change
+    // goes through markModified: the version-only UPDATE Hibernate issues for a change to the items alone
+    // leaves this key unbound (Hibernate 6.6) and fails
+    @PartitionKey
+    @Column(nullable = false)
     private String userId;
 
+    // Optimistic lock: a save from a stale read fails instead of overwriting a concurrent change.
+    // Also the basis of the cart's ETag (CartVersionCache). Default for rows created before the column.
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Set by every CartService mutation, which also makes the cart row dirty so the version moves
+    // when only an item changed
+    private Instant lastModified;
+
+    // Not nullable or updatable: cart_id is written by the item's insert, without the follow-up UPDATE per item
+    // Hibernate otherwise sends for a unidirectional one-to-many (an item never moves to another cart)
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    @JoinColumn(name = "cart_id")
+    @JoinColumn(name = "cart_id", nullable = false, updatable = false)
     private List<CartItem> items = new ArrayList<>();
 
-    public void addItem(CartItem item) {
+    // Lookup indexes over items, built lazily and rebuilt whenever Hibernate (or a setter) swaps the list
+    // or it is changed behind our back. Items without an id yet (not flushed) are only indexed by product.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Map<Long, CartItem> itemsById;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Map<Long, CartItem> itemsByProductId;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<CartItem> indexedItems;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int unidentifiedItems;
+
+    // Adds the line, or increments the quantity of the existing line for the same product. Returns the cart's line.
+    public CartItem addItem(CartItem item) {
+        ensureIndexed();
+        CartItem existing = itemsByProductId.get(item.getProductId());
+        if (existing != null) {
+            existing.setQuantity(existing.getQuantity() + item.getQuantity());
+            return existing;
+        }
+        item.setCartId(id); // the item's partition key, see CartItem.cartId
         items.add(item);
+        index(item);
+        return item;
+    }
+
+    public CartItem findItem(Long itemId) {
+        if (itemId == null) {
+            return null;
+        }
+        ensureIndexed();
+        CartItem item = itemsById.get(itemId);
+        if (item == null && unidentifiedItems > 0) {
+            // ids may have been assigned by a save since the item was indexed
+            rebuildIndex();
+            item = itemsById.get(itemId);
+        }
+        return item;
+    }
+
+    public CartItem findItemByProductId(Long productId) {
+        ensureIndexed();
+        return itemsByProductId.get(productId);
     }
 
     public void removeItem(CartItem item) {
-        items.remove(item);
+        ensureIndexed();
+        // Identity match: the old List.remove compared every field through @Data equals
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (items.get(i) == item) {
+                items.remove(i);
+                unindex(item);
+                return;
+            }
+        }
+    }
+
+    public void clearItems() {
+        items.clear();
+        rebuildIndex();
+    }
+
+    // Microseconds, what Postgres keeps, so the value (and the ETag) survives a round trip
+    public void markModified() {
+        lastModified = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    // Detached deep copy, used by the write-behind store to keep immutable snapshots
+    public Cart copy() {
+        Cart copy = header();
+        for (CartItem item : items) {
+            CartItem itemCopy = item.copy();
+            itemCopy.setCartId(id); // also for lines replayed from the journal, which leaves it out
+            copy.items.add(itemCopy); // verbatim, without addItem's merging
+        }
+        return copy;
+    }
+
+    // Detached copy of the cart row only (items left empty)
+    public Cart header() {
+        Cart copy = new Cart();
+        copy.setId(id);
+        copy.setUserId(userId);
+        copy.setVersion(version);
+        copy.setLastModified(lastModified);
+        return copy;
+    }
+
+    private void ensureIndexed() {
+        if (indexedItems != items || itemsById.size() + unidentifiedItems != items.size()) {
+            rebuildIndex();
+        }
+    }
+
+    private void rebuildIndex() {
+        itemsById = new HashMap<>();
+        itemsByProductId = new HashMap<>();
+        unidentifiedItems = 0;
+        indexedItems = items;
+        for (CartItem item : items) {
+            index(item);
+        }
+    }
+
+    private void index(CartItem item) {
+        if (item.getId() != null) {
+            itemsById.put(item.getId(), item);
+        } else {
+            unidentifiedItems++;
+        }
+        itemsByProductId.putIfAbsent(item.getProductId(), item);
+    }
+
+    private void unindex(CartItem item) {
+        if (item.getId() == null || itemsById.remove(item.getId()) == null) {
+            unidentifiedItems--;
+        }
+        itemsByProductId.remove(item.getProductId(), item);
     }
 }
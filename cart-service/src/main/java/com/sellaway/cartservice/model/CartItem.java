@@ -1,18 +1,44 @@
 package com.sellaway.cartservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.PartitionKey;
 
 @Entity
 @Data
 public class CartItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_item_seq")
+    @SequenceGenerator(name = "cart_item_seq", sequenceName = "cart_item_seq", allocationSize = 50)
     private Long id;
 
+    // cart_item is hash-partitioned by cart_id (V2 migration), with no foreign key to cart: Postgres can't
+    // reference cart's (id, user_id) key by id alone. As the partition key Hibernate adds it to the WHERE
+    // of the item's UPDATE/DELETE, which would otherwise probe every partition by id. Written by the insert
+    // through Cart.items' join column; Cart.addItem and Cart.copy set it on the lines they hand out. Hibernate
+    // binds the value it saw at persist, so lines are only added to saved carts (CartService saves a new cart first).
+    @PartitionKey
+    @Column(name = "cart_id", insertable = false, updatable = false)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude // the owning cart's id, not part of the line
+    private Long cartId;
+
     private Long productId;
     private int quantity;
+
+    public CartItem copy() {
+        CartItem copy = new CartItem();
+        copy.setId(id);
+        copy.setCartId(cartId);
+        copy.setProductId(productId);
+        copy.setQuantity(quantity);
+        return copy;
+    }
 }
@@ -0,0 +1,47 @@
+package com.sellaway.cartservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A cart event waiting to be relayed to Kafka. Written in the same transaction as the cart change
+ * that produced it and deleted by {@link com.sellaway.cartservice.event.CartOutboxRelay} once the
+ * broker acknowledged it.
+ */
+@Entity
+@Table(name = "cart_event_outbox", indexes = @Index(name = "idx_cart_event_outbox_cart_id_id", columnList = "cartId, id"))
+@Data
+@NoArgsConstructor
+public class CartOutboxEvent {
+    @Id
+    // Stays IDENTITY: pooled sequence ranges are handed to instances out of order, which would break the
+    // per-cart relay order. The cost: IDENTITY turns off JDBC insert batching, so a write-behind flush, which
+    // records every buffered event of its carts in one transaction, sends one INSERT per event. That is on the
+    // flush thread, not on a request, and is accepted to keep the order
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Insertion order, relayed in this order per cart
+
+    @Column(nullable = false)
+    private Long cartId; // Kafka key
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload; // CartEvent as JSON
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant claimedUntil; // Set while a relay is sending the event; null when pending
+
+    public CartOutboxEvent(Long cartId, String eventType, String payload) {
+        this.cartId = cartId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+}
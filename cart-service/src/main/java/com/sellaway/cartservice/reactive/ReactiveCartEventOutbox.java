@@ -0,0 +1,43 @@
+package com.sellaway.cartservice.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.event.CartEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/** Reactive counterpart of {@link com.sellaway.cartservice.event.CartEventOutbox}: same table, same transaction rule. */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveCartEventOutbox {
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Mono<Void> record(CartEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            return Mono.error(new IllegalStateException("Cannot serialize " + event, e));
+        }
+        return databaseClient.sql("""
+                        INSERT INTO cart_event_outbox (cart_id, event_type, payload, created_at)
+                        VALUES (:cartId, :eventType, :payload, :createdAt)
+                        """)
+                .bind("cartId", event.getCartId())
+                .bind("eventType", event.getEventType())
+                .bind("payload", payload)
+                .bind("createdAt", Instant.now())
+                .then();
+    }
+}
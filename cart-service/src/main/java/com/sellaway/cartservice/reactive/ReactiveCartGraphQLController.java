@@ -0,0 +1,96 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.client.ProductCatalogClient;
+import com.sellaway.cartservice.dto.CartItemOperation;
+import com.sellaway.cartservice.dto.ProductInfo;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.GraphQlExceptionHandler;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Same schema as CartGraphQLController, served over WebFlux
+@Controller
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveCartGraphQLController {
+
+    private final ReactiveCartService cartService;
+    private final ProductCatalogClient productCatalogClient;
+
+    private String getCustomerId(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new IllegalStateException("User is not authenticated");
+        }
+        return authentication.getName();
+    }
+
+    // Another request changed the cart first; the REST endpoints answer 409 for the same case
+    @GraphQlExceptionHandler
+    public GraphQLError concurrentModification(OptimisticLockingFailureException e) {
+        return GraphQLError.newError()
+                .errorType(ErrorClassification.errorClassification("CONFLICT"))
+                .message("Cart was modified concurrently, retry")
+                .build();
+    }
+
+    @QueryMapping
+    public Mono<Cart> cart(Authentication authentication, DataFetchingFieldSelectionSet selectionSet) {
+        String userId = getCustomerId(authentication);
+        // Only read the items when the client asked for them
+        return selectionSet.contains("items") ? cartService.getCart(userId) : cartService.getCartWithoutItems(userId);
+    }
+
+    // One pricing-api call per request, as in CartGraphQLController. The client is blocking, so it
+    // runs on boundedElastic to keep it off the event loop.
+    @BatchMapping(typeName = "CartItem")
+    public Mono<Map<CartItem, ProductInfo>> product(List<CartItem> items) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        return Mono.fromCallable(() -> productCatalogClient.getProducts(productIds))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(products -> {
+                    Map<CartItem, ProductInfo> byItem = new HashMap<>();
+                    for (CartItem item : items) {
+                        ProductInfo product = products.get(item.getProductId());
+                        if (product != null) {
+                            byItem.put(item, product);
+                        }
+                    }
+                    return byItem;
+                });
+    }
+
+    @MutationMapping
+    public Mono<Cart> addCartItem(@Argument Long productId, @Argument int quantity, Authentication authentication) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return cartService.addItemToCart(getCustomerId(authentication), item);
+    }
+
+    @MutationMapping
+    public Mono<Cart> applyCartOperations(@Argument List<CartItemOperation> operations, Authentication authentication) {
+        return cartService.applyCartOperations(getCustomerId(authentication), operations);
+    }
+}
@@ -0,0 +1,81 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.service.CartMutationExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Reactive counterpart of {@link CartMutationExecutor}, with the same guarantees: one mutation at a
+ * time per user on this instance ({@code cart.mutation.lock-stripes} stripes), each attempt in its own
+ * transaction, and version conflicts with other instances re-applied to a fresh read of the cart up
+ * to {@code cart.mutation.max-attempts} times if the mutation is mergeable (always for a concurrent
+ * cart creation). A stripe is a chain of futures rather than a lock: a mutation subscribes once the
+ * one queued before it has finished, so waiting holds neither a thread nor a connection.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveCartMutationExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCartMutationExecutor.class);
+
+    private final TransactionalOperator transactionalOperator;
+    private final AtomicReference<CompletableFuture<Void>>[] stripes;
+    private final int mask;
+    private final int maxAttempts;
+
+    @SuppressWarnings("unchecked")
+    public ReactiveCartMutationExecutor(
+            ReactiveTransactionManager transactionManager,
+            @Value("${cart.mutation.lock-stripes:1024}") int lockStripes,
+            @Value("${cart.mutation.max-attempts:3}") int maxAttempts
+    ) {
+        if (lockStripes < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("cart.mutation.lock-stripes and max-attempts must be at least 1");
+        }
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        int size = lockStripes == 1 ? 1 : Integer.highestOneBit(lockStripes - 1) << 1; // power of two, for masking
+        this.stripes = new AtomicReference[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new AtomicReference<>(CompletableFuture.completedFuture(null));
+        }
+        this.mask = size - 1;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /** Subscribes to {@code mutation} after the user's previous mutations, in a transaction per attempt; see the class comment for retries. */
+    public <T> Mono<T> execute(String userId, boolean mergeable, Supplier<Mono<T>> mutation) {
+        Mono<T> attempts = transactionalOperator.transactional(Mono.defer(mutation))
+                .retryWhen(Retry.max(maxAttempts - 1)
+                        .filter(e -> e instanceof DataIntegrityViolationException
+                                || mergeable && e instanceof ConcurrencyFailureException)
+                        .doBeforeRetry(signal -> log.debug("Cart of {} changed concurrently, re-applying (attempt {}/{})",
+                                userId, signal.totalRetries() + 1, maxAttempts))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        return Mono.defer(() -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            CompletableFuture<Void> previous = stripeFor(userId).getAndSet(done);
+            // Cancelled while still queued, the next mutation must wait for the previous one all the same
+            return Mono.fromFuture(previous, true)
+                    .then(attempts)
+                    .doFinally(signal -> previous.whenComplete((result, e) -> done.complete(null)));
+        });
+    }
+
+    AtomicReference<CompletableFuture<Void>> stripeFor(String userId) {
+        int h = userId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
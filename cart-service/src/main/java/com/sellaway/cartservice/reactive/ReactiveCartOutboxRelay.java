@@ -0,0 +1,182 @@
+package com.sellaway.cartservice.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.event.CartEventPublisher;
+import com.sellaway.cartservice.event.CartOutboxRelay;
+import com.sellaway.cartservice.model.CartOutboxEvent;
+import com.sellaway.cartservice.repository.CartOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reactive counterpart of {@link CartOutboxRelay}, with the same protocol: claim carts and stamp their
+ * rows in one short transaction, send the events keyed by cartId outside it, then delete and release
+ * rows in a second one as {@link CartOutboxRelay#settle} decides.
+ */
+@Component
+@Profile("reactive")
+@ConditionalOnProperty(name = "cart.events.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveCartOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCartOutboxRelay.class);
+
+    private static final String PENDING_SQL = """
+            SELECT id, cart_id, event_type, payload FROM cart_event_outbox
+            WHERE cart_id IN (:cartIds)
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final KafkaSender<String, CartEvent> kafkaSender;
+    private final ObjectMapper objectMapper;
+    private final TransactionalOperator transactionalOperator;
+    private final int batchSize;
+    private final int maxCartsPerBatch;
+    private final Duration sendTimeout;
+    private final Duration claimTtl;
+    private final Duration pollInterval;
+
+    private Disposable subscription;
+
+    public ReactiveCartOutboxRelay(
+            DatabaseClient databaseClient,
+            KafkaSender<String, CartEvent> kafkaSender,
+            ObjectMapper objectMapper,
+            ReactiveTransactionManager transactionManager,
+            @Value("${cart.events.outbox.relay.batch-size:500}") int batchSize,
+            @Value("${cart.events.outbox.relay.max-carts-per-batch:100}") int maxCartsPerBatch,
+            @Value("${cart.events.outbox.relay.send-timeout-ms:30000}") long sendTimeoutMs,
+            @Value("${cart.events.outbox.relay.claim-ttl-ms:150000}") long claimTtlMs,
+            @Value("${cart.events.outbox.relay.poll-interval-ms:200}") long pollIntervalMs
+    ) {
+        if (claimTtlMs <= sendTimeoutMs) {
+            throw new IllegalArgumentException("cart.events.outbox.relay.claim-ttl-ms must be longer than send-timeout-ms");
+        }
+        this.databaseClient = databaseClient;
+        this.kafkaSender = kafkaSender;
+        this.objectMapper = objectMapper;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.batchSize = batchSize;
+        this.maxCartsPerBatch = maxCartsPerBatch;
+        this.sendTimeout = Duration.ofMillis(sendTimeoutMs);
+        this.claimTtl = Duration.ofMillis(claimTtlMs);
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+    }
+
+    @PostConstruct
+    void start() {
+        // A tick that arrives while the outbox is still being drained is dropped, like a fixed delay
+        subscription = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> relay(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    // Relays batches until the outbox is empty
+    private Mono<Void> relay() {
+        return Mono.defer(this::relayBatch)
+                .repeat()
+                .takeWhile(relayed -> relayed > 0)
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Outbox relay failed, batch will be retried: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /** Relays one batch and emits the number of events sent (0 when there is nothing to claim). */
+    Mono<Integer> relayBatch() {
+        return transactionalOperator.transactional(claim())
+                .flatMap(claimed -> claimed.isEmpty() ? Mono.just(0) : sendAndSettle(claimed));
+    }
+
+    private Mono<List<CartOutboxEvent>> claim() {
+        Instant now = Instant.now();
+        return databaseClient.sql(CartOutboxRepository.CLAIM_CARTS_SQL)
+                .bind("limit", maxCartsPerBatch)
+                .bind("now", now)
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .flatMap(cartIds -> cartIds.isEmpty() ? Mono.just(List.<CartOutboxEvent>of()) : databaseClient.sql(PENDING_SQL)
+                        .bind("cartIds", cartIds)
+                        .bind("limit", batchSize)
+                        .map(row -> {
+                            CartOutboxEvent event = new CartOutboxEvent(row.get("cart_id", Long.class), row.get("event_type", String.class), row.get("payload", String.class));
+                            event.setId(row.get("id", Long.class));
+                            return event;
+                        })
+                        .all()
+                        .collectList()
+                        .flatMap(pending -> databaseClient.sql("UPDATE cart_event_outbox SET claimed_until = :until WHERE id IN (:ids)")
+                                .bind("until", now.plus(claimTtl))
+                                .bind("ids", pending.stream().map(CartOutboxEvent::getId).toList())
+                                .then()
+                                .thenReturn(pending)));
+    }
+
+    private Mono<Integer> sendAndSettle(List<CartOutboxEvent> claimed) {
+        Set<Long> acked = ConcurrentHashMap.newKeySet();
+        Set<Long> failed = ConcurrentHashMap.newKeySet();
+        return kafkaSender.send(Flux.fromIterable(claimed).map(this::toRecord))
+                .doOnNext(result -> (result.exception() == null ? acked : failed).add(result.correlationMetadata()))
+                .take(sendTimeout)
+                .onErrorResume(e -> {
+                    log.debug("Cart event batch not fully acknowledged: {}", e.getMessage());
+                    return Flux.empty();
+                })
+                .then(Mono.defer(() -> {
+                    CartOutboxRelay.Settlement settlement = CartOutboxRelay.settle(claimed, acked, failed);
+                    Mono<Void> settle = update("DELETE FROM cart_event_outbox WHERE id IN (:ids)", settlement.sent())
+                            .then(update("UPDATE cart_event_outbox SET claimed_until = NULL WHERE id IN (:ids)", settlement.released()));
+                    int unacknowledged = claimed.size() - settlement.sent().size();
+                    return transactionalOperator.transactional(settle)
+                            .then(unacknowledged == 0 ? Mono.just(claimed.size()) : Mono.error(new IllegalStateException(
+                                    unacknowledged + " of " + claimed.size() + " cart events not acknowledged, " + failed.size() + " failed")));
+                }));
+    }
+
+    private Mono<Void> update(String sql, List<Long> ids) {
+        return ids.isEmpty() ? Mono.empty() : databaseClient.sql(sql).bind("ids", ids).then();
+    }
+
+    private SenderRecord<String, CartEvent, Long> toRecord(CartOutboxEvent row) {
+        try {
+            CartEvent event = objectMapper.readValue(row.getPayload(), CartEvent.class);
+            return SenderRecord.create(new ProducerRecord<>(CartEventPublisher.CART_TOPIC, String.valueOf(row.getCartId()), event), row.getId());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox row " + row.getId(), e);
+        }
+    }
+}
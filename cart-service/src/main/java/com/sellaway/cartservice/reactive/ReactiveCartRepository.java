@@ -0,0 +1,169 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * R2DBC access to the cart tables created for the JPA entities (cart, cart_item). Spring Data R2DBC
+ * has no relationship mapping, so carts are read with one LEFT JOIN and written statement by
+ * statement through DatabaseClient. Callers provide the transaction. Ids come from the same
+ * sequences as the JPA entities' (one nextval per row; Hibernate's pooled-lo ranges start at a
+ * nextval too, so the two never hand out the same id).
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveCartRepository {
+
+    private static final String FIND_BY_USER_ID = """
+            SELECT c.id AS cart_id, c.user_id, c.version, c.last_modified, i.id AS item_id, i.product_id, i.quantity
+            FROM cart c LEFT JOIN cart_item i ON i.cart_id = c.id
+            WHERE c.user_id = :userId
+            ORDER BY i.id
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Cart> findByUserId(String userId) {
+        return databaseClient.sql(FIND_BY_USER_ID)
+                .bind("userId", userId)
+                .map(CartRow::of)
+                .all()
+                .collectList()
+                .flatMap(rows -> rows.isEmpty() ? Mono.empty() : Mono.just(toCart(rows)));
+    }
+
+    // Cart row only; items are left empty
+    public Mono<Cart> findWithoutItems(String userId) {
+        return databaseClient.sql("SELECT id, user_id, version, last_modified FROM cart WHERE user_id = :userId")
+                .bind("userId", userId)
+                .map(row -> {
+                    Cart cart = new Cart();
+                    cart.setId(row.get("id", Long.class));
+                    cart.setUserId(row.get("user_id", String.class));
+                    cart.setVersion(row.get("version", Long.class));
+                    cart.setLastModified(row.get("last_modified", Instant.class));
+                    return cart;
+                })
+                .first();
+    }
+
+    /**
+     * Inserts the cart if new, or bumps its version if the stored one is still the version it was read
+     * at (OptimisticLockingFailureException otherwise, like the JPA @Version check). Then deletes the
+     * item rows no longer in it, updates the remaining ones and inserts new items. Generated ids and
+     * the new version are set on the passed cart, which is returned. lastModified must be set.
+     */
+    public Mono<Cart> save(Cart cart) {
+        Mono<Long> cartId = cart.getId() != null ? updateVersion(cart) : insert(cart);
+        return cartId.flatMap(id -> deleteRemovedItems(id, cart.getItems())
+                .thenMany(Flux.fromIterable(cart.getItems()).concatMap(item -> saveItem(id, item)))
+                .then(Mono.just(cart)));
+    }
+
+    private Mono<Long> insert(Cart cart) {
+        return databaseClient.sql("INSERT INTO cart (id, user_id, version, last_modified) VALUES (nextval('cart_seq'), :userId, 0, :lastModified)")
+                .bind("userId", cart.getUserId())
+                .bind("lastModified", cart.getLastModified())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .doOnNext(id -> {
+                    cart.setId(id);
+                    cart.setVersion(0L);
+                });
+    }
+
+    private Mono<Long> updateVersion(Cart cart) {
+        long version = cart.getVersion() == null ? 0 : cart.getVersion();
+        return databaseClient.sql("UPDATE cart SET version = version + 1, last_modified = :lastModified"
+                        + " WHERE id = :id AND user_id = :userId AND version = :version") // user_id: the partition key
+                .bind("lastModified", cart.getLastModified())
+                .bind("id", cart.getId())
+                .bind("userId", cart.getUserId())
+                .bind("version", version)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> {
+                    if (updated == 0) {
+                        return Mono.error(new OptimisticLockingFailureException(
+                                "Cart " + cart.getId() + " was modified concurrently (expected version " + version + ")"));
+                    }
+                    cart.setVersion(version + 1);
+                    return Mono.just(cart.getId());
+                });
+    }
+
+    private Mono<Long> deleteRemovedItems(Long cartId, List<CartItem> items) {
+        List<Long> keptIds = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            if (item.getId() != null) {
+                keptIds.add(item.getId());
+            }
+        }
+        DatabaseClient.GenericExecuteSpec delete = keptIds.isEmpty()
+                ? databaseClient.sql("DELETE FROM cart_item WHERE cart_id = :cartId")
+                : databaseClient.sql("DELETE FROM cart_item WHERE cart_id = :cartId AND id NOT IN (:keptIds)")
+                        .bind("keptIds", keptIds);
+        return delete.bind("cartId", cartId).fetch().rowsUpdated();
+    }
+
+    private Mono<Void> saveItem(Long cartId, CartItem item) {
+        if (item.getId() != null) {
+            return databaseClient.sql("UPDATE cart_item SET product_id = :productId, quantity = :quantity WHERE id = :id AND cart_id = :cartId")
+                    .bind("productId", item.getProductId())
+                    .bind("quantity", item.getQuantity())
+                    .bind("id", item.getId())
+                    .bind("cartId", cartId) // the partition key
+                    .then();
+        }
+        return databaseClient.sql("INSERT INTO cart_item (id, cart_id, product_id, quantity) VALUES (nextval('cart_item_seq'), :cartId, :productId, :quantity)")
+                .bind("cartId", cartId)
+                .bind("productId", item.getProductId())
+                .bind("quantity", item.getQuantity())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .doOnNext(item::setId)
+                .then();
+    }
+
+    private static Cart toCart(List<CartRow> rows) {
+        Cart cart = new Cart();
+        cart.setId(rows.get(0).cartId());
+        cart.setUserId(rows.get(0).userId());
+        cart.setVersion(rows.get(0).version());
+        cart.setLastModified(rows.get(0).lastModified());
+        for (CartRow row : rows) {
+            if (row.itemId() != null) { // LEFT JOIN row of a cart without items
+                CartItem item = new CartItem();
+                item.setId(row.itemId());
+                item.setProductId(row.productId());
+                item.setQuantity(row.quantity());
+                cart.getItems().add(item); // verbatim, like Hibernate loading the bag
+            }
+        }
+        return cart;
+    }
+
+    private record CartRow(Long cartId, String userId, Long version, Instant lastModified,
+                           Long itemId, Long productId, Integer quantity) {
+        static CartRow of(Readable row) {
+            return new CartRow(row.get("cart_id", Long.class), row.get("user_id", String.class),
+                    row.get("version", Long.class), row.get("last_modified", Instant.class),
+                    row.get("item_id", Long.class), row.get("product_id", Long.class), row.get("quantity", Integer.class));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.dto.CartItemOperation;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import com.sellaway.cartservice.service.CartVersionCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Same endpoints and status codes as CartRestController
+@RestController
+@Profile("reactive")
+@RequestMapping("/carts")
+@RequiredArgsConstructor
+public class ReactiveCartRestController {
+
+    private final ReactiveCartService cartService;
+
+    private String getCustomerId(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new IllegalStateException("User is not authenticated");
+        }
+        return authentication.getName(); // set to customerId by ReactiveJwtAuthenticationFilter
+    }
+
+    // Conditional GET: a matching If-None-Match is answered 304 without serializing the cart
+    @GetMapping
+    public Mono<ResponseEntity<Cart>> getCart(Authentication authentication,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cartService.getCart(getCustomerId(authentication)).map(cart -> {
+            String eTag = CartVersionCache.eTag(cart);
+            if (ifNoneMatch != null && CartVersionCache.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<Cart>build();
+            }
+            return ResponseEntity.ok().eTag(eTag).body(cart);
+        });
+    }
+
+    @PostMapping("/items")
+    public Mono<ResponseEntity<Cart>> addItemToCart(Authentication authentication, @RequestBody CartItem item) {
+        return cartService.addItemToCart(getCustomerId(authentication), item)
+                .map(cart -> ResponseEntity.status(HttpStatus.CREATED).eTag(CartVersionCache.eTag(cart)).body(cart));
+    }
+
+    @PostMapping("/items:batch")
+    public Mono<ResponseEntity<Cart>> applyCartOperations(Authentication authentication, @RequestBody List<CartItemOperation> operations) {
+        return cartService.applyCartOperations(getCustomerId(authentication), operations)
+                .map(ReactiveCartRestController::withETag)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    @PutMapping("/items/{itemId}")
+    public Mono<ResponseEntity<Cart>> updateCartItem(Authentication authentication, @PathVariable Long itemId, @RequestParam int quantity) {
+        return cartService.updateCartItem(getCustomerId(authentication), itemId, quantity)
+                .map(ReactiveCartRestController::withETag)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/items/{itemId}")
+    public Mono<ResponseEntity<Cart>> removeItemFromCart(Authentication authentication, @PathVariable Long itemId) {
+        return cartService.removeItemFromCart(getCustomerId(authentication), itemId)
+                .map(ReactiveCartRestController::withETag)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping
+    public Mono<ResponseEntity<Void>> clearCart(Authentication authentication) {
+        return cartService.clearCart(getCustomerId(authentication))
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> concurrentModification() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    private static ResponseEntity<Cart> withETag(Cart cart) {
+        return ResponseEntity.ok().eTag(CartVersionCache.eTag(cart)).body(cart);
+    }
+}
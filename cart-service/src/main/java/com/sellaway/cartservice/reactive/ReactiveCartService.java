@@ -0,0 +1,122 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.dto.CartItemOperation;
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import com.sellaway.cartservice.service.CartMetrics;
+import com.sellaway.cartservice.service.CartMetrics.Operation;
+import com.sellaway.cartservice.service.CartOperations;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link com.sellaway.cartservice.service.CartService} for the reactive
+ * profile. Same semantics: where CartService returns null for a missing item this completes empty,
+ * and invalid input is signalled as an IllegalArgumentException error. Mutations go through
+ * {@link ReactiveCartMutationExecutor} (per-user serialization, a transaction per attempt, adds
+ * re-applied on a version conflict) and every operation is timed by {@link CartMetrics}.
+ * CartService's ETag cache has no counterpart here.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveCartService {
+
+    private final ReactiveCartRepository cartRepository;
+    private final ReactiveCartEventOutbox cartEventOutbox; // committed with the cart, relayed to Kafka by ReactiveCartOutboxRelay
+    private final ReactiveCartMutationExecutor mutations;
+    private final CartMetrics metrics;
+
+    // Only a first visit creates the cart, under the user's lock so concurrent first requests end up with the one cart
+    public Mono<Cart> getCart(String userId) {
+        return metrics.record(Operation.GET, cartRepository.findByUserId(userId)
+                .switchIfEmpty(Mono.defer(() -> createIfMissing(userId))));
+    }
+
+    // Cart query that doesn't select items: reads only the cart row
+    public Mono<Cart> getCartWithoutItems(String userId) {
+        return metrics.record(Operation.GET_HEADER, cartRepository.findWithoutItems(userId)
+                .switchIfEmpty(Mono.defer(() -> createIfMissing(userId))));
+    }
+
+    private Mono<Cart> createIfMissing(String userId) {
+        return mutations.execute(userId, true, () -> getCartByUserId(userId));
+    }
+
+    public Mono<Cart> getCartByUserId(String userId) {
+        return cartRepository.findByUserId(userId).switchIfEmpty(Mono.defer(() -> {
+            Cart newCart = new Cart();
+            newCart.setUserId(userId);
+            newCart.markModified();
+            return cartRepository.save(newCart);
+        }));
+    }
+
+    // Adding commutes with any concurrent change, so a version conflict re-applies it to the fresh cart
+    public Mono<Cart> addItemToCart(String userId, CartItem item) {
+        return metrics.record(Operation.ADD, mutations.execute(userId, true, () -> getCartByUserId(userId).flatMap(cart -> {
+            // A fresh line per attempt: a rolled-back attempt may have merged into or assigned an id to the last one
+            CartItem line = new CartItem();
+            line.setProductId(item.getProductId());
+            line.setQuantity(item.getQuantity());
+            cart.addItem(line); // merges into the existing line for the same product
+            return saveAndRecord(cart, "CartItemAdded", item.getProductId());
+        })));
+    }
+
+    // Setting a quantity or removing a line doesn't commute: on a version conflict the caller gets the 409
+    public Mono<Cart> updateCartItem(String userId, Long itemId, int quantity) {
+        return metrics.record(Operation.UPDATE, mutations.execute(userId, false, () -> getCartByUserId(userId).flatMap(cart -> {
+            CartItem cartItem = cart.findItem(itemId);
+            if (cartItem == null) {
+                return Mono.empty();
+            }
+            cartItem.setQuantity(quantity);
+            return saveAndRecord(cart, "CartItemUpdated", cartItem.getProductId());
+        })));
+    }
+
+    public Mono<Cart> removeItemFromCart(String userId, Long itemId) {
+        return metrics.record(Operation.REMOVE, mutations.execute(userId, false, () -> getCartByUserId(userId).flatMap(cart -> {
+            CartItem cartItem = cart.findItem(itemId);
+            if (cartItem == null) {
+                return Mono.empty();
+            }
+            cart.removeItem(cartItem);
+            return saveAndRecord(cart, "CartItemRemoved", cartItem.getProductId());
+        })));
+    }
+
+    // Applies all operations to one loaded cart and saves it once; any invalid operation rejects the whole batch.
+    // A batch of ADDs only is mergeable like addItemToCart; anything else gets the 409 on a version conflict.
+    public Mono<Cart> applyCartOperations(String userId, List<CartItemOperation> operations) {
+        return metrics.record(Operation.BATCH, Mono.fromRunnable(() -> CartOperations.checkBatchSize(operations))
+                .then(Mono.defer(() -> mutations.execute(userId, CartOperations.isCommutative(operations),
+                        () -> getCartByUserId(userId).flatMap(cart -> {
+                            if (operations.isEmpty()) {
+                                return Mono.just(cart);
+                            }
+                            CartOperations.apply(cart, operations);
+                            return saveAndRecord(cart, "CartItemsBatchUpdated", null);
+                        })))));
+    }
+
+    public Mono<Void> clearCart(String userId) {
+        return metrics.record(Operation.CLEAR, mutations.execute(userId, false, () -> getCartByUserId(userId).flatMap(cart -> {
+            cart.clearItems();
+            return saveAndRecord(cart, "CartCleared", null);
+        }))).then();
+    }
+
+    private Mono<Cart> saveAndRecord(Cart cart, String eventType, Long productId) {
+        cart.markModified(); // save bumps the version, failing if another request got there first
+        return cartRepository.save(cart)
+                .flatMap(savedCart -> cartEventOutbox.record(new CartEvent(eventType, savedCart.getId(), productId))
+                        .thenReturn(savedCart));
+    }
+}
@@ -0,0 +1,74 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.config.GatewayIdentity;
+import com.sellaway.cartservice.config.JwtService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+// WebFlux version of JwtAuthenticationFilter: same token rules, principal carried in the Reactor context.
+// Not a bean, so WebFlux doesn't register it a second time outside the security chain.
+@RequiredArgsConstructor
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveJwtAuthenticationFilter.class);
+
+    private final JwtService jwtService;
+    private final GatewayIdentity gatewayIdentity;
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        String identityHeader = exchange.getRequest().getHeaders().getFirst(GatewayIdentity.HEADER);
+        if (identityHeader != null && gatewayIdentity.isEnabled()) {
+            String customerId = gatewayIdentity.authenticate(identityHeader);
+            if (customerId == null) {
+                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                return exchange.getResponse().setComplete();
+            }
+            return authenticated(exchange, chain, customerId);
+        }
+
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange); // Continue without authentication
+        }
+
+        String jwt = authHeader.substring(7);
+        if (!jwtService.isTokenValid(jwt)) {
+            log.warn("Invalid or expired JWT token received.");
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            return exchange.getResponse().setComplete();
+        }
+
+        String customerId = jwtService.extractCustomerId(jwt);
+        if (customerId == null) {
+            return chain.filter(exchange);
+        }
+        return authenticated(exchange, chain, customerId);
+    }
+
+    private Mono<Void> authenticated(ServerWebExchange exchange, WebFilterChain chain, String customerId) {
+        UserDetails userDetails = User.builder()
+                .username(customerId)
+                .password("")
+                .authorities(Collections.emptyList())
+                .build();
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authToken));
+    }
+}
@@ -0,0 +1,23 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.event.CartEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+// Reactor Kafka producer built from the same spring.kafka.producer settings as the KafkaTemplate
+@Configuration
+@Profile("reactive")
+public class ReactiveKafkaConfig {
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, CartEvent> cartEventSender(KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+        SenderOptions<String, CartEvent> options = SenderOptions.create(kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()));
+        return KafkaSender.create(options);
+    }
+}
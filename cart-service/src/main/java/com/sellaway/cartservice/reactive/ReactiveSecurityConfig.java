@@ -0,0 +1,34 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.config.GatewayIdentity;
+import com.sellaway.cartservice.config.JwtService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+// Mirrors SecurityConfig: stateless, JWT only, /carts and /graphql require authentication
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtService jwtService,
+                                                         GatewayIdentity gatewayIdentity) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance()) // stateless
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers("/carts/**", "/graphql/**").authenticated()
+                        .anyExchange().permitAll())
+                .addFilterAt(new ReactiveJwtAuthenticationFilter(jwtService, gatewayIdentity), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
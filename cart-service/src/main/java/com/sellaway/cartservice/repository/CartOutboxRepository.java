@@ -0,0 +1,47 @@
+package com.sellaway.cartservice.repository;
+
+import com.sellaway.cartservice.model.CartOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface CartOutboxRepository extends JpaRepository<CartOutboxEvent, Long> {
+
+    // Shared with ReactiveCartOutboxRelay
+    String CLAIM_CARTS_SQL = """
+            SELECT h.cart_id FROM cart_event_outbox h
+            WHERE NOT EXISTS (SELECT 1 FROM cart_event_outbox p WHERE p.cart_id = h.cart_id AND p.id < h.id)
+              AND (h.claimed_until IS NULL OR h.claimed_until < :now)
+            ORDER BY h.id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    /**
+     * Picks up to {@code limit} carts with pending events by locking the oldest outbox row of each
+     * cart whose claim is missing or expired at {@code now}. Rows already locked by another relay are
+     * skipped, and only a cart's head row is ever a candidate. Must run inside a transaction, which
+     * stamps the rows with {@link #markClaimed} before it commits: the lock only lasts until then, the
+     * stamp keeps other relays off the cart while its events are sent.
+     */
+    @Query(value = CLAIM_CARTS_SQL, nativeQuery = true)
+    List<Long> claimCarts(@Param("limit") int limit, @Param("now") Instant now);
+
+    List<CartOutboxEvent> findByCartIdInOrderByIdAsc(List<Long> cartIds, Pageable pageable);
+
+    @Modifying
+    @Query("update CartOutboxEvent e set e.claimedUntil = :until where e.id in :ids")
+    int markClaimed(@Param("ids") List<Long> ids, @Param("until") Instant until);
+
+    // Events whose send failed: the next poll sends them again, in order
+    @Modifying
+    @Query("update CartOutboxEvent e set e.claimedUntil = null where e.id in :ids")
+    int releaseClaims(@Param("ids") List<Long> ids);
+}
@@ -1,12 +1,47 @@
 package com.sellaway.cartservice.repository;
 
 import com.sellaway.cartservice.model.Cart;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
+
+    // Mutations always touch the items, so fetch them with the cart in one query
+    @EntityGraph(attributePaths = "items")
     Optional<Cart> findByUserId(String userId);
+
+    // Read path: same single join-fetch query, entities loaded read-only so Hibernate keeps
+    // no dirty-checking snapshots and never flushes them
+    @EntityGraph(attributePaths = "items")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Transactional(readOnly = true)
+    Optional<Cart> findReadOnlyByUserId(String userId);
+
+    // Write-behind flush: the rows of a batch with their items, so the merges that follow need no selects
+    @EntityGraph(attributePaths = "items")
+    List<Cart> findWithItemsByIdIn(Collection<Long> ids);
+
+    // Cart header only (id, user_id, version, last_modified), for queries that don't select the items
+    Optional<CartSummary> findSummaryByUserId(String userId);
+
+    interface CartSummary {
+        Long getId();
+
+        String getUserId();
+
+        Long getVersion();
+
+        Instant getLastModified();
+    }
 }
@@ -0,0 +1,99 @@
+package com.sellaway.cartservice.service;
+
+import com.sellaway.cartservice.model.Cart;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of {@link CartService} (ReactiveCartService in the reactive profile): a {@code cart.operations}
+ * timer per operation and outcome, and the {@code cart.size} distribution (lines per cart, sampled from
+ * every cart an operation returns). All of them are registered up front, so recording is an array
+ * lookup and no tags are built per call.
+ */
+@Component
+public class CartMetrics {
+
+    public enum Operation {
+        GET("get", true),
+        GET_HEADER("get-header", false), // items not loaded
+        ADD("add", true),
+        UPDATE("update", true),
+        REMOVE("remove", true),
+        BATCH("batch", true),
+        CLEAR("clear", false); // always empty
+
+        private final String tag;
+        private final boolean sizeSampled;
+
+        Operation(String tag, boolean sizeSampled) {
+            this.tag = tag;
+            this.sizeSampled = sizeSampled;
+        }
+    }
+
+    private final Timer[] success;
+    private final Timer[] failure;
+    private final DistributionSummary cartSize;
+
+    public CartMetrics(MeterRegistry meterRegistry) {
+        Operation[] operations = Operation.values();
+        this.success = new Timer[operations.length];
+        this.failure = new Timer[operations.length];
+        for (Operation operation : operations) {
+            success[operation.ordinal()] = timer(meterRegistry, operation, "success");
+            failure[operation.ordinal()] = timer(meterRegistry, operation, "failure");
+        }
+        this.cartSize = DistributionSummary.builder("cart.size")
+                .description("Lines in the carts returned by cart operations")
+                .baseUnit("items")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+    }
+
+    /** Runs {@code call}, times it as a success or failure of {@code operation} and samples the size of its cart, if any. */
+    public Cart record(Operation operation, Supplier<Cart> call) {
+        long start = System.nanoTime();
+        Cart cart;
+        try {
+            cart = call.get();
+        } catch (RuntimeException e) {
+            failure[operation.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        success[operation.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (cart != null && operation.sizeSampled) {
+            cartSize.record(cart.getItems().size());
+        }
+        return cart;
+    }
+
+    /** Reactive {@link #record(Operation, Supplier)}: times {@code call} from subscription to its completion or error. */
+    public Mono<Cart> record(Operation operation, Mono<Cart> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(cart -> {
+                        success[operation.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        if (cart != null && operation.sizeSampled) {
+                            cartSize.record(cart.getItems().size());
+                        }
+                    })
+                    .doOnError(e -> failure[operation.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, Operation operation, String result) {
+        return Timer.builder("cart.operations")
+                .description("Cart service operations, including lock wait, transaction and conflict retries")
+                .tag("operation", operation.tag)
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,96 @@
+package com.sellaway.cartservice.service;
+
+import com.sellaway.cartservice.store.CartStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs cart mutations one at a time per user. A mutation holds its user's lock stripe for its whole
+ * read-modify-write transaction, so two requests for the same cart on this instance never race;
+ * requests for other users only wait on each other when their ids share one of the
+ * {@code cart.mutation.lock-stripes} stripes. ReentrantLocks rather than monitors, so a virtual
+ * thread blocked on the database inside a mutation doesn't pin its carrier.
+ *
+ * <p>With the write-behind store there is no transaction per mutation: its saves only touch memory and
+ * the journal, and it writes carts and their events in its own flush transactions.
+ *
+ * <p>Races with other instances are caught by the cart's @Version: the transaction fails with an
+ * OptimisticLockingFailureException (or another ConcurrencyFailureException, e.g. a deadlock between
+ * the two writers) and, if the caller marked the mutation as mergeable (it commutes with whatever
+ * won, e.g. adding to a quantity), it is re-run on a fresh read of the cart, up to
+ * {@code cart.mutation.max-attempts} times. Non-mergeable mutations let the conflict propagate.
+ * A DataIntegrityViolationException is also re-run: it is another instance creating the user's cart
+ * first (unique user_id), and the retry finds that cart.
+ */
+@Component
+@Profile("!reactive")
+public class CartMutationExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(CartMutationExecutor.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean transactional;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final int maxAttempts;
+
+    public CartMutationExecutor(
+            PlatformTransactionManager transactionManager,
+            CartStore cartStore,
+            @Value("${cart.mutation.lock-stripes:1024}") int lockStripes,
+            @Value("${cart.mutation.max-attempts:3}") int maxAttempts
+    ) {
+        if (lockStripes < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("cart.mutation.lock-stripes and max-attempts must be at least 1");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactional = cartStore.needsTransaction();
+        int size = lockStripes == 1 ? 1 : Integer.highestOneBit(lockStripes - 1) << 1; // power of two, for masking
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /** Runs {@code mutation} under the user's lock, in a transaction if the store needs one; see the class comment for retries. */
+    public <T> T execute(String userId, boolean mergeable, Supplier<T> mutation) {
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactional ? transactionTemplate.execute(status -> mutation.get()) : mutation.get();
+                } catch (ConcurrencyFailureException e) {
+                    if (!mergeable || attempt >= maxAttempts) {
+                        throw e;
+                    }
+                    log.debug("Cart of {} changed concurrently, re-applying (attempt {}/{})", userId, attempt, maxAttempts);
+                } catch (DataIntegrityViolationException e) {
+                    if (attempt >= maxAttempts) {
+                        throw e;
+                    }
+                    log.debug("Cart of {} created concurrently, re-applying (attempt {}/{})", userId, attempt, maxAttempts);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ReentrantLock stripeFor(String userId) {
+        int h = userId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
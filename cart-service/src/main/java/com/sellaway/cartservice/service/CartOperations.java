@@ -0,0 +1,69 @@
+package com.sellaway.cartservice.service;
+
+import com.sellaway.cartservice.dto.CartItemOperation;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+
+import java.util.List;
+
+/** Validation and in-memory application of bulk cart operations, shared by the blocking and reactive services. */
+public final class CartOperations {
+
+    public static final int MAX_BATCH_OPERATIONS = 200;
+
+    private CartOperations() {
+    }
+
+    public static void checkBatchSize(List<CartItemOperation> operations) {
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_OPERATIONS + " operations per batch");
+        }
+    }
+
+    // Only ADDs (quantity increments): the batch gives the same result whatever else happened to the cart first
+    public static boolean isCommutative(List<CartItemOperation> operations) {
+        for (CartItemOperation operation : operations) {
+            if (operation.getType() != CartItemOperation.Type.ADD) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Applies the operations in order; throws IllegalArgumentException on the first invalid one
+    public static void apply(Cart cart, List<CartItemOperation> operations) {
+        for (CartItemOperation operation : operations) {
+            if (operation.getType() == null) {
+                throw new IllegalArgumentException("Operation type is required");
+            }
+            switch (operation.getType()) {
+                case ADD -> {
+                    if (operation.getProductId() == null) {
+                        throw new IllegalArgumentException("ADD requires a productId");
+                    }
+                    CartItem item = new CartItem();
+                    item.setProductId(operation.getProductId());
+                    item.setQuantity(requirePositiveQuantity(operation));
+                    cart.addItem(item);
+                }
+                case UPDATE -> requireItem(cart, operation).setQuantity(requirePositiveQuantity(operation));
+                case REMOVE -> cart.removeItem(requireItem(cart, operation));
+            }
+        }
+    }
+
+    private static CartItem requireItem(Cart cart, CartItemOperation operation) {
+        CartItem item = cart.findItem(operation.getItemId());
+        if (item == null) {
+            throw new IllegalArgumentException("Cart item not found: " + operation.getItemId());
+        }
+        return item;
+    }
+
+    private static int requirePositiveQuantity(CartItemOperation operation) {
+        if (operation.getQuantity() == null || operation.getQuantity() <= 0) {
+            throw new IllegalArgumentException(operation.getType() + " requires a positive quantity");
+        }
+        return operation.getQuantity();
+    }
+}
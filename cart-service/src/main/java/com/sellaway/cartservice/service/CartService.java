@@ -1,68 +1,153 @@
 package com.sellaway.cartservice.service;
 
+import com.sellaway.cartservice.dto.CartItemOperation;
 import com.sellaway.cartservice.event.CartEvent;
 import com.sellaway.cartservice.model.Cart;
 import com.sellaway.cartservice.model.CartItem;
-import com.sellaway.cartservice.repository.CartRepository;
+import com.sellaway.cartservice.service.CartMetrics.Operation;
+import com.sellaway.cartservice.store.CartStore;
 import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
-import java.util.Optional;
 
 @Service
+@Profile("!reactive") // ReactiveCartService replaces it
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final KafkaTemplate<String, CartEvent> kafkaTemplate;
-    private static final String CART_TOPIC = "cart-events";
+    private final CartStore cartStore; // JPA by default, write-behind when cart.store.mode=write-behind; also stores the events
+    private final CartVersionCache versionCache; // ETags for conditional GETs, refreshed on reads and after commits
+    private final CartMutationExecutor mutations; // per-user serialization, transaction and conflict retries
+    private final CartMetrics metrics; // pre-registered timers per operation and the cart size distribution
+
+    // Read path for GET /carts and the cart query: one read-only join-fetch query, only a first visit creates the cart
+    public Cart getCart(String userId) {
+        return metrics.record(Operation.GET, () -> {
+            Cart cart = cartStore.findForRead(userId).orElseGet(() -> createIfMissing(userId));
+            versionCache.put(cart);
+            return cart;
+        });
+    }
+
+    // Cart query that doesn't select items: the cached cart row, else reads only the cart row
+    public Cart getCartWithoutItems(String userId) {
+        return metrics.record(Operation.GET_HEADER, () -> {
+            Cart cart = versionCache.getHeader(userId);
+            if (cart == null) {
+                cart = cartStore.findWithoutItems(userId).orElseGet(() -> createIfMissing(userId));
+                versionCache.put(cart);
+            }
+            return cart;
+        });
+    }
+
+    // ETag of the user's cart if this instance saw it recently, else null; never queries
+    public String getCachedETag(String userId) {
+        return versionCache.getETag(userId);
+    }
+
+    // First visit: created under the user's lock, so concurrent first requests end up with the one cart
+    private Cart createIfMissing(String userId) {
+        return mutations.execute(userId, true, () -> getCartByUserId(userId));
+    }
 
     public Cart getCartByUserId(String userId) {
-        return cartRepository.findByUserId(userId).orElseGet(() -> {
+        return cartStore.findByUserId(userId).orElseGet(() -> {
             Cart newCart = new Cart();
             newCart.setUserId(userId);
-            return cartRepository.save(newCart);
+            newCart.markModified();
+            return cartStore.save(newCart);
         });
     }
 
+    // Adding commutes with any concurrent change, so a version conflict re-applies it to the fresh cart
     public Cart addItemToCart(String userId, CartItem item) {
-        Cart cart = getCartByUserId(userId);
-        cart.addItem(item);
-        Cart savedCart = cartRepository.save(cart);
-        kafkaTemplate.send(CART_TOPIC, new CartEvent("CartItemAdded", savedCart.getId(), item.getProductId()));
-        return savedCart;
+        return metrics.record(Operation.ADD, () -> mutations.execute(userId, true, () -> {
+            Cart cart = getCartByUserId(userId);
+            // A fresh line per attempt: a rolled-back attempt may have merged into or assigned an id to the last one
+            CartItem line = new CartItem();
+            line.setProductId(item.getProductId());
+            line.setQuantity(item.getQuantity());
+            cart.addItem(line); // merges into the existing line for the same product
+            cart.markModified();
+            return remember(cartStore.save(cart, new CartEvent("CartItemAdded", cart.getId(), item.getProductId())));
+        }));
     }
 
+    // Setting a quantity or removing a line doesn't commute: on a version conflict the caller gets the 409
     public Cart updateCartItem(String userId, Long itemId, int quantity) {
-        Cart cart = getCartByUserId(userId);
-        Optional<CartItem> cartItem = cart.getItems().stream().filter(item -> item.getId().equals(itemId)).findFirst();
-        if (cartItem.isPresent()) {
-            cartItem.get().setQuantity(quantity);
-            Cart savedCart = cartRepository.save(cart);
-            kafkaTemplate.send(CART_TOPIC, new CartEvent("CartItemUpdated", savedCart.getId(), cartItem.get().getProductId()));
-            return savedCart;
-        }
-        return null;
+        return metrics.record(Operation.UPDATE, () -> mutations.execute(userId, false, () -> {
+            Cart cart = getCartByUserId(userId);
+            CartItem cartItem = cart.findItem(itemId);
+            if (cartItem == null) {
+                return null;
+            }
+            cartItem.setQuantity(quantity);
+            cart.markModified();
+            return remember(cartStore.save(cart, new CartEvent("CartItemUpdated", cart.getId(), cartItem.getProductId())));
+        }));
     }
 
     public Cart removeItemFromCart(String userId, Long itemId) {
-        Cart cart = getCartByUserId(userId);
-        Optional<CartItem> cartItem = cart.getItems().stream().filter(item -> item.getId().equals(itemId)).findFirst();
-        if (cartItem.isPresent()) {
-            cart.removeItem(cartItem.get());
-            Cart savedCart = cartRepository.save(cart);
-            kafkaTemplate.send(CART_TOPIC, new CartEvent("CartItemRemoved", savedCart.getId(), cartItem.get().getProductId()));
-            return savedCart;
-        }
-        return null;
+        return metrics.record(Operation.REMOVE, () -> mutations.execute(userId, false, () -> {
+            Cart cart = getCartByUserId(userId);
+            CartItem cartItem = cart.findItem(itemId);
+            if (cartItem == null) {
+                return null;
+            }
+            cart.removeItem(cartItem);
+            cart.markModified();
+            return remember(cartStore.save(cart, new CartEvent("CartItemRemoved", cart.getId(), cartItem.getProductId())));
+        }));
+    }
+
+    // Applies all operations to one loaded cart and saves it once; any invalid operation rejects the whole batch.
+    // A batch of ADDs only is mergeable like addItemToCart; anything else gets the 409 on a version conflict.
+    public Cart applyCartOperations(String userId, List<CartItemOperation> operations) {
+        return metrics.record(Operation.BATCH, () -> {
+            CartOperations.checkBatchSize(operations);
+            return mutations.execute(userId, CartOperations.isCommutative(operations), () -> {
+                Cart cart = getCartByUserId(userId);
+                if (operations.isEmpty()) {
+                    return cart;
+                }
+                CartOperations.apply(cart, operations);
+                cart.markModified();
+                return remember(cartStore.save(cart, new CartEvent("CartItemsBatchUpdated", cart.getId(), null)));
+            });
+        });
     }
 
     public void clearCart(String userId) {
-        Cart cart = getCartByUserId(userId);
-        cart.getItems().clear();
-        cartRepository.save(cart);
-        kafkaTemplate.send(CART_TOPIC, new CartEvent("CartCleared", cart.getId(), null));
+        metrics.record(Operation.CLEAR, () -> mutations.execute(userId, false, () -> {
+            Cart cart = getCartByUserId(userId);
+            cart.clearItems();
+            cart.markModified();
+            cartStore.save(cart, new CartEvent("CartCleared", cart.getId(), null));
+            return remember(cart);
+        }));
+    }
+
+    // The version is only final once the transaction has flushed and committed; a rollback drops the entry
+    private Cart remember(Cart cart) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versionCache.put(cart);
+            return cart;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    versionCache.put(cart);
+                } else {
+                    versionCache.evict(cart.getUserId());
+                }
+            }
+        });
+        return cart;
     }
 }
@@ -0,0 +1,119 @@
+package com.sellaway.cartservice.service;
+
+import com.sellaway.cartservice.model.Cart;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest known cart row (id, userId, version, lastModified) per user, so a conditional GET whose
+ * ETag still matches is answered without a query, and the cart query without items without one.
+ * CartService refreshes an entry on every read and after every committed mutation on this
+ * instance. Entries expire after {@code cart.etag-cache.ttl-ms}, which bounds how long a change
+ * made through another instance can go unnoticed here; 0 disables the cache.
+ */
+@Component
+public class CartVersionCache {
+
+    private final long ttlMs;
+    private final int maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CartVersionCache(@Value("${cart.etag-cache.ttl-ms:2000}") long ttlMs,
+                            @Value("${cart.etag-cache.max-size:100000}") int maxSize) {
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Strong ETag of the cart. The version alone identifies a committed state; lastModified is part of
+     * it because the write-behind store only moves the version when it flushes.
+     */
+    public static String eTag(Cart cart) {
+        Instant lastModified = cart.getLastModified();
+        long micros = lastModified == null ? 0 : lastModified.getEpochSecond() * 1_000_000 + lastModified.getNano() / 1_000;
+        return "\"" + (cart.getVersion() == null ? 0 : cart.getVersion()) + "-" + micros + "\"";
+    }
+
+    /** If-None-Match is "*" or a list of (possibly weak) ETags; for a GET any of them matching counts. */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag) || (value.startsWith("W/") && value.substring(2).equals(eTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Cached ETag for the user's cart, or null if there is no fresh entry. */
+    public String getETag(String userId) {
+        Entry entry = fresh(userId);
+        return entry != null ? entry.eTag() : null;
+    }
+
+    /** Detached copy of the cached cart row (no items), or null if there is no fresh entry. */
+    public Cart getHeader(String userId) {
+        Entry entry = fresh(userId);
+        return entry != null ? entry.header().header() : null;
+    }
+
+    public void put(Cart cart) {
+        if (ttlMs <= 0 || cart.getId() == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evictExpired();
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(cart.header(), eTag(cart), now + ttlMs);
+        // A read that started before a commit may finish after it; never go back to an older state
+        entries.merge(cart.getUserId(), entry,
+                (existing, candidate) -> existing.expiresAtMillis() <= now || !isOlder(candidate.header(), existing.header()) ? candidate : existing);
+    }
+
+    public void evict(String userId) {
+        entries.remove(userId);
+    }
+
+    private static boolean isOlder(Cart candidate, Cart existing) {
+        long candidateVersion = candidate.getVersion() == null ? 0 : candidate.getVersion();
+        long existingVersion = existing.getVersion() == null ? 0 : existing.getVersion();
+        if (candidateVersion != existingVersion) {
+            return candidateVersion < existingVersion;
+        }
+        return candidate.getLastModified() != null && existing.getLastModified() != null
+                && candidate.getLastModified().isBefore(existing.getLastModified());
+    }
+
+    private Entry fresh(String userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            entries.remove(userId, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    // Same policy as the JWT claims cache: expired entries first, then an arbitrary tenth
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        int excess = entries.size() - (maxSize - Math.max(1, maxSize / 10));
+        Iterator<String> keys = entries.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record Entry(Cart header, String eTag, long expiresAtMillis) {
+    }
+}
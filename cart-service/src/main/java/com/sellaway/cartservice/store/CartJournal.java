@@ -0,0 +1,239 @@
+package com.sellaway.cartservice.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.model.Cart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of cart snapshots, each with the event its save produced (one JSON line per save),
+ * that backs the write-behind store. The active segment is sealed at the start of each flush and sealed
+ * segments are deleted once everything they contain has reached Postgres. On startup all remaining
+ * segments are replayed: the last snapshot per user wins, the events are all kept, in order.
+ * <p>
+ * With {@code fsync} an append returns once its line is on disk, surviving power loss and OS crashes;
+ * without, once it is in the OS page cache, which survives only a crash of this process. Syncs are
+ * group commits: appenders that arrive while a force is running are all covered by the next one.
+ * <p>
+ * Guarded by ReentrantLocks rather than {@code synchronized}: {@link #append} does file I/O on the
+ * request thread, which would pin the carrier thread of a virtual thread inside a monitor.
+ */
+class CartJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CartJournal.class);
+    private static final String PREFIX = "cart-journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+
+    private long sequence;
+    private FileOutputStream activeStream;
+    private Writer activeWriter;
+    private final List<Path> sealed = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long appended; // lines written so far, guarded by lock
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private long synced; // lines known to be on disk, guarded by syncLock
+
+    CartJournal(Path directory, ObjectMapper objectMapper, boolean fsync) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    /** Reads every existing segment and opens a fresh active one. Replayed segments count as sealed. */
+    Replay open() {
+        lock.lock();
+        try {
+            Map<String, Cart> latest = new LinkedHashMap<>();
+            Map<String, List<CartEvent>> events = new LinkedHashMap<>();
+            Files.createDirectories(directory);
+            for (Path segment : segments()) {
+                try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        try {
+                            Entry entry = readEntry(line);
+                            latest.put(entry.cart().getUserId(), entry.cart());
+                            if (entry.event() != null) {
+                                events.computeIfAbsent(entry.cart().getUserId(), userId -> new ArrayList<>()).add(entry.event());
+                            }
+                        } catch (IOException e) {
+                            // A torn last line from a crash mid-write; everything before it is intact
+                            log.warn("Skipping unreadable journal entry in {}: {}", segment, e.getMessage());
+                        }
+                    }
+                }
+                sealed.add(segment);
+                sequence = Math.max(sequence, sequenceOf(segment));
+            }
+            openActive();
+            return new Replay(latest, events);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart journal in " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void append(Cart snapshot, CartEvent event) {
+        long position;
+        lock.lock();
+        try {
+            activeWriter.write(objectMapper.writeValueAsString(new Entry(snapshot, event)));
+            activeWriter.write('\n');
+            activeWriter.flush();
+            position = ++appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to cart journal", e);
+        } finally {
+            lock.unlock();
+        }
+        if (fsync) {
+            sync(position);
+        }
+    }
+
+    // Returns once line `position` is on disk. Whoever gets the sync lock forces everything appended so far.
+    private void sync(long position) {
+        syncLock.lock();
+        try {
+            if (synced >= position) {
+                return; // covered by the force that ran while we waited
+            }
+            FileChannel channel;
+            long upTo;
+            lock.lock();
+            try {
+                channel = activeStream.getChannel();
+                upTo = appended;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // rotated meanwhile: rotate() forced the segment before closing it
+            }
+            synced = upTo;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync cart journal", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /** Closes the active segment and starts a new one; the old one is kept until {@link #deleteSealed()}. */
+    void rotate() {
+        lock.lock();
+        try {
+            Path current = segment(sequence);
+            if (fsync) {
+                activeWriter.flush();
+                activeStream.getChannel().force(false);
+            }
+            activeWriter.close();
+            sealed.add(current);
+            openActive();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate cart journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void deleteSealed() {
+        lock.lock();
+        try {
+            for (Path segment : sealed) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    log.warn("Cannot delete flushed journal segment {}: {}", segment, e.getMessage());
+                }
+            }
+            sealed.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (activeWriter != null) {
+                activeWriter.close();
+            }
+        } catch (IOException e) {
+            log.warn("Cannot close cart journal: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Lines written before events were journaled are a bare cart
+    private Entry readEntry(String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        if (node.has("cart")) {
+            return objectMapper.treeToValue(node, Entry.class);
+        }
+        return new Entry(objectMapper.treeToValue(node, Cart.class), null);
+    }
+
+    private void openActive() throws IOException {
+        sequence++;
+        activeStream = new FileOutputStream(segment(sequence).toFile(), true);
+        activeWriter = new OutputStreamWriter(activeStream, StandardCharsets.UTF_8);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)))
+                    .toList();
+        }
+    }
+
+    private Path segment(long seq) {
+        return directory.resolve(PREFIX + String.format("%019d", seq) + SUFFIX);
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    record Entry(Cart cart, CartEvent event) {
+    }
+
+    /** What {@link #open} found: the latest snapshot per user and each user's events in journal order. */
+    record Replay(Map<String, Cart> carts, Map<String, List<CartEvent>> events) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.sellaway.cartservice.store;
+
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.model.Cart;
+
+import java.util.Optional;
+
+/**
+ * Where CartService loads and saves carts. The default implementation goes straight to
+ * {@link com.sellaway.cartservice.repository.CartRepository}; {@code cart.store.mode=write-behind}
+ * switches to {@link WriteBehindCartStore}.
+ */
+public interface CartStore {
+
+    Optional<Cart> findByUserId(String userId);
+
+    // For queries that never save the result back
+    Optional<Cart> findForRead(String userId);
+
+    // Read-only cart whose items are not loaded (left empty)
+    Optional<Cart> findWithoutItems(String userId);
+
+    Cart save(Cart cart);
+
+    // Saves a change together with the event it produced: the event is relayed iff the change is persisted
+    Cart save(Cart cart, CartEvent event);
+
+    // Whether saves join the caller's transaction, i.e. mutations must run inside one
+    boolean needsTransaction();
+}
@@ -0,0 +1,62 @@
+package com.sellaway.cartservice.store;
+
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.event.CartEventOutbox;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.repository.CartRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/** Synchronous store: every save is a repository save (one transaction per mutation). */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cart.store.mode", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartEventOutbox cartEventOutbox; // committed with the cart, relayed to Kafka by CartOutboxRelay
+
+    @Override
+    public Optional<Cart> findByUserId(String userId) {
+        return cartRepository.findByUserId(userId);
+    }
+
+    @Override
+    public Optional<Cart> findForRead(String userId) {
+        return cartRepository.findReadOnlyByUserId(userId);
+    }
+
+    @Override
+    public Optional<Cart> findWithoutItems(String userId) {
+        return cartRepository.findSummaryByUserId(userId).map(summary -> {
+            Cart cart = new Cart();
+            cart.setId(summary.getId());
+            cart.setUserId(summary.getUserId());
+            cart.setVersion(summary.getVersion());
+            cart.setLastModified(summary.getLastModified());
+            return cart;
+        });
+    }
+
+    @Override
+    public Cart save(Cart cart) {
+        return cartRepository.save(cart);
+    }
+
+    @Override
+    public Cart save(Cart cart, CartEvent event) {
+        Cart saved = cartRepository.save(cart);
+        cartEventOutbox.record(event);
+        return saved;
+    }
+
+    @Override
+    public boolean needsTransaction() {
+        return true;
+    }
+}
@@ -0,0 +1,431 @@
+package com.sellaway.cartservice.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.event.CartEventOutbox;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import com.sellaway.cartservice.repository.CartRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind cart store. Hot carts live in a bounded in-memory map keyed by userId; saves
+ * update the map, append the snapshot and its event to a local {@link CartJournal} and return, with
+ * no transaction. Dirty carts are coalesced (only the latest snapshot per user is kept) and written to
+ * Postgres in batches, every {@code flush-interval-ms} or once {@code flush-threshold} carts are dirty.
+ * Each batch is one transaction that also inserts the batch's events into the outbox, so an event is
+ * relayed iff its change reached the database. Ten adds to the same cart between two flushes cost one
+ * repository save (and ten outbox rows).
+ *
+ * <p>New carts are still inserted synchronously so they get their id (and events their cartId)
+ * immediately. Items added since the last flush have no id until that flush runs.
+ *
+ * <p>The cache is per instance, so this mode assumes requests for a user are routed to the same
+ * instance (sticky sessions / consistent hashing at the edge). The cart's @Version still guards that
+ * assumption: snapshots carry the version of the row as this store last read or wrote it, and a flush
+ * that finds another version in the database skips the cart, drops the changes and events this
+ * instance has not flushed for it (logged as errors) and reloads it on the next read.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "cart.store.mode", havingValue = "write-behind")
+public class WriteBehindCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private final CartRepository cartRepository;
+    private final CartEventOutbox cartEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final CartJournal journal;
+    private final int maxCarts;
+    private final int flushThreshold;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    // Latest snapshot per user; snapshots are never mutated once stored, callers get copies
+    private final Map<String, Cart> carts = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Events not flushed yet, per user in save order; unlike snapshots these are never coalesced
+    private final Map<String, List<CartEvent>> pendingEvents = new ConcurrentHashMap<>();
+    // Saves hold the read lock across journal append + map updates, a flush takes the write lock to rotate
+    // the journal and take the dirty snapshots and their events, so no save can fall between the two
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+    // Carts taken by a running flush: no longer dirty, but not evictable until their batch is written
+    private final Set<String> flushing = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicBoolean evictionRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cart-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteBehindCartStore(
+            CartRepository cartRepository,
+            CartEventOutbox cartEventOutbox,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${cart.store.write-behind.journal-dir:./data/cart-journal}") String journalDir,
+            @Value("${cart.store.write-behind.journal-fsync:true}") boolean journalFsync,
+            @Value("${cart.store.write-behind.max-carts:10000}") int maxCarts,
+            @Value("${cart.store.write-behind.flush-threshold:200}") int flushThreshold,
+            @Value("${cart.store.write-behind.batch-size:100}") int batchSize,
+            @Value("${cart.store.write-behind.flush-interval-ms:500}") long flushIntervalMs
+    ) {
+        this.cartRepository = cartRepository;
+        this.cartEventOutbox = cartEventOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = new CartJournal(Path.of(journalDir), objectMapper, journalFsync);
+        this.maxCarts = maxCarts;
+        this.flushThreshold = flushThreshold;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        CartJournal.Replay replayed = journal.open();
+        if (!replayed.carts().isEmpty()) {
+            log.info("Replaying {} cart(s) from the write-behind journal", replayed.carts().size());
+            carts.putAll(replayed.carts());
+            pendingEvents.putAll(replayed.events());
+            dirty.addAll(replayed.carts().keySet());
+            flush();
+        }
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        journal.close();
+    }
+
+    @Override
+    public Optional<Cart> findForRead(String userId) {
+        return findByUserId(userId); // already served from memory
+    }
+
+    @Override
+    public Optional<Cart> findWithoutItems(String userId) {
+        return findByUserId(userId);
+    }
+
+    @Override
+    public Optional<Cart> findByUserId(String userId) {
+        Cart snapshot = carts.get(userId);
+        if (snapshot == null) {
+            Optional<Cart> loaded = cartRepository.findByUserId(userId);
+            if (loaded.isEmpty()) {
+                return loaded;
+            }
+            snapshot = loaded.get().copy();
+            Cart existing = carts.putIfAbsent(userId, snapshot);
+            if (existing != null) {
+                snapshot = existing;
+            }
+            requestEvictionIfFull();
+        }
+        return Optional.of(snapshot.copy());
+    }
+
+    @Override
+    public Cart save(Cart cart) {
+        return save(cart, null);
+    }
+
+    @Override
+    public Cart save(Cart cart, CartEvent event) {
+        if (cart.getId() == null) {
+            // First save of a cart: insert now so the caller (and its events) get the id
+            Cart saved = transactionTemplate.execute(status -> {
+                Cart inserted = cartRepository.save(cart);
+                if (event != null) {
+                    cartEventOutbox.record(event);
+                }
+                return inserted;
+            });
+            carts.put(saved.getUserId(), saved.copy());
+            requestEvictionIfFull();
+            return saved;
+        }
+
+        Cart snapshot = cart.copy();
+        journalLock.readLock().lock();
+        try {
+            // The caller may have read the snapshot from before a flush assigned ids to its new lines and moved
+            // the version. Checked again atomically with the put, in case that flush is swapping them in right now.
+            Cart current = carts.get(snapshot.getUserId());
+            if (current != null) {
+                rebase(snapshot, current);
+            }
+            journal.append(snapshot, event);
+            dirty.add(snapshot.getUserId()); // before the put, so an eviction can't drop the new snapshot
+            carts.compute(snapshot.getUserId(), (userId, latest) -> latest != null ? rebase(snapshot, latest) : snapshot);
+            if (event != null) {
+                pendingEvents.compute(snapshot.getUserId(), (userId, events) -> {
+                    List<CartEvent> list = events != null ? events : new ArrayList<>();
+                    list.add(event);
+                    return list;
+                });
+            }
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        if (dirty.size() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+        return cart;
+    }
+
+    @Override
+    public boolean needsTransaction() {
+        return false; // flushes run their own transactions
+    }
+
+    /** Writes every dirty cart and its events to Postgres. Runs on the flusher thread (or at startup/shutdown). */
+    synchronized void flush() {
+        flushRequested.set(false);
+        List<String> userIds;
+        Map<String, Cart> snapshots = new HashMap<>();
+        Map<String, List<CartEvent>> events = new HashMap<>();
+        journalLock.writeLock().lock();
+        try {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            journal.rotate();
+            userIds = new ArrayList<>(dirty);
+            flushing.addAll(userIds);
+            dirty.removeAll(userIds);
+            // Exactly what the sealed segments hold: the snapshot and the events of the same moment
+            for (String userId : userIds) {
+                snapshots.put(userId, carts.get(userId));
+                List<CartEvent> userEvents = pendingEvents.remove(userId);
+                if (userEvents != null) {
+                    events.put(userId, userEvents);
+                }
+            }
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+
+        boolean allFlushed = true;
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<String> batchIds = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            List<Cart> batch = new ArrayList<>(batchIds.size());
+            for (String userId : batchIds) {
+                batch.add(snapshots.get(userId));
+            }
+            List<Cart> writable = new ArrayList<>(batch.size());
+            List<Cart> conflicted = new ArrayList<>();
+            try {
+                List<Cart> saved = transactionTemplate.execute(status -> {
+                    writable.clear();
+                    conflicted.clear();
+                    splitByVersion(batch, writable, conflicted);
+                    List<Cart> written = cartRepository.saveAll(copies(writable));
+                    for (Cart cart : writable) {
+                        events.getOrDefault(cart.getUserId(), List.of()).forEach(cartEventOutbox::record);
+                    }
+                    return written;
+                });
+                discard(conflicted, events);
+                for (int i = 0; i < writable.size(); i++) {
+                    Cart flushed = writable.get(i);
+                    Cart persisted = saved.get(i).copy();
+                    // Swap in the persisted copy (with item ids and the new version); a newer save that replaced it
+                    // gets them instead, or its lines would be inserted again while orphanRemoval deletes the rows
+                    // just written, and its version would read as a conflict
+                    carts.computeIfPresent(flushed.getUserId(),
+                            (userId, current) -> current == flushed ? persisted : rebase(current.copy(), persisted));
+                }
+            } catch (RuntimeException e) {
+                allFlushed = false;
+                for (String userId : batchIds) {
+                    dirty.add(userId);
+                    List<CartEvent> failed = events.get(userId);
+                    if (failed != null) {
+                        // Ahead of whatever was saved since, to keep the cart's events in order
+                        pendingEvents.compute(userId, (key, newer) -> {
+                            List<CartEvent> list = new ArrayList<>(failed);
+                            if (newer != null) {
+                                list.addAll(newer);
+                            }
+                            return list;
+                        });
+                    }
+                }
+                log.error("Write-behind flush of {} cart(s) failed, will retry: {}", batch.size(), e.getMessage());
+            } finally {
+                flushing.removeAll(batchIds);
+            }
+        }
+        if (allFlushed) {
+            journal.deleteSealed();
+        }
+        if (carts.size() > maxCarts) {
+            evict(); // already off the request path
+        }
+    }
+
+    /**
+     * Sorts the batch into carts whose row still has the snapshot's version and carts another writer
+     * changed since. Loading the rows, items included, in one query also spares merge its per-cart selects;
+     * a change that slips in after this load fails the batch on the version check of the UPDATE instead.
+     */
+    private void splitByVersion(List<Cart> batch, List<Cart> writable, List<Cart> conflicted) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Cart snapshot : batch) {
+            ids.add(snapshot.getId());
+        }
+        Map<Long, Long> versions = new HashMap<>();
+        for (Cart current : cartRepository.findWithItemsByIdIn(ids)) {
+            versions.put(current.getId(), current.getVersion());
+        }
+        for (Cart snapshot : batch) {
+            Long version = versions.get(snapshot.getId());
+            if (version == null || version.equals(snapshot.getVersion())) {
+                writable.add(snapshot);
+            } else {
+                conflicted.add(snapshot);
+            }
+        }
+    }
+
+    private static List<Cart> copies(List<Cart> snapshots) {
+        List<Cart> copies = new ArrayList<>(snapshots.size());
+        for (Cart snapshot : snapshots) {
+            copies.add(snapshot.copy());
+        }
+        return copies;
+    }
+
+    // Another writer changed these carts: forget them, with whatever was saved here since, so the next read reloads
+    private void discard(List<Cart> conflicted, Map<String, List<CartEvent>> flushedEvents) {
+        if (conflicted.isEmpty()) {
+            return;
+        }
+        journalLock.writeLock().lock(); // no save can land between the removals
+        try {
+            for (Cart cart : conflicted) {
+                String userId = cart.getUserId();
+                List<CartEvent> lost = new ArrayList<>(flushedEvents.getOrDefault(userId, List.of()));
+                List<CartEvent> newer = pendingEvents.remove(userId);
+                if (newer != null) {
+                    lost.addAll(newer);
+                }
+                dirty.remove(userId);
+                carts.remove(userId);
+                log.error("Cart {} of {} was changed by another writer since version {}; dropped its unflushed changes and events {}",
+                        cart.getId(), userId, cart.getVersion(), lost);
+            }
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+    }
+
+    // Gives target the version source was read or written at, and to its lines that have no id yet the id
+    // source has for the same product; returns target
+    private static Cart rebase(Cart target, Cart source) {
+        target.setVersion(source.getVersion());
+        Map<Long, Long> idsByProduct = new HashMap<>();
+        for (CartItem item : source.getItems()) {
+            if (item.getId() != null) {
+                idsByProduct.put(item.getProductId(), item.getId());
+            }
+        }
+        if (idsByProduct.isEmpty()) {
+            return target;
+        }
+        Set<Long> taken = new HashSet<>();
+        for (CartItem item : target.getItems()) {
+            if (item.getId() != null) {
+                taken.add(item.getId());
+            }
+        }
+        for (CartItem item : target.getItems()) {
+            Long id = item.getId() == null ? idsByProduct.get(item.getProductId()) : null;
+            if (id != null && taken.add(id)) {
+                item.setId(id);
+            }
+        }
+        return target;
+    }
+
+    int dirtyCount() {
+        return dirty.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Loads and inserts only ask for an eviction; it runs on the flusher thread, so no request waits for it
+    private void requestEvictionIfFull() {
+        if (carts.size() > maxCarts && evictionRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                evictionRequested.set(false);
+                evict();
+            });
+        }
+    }
+
+    /**
+     * Drops clean carts until 90% of {@code max-carts} are left, so one pass makes room for many loads.
+     * Dirty carts and carts being flushed stay. Each removal re-checks that atomically with the entry,
+     * instead of locking out saves: a save marks its user dirty before it puts the snapshot.
+     */
+    void evict() {
+        int excess = carts.size() - (maxCarts - maxCarts / 10);
+        Iterator<String> userIds = carts.keySet().iterator();
+        while (excess > 0 && userIds.hasNext()) {
+            String userId = userIds.next();
+            Cart kept = carts.computeIfPresent(userId,
+                    (key, snapshot) -> dirty.contains(key) || flushing.contains(key) ? snapshot : null);
+            if (kept == null) {
+                excess--;
+            }
+        }
+    }
+
+    int size() {
+        return carts.size();
+    }
+}
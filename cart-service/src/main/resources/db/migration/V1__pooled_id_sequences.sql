@@ -0,0 +1,23 @@
+-- cart and cart_item ids come from pooled sequences: Hibernate (pooled-lo) takes nextval as the first
+-- of 50 ids it hands out, the reactive repository takes one nextval per insert. Both need the
+-- sequences to start above the ids already in use and the old identity defaults gone.
+-- On an empty database the tables don't exist yet; V2 creates them.
+CREATE SEQUENCE IF NOT EXISTS cart_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS cart_item_seq INCREMENT BY 50;
+
+DO $$
+BEGIN
+    IF to_regclass('cart') IS NOT NULL THEN
+        PERFORM setval('cart_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM cart), false);
+        ALTER TABLE cart ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        ALTER TABLE cart ALTER COLUMN id DROP DEFAULT;
+    END IF;
+    IF to_regclass('cart_item') IS NOT NULL THEN
+        PERFORM setval('cart_item_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM cart_item), false);
+        ALTER TABLE cart_item ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        ALTER TABLE cart_item ALTER COLUMN id DROP DEFAULT;
+        -- Items are now inserted with their cart_id; rows detached by the old null-then-delete removal are garbage
+        DELETE FROM cart_item WHERE cart_id IS NULL;
+        ALTER TABLE cart_item ALTER COLUMN cart_id SET NOT NULL;
+    END IF;
+END $$;
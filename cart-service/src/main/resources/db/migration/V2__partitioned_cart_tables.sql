@@ -0,0 +1,80 @@
+-- Schema is owned by these migrations from here on (ddl-auto: validate).
+--
+-- cart is hash-partitioned by user_id and cart_item by cart_id (one cart per user, so a user's items
+-- sit in one partition too). 16 partitions keep each table and its indexes small; the modulus can only
+-- be changed by re-creating the tables. Postgres requires the partition key in every unique constraint,
+-- so the primary keys are (id, partition key) and cart_item.cart_id has no foreign key to cart.
+--
+-- Existing tables (created by ddl-auto) are renamed, copied over and dropped. Carts a user got twice
+-- before user_id was unique are merged into the oldest one, keeping one line per product (the one with
+-- the lowest id, holding the summed quantity) as Cart's product index expects.
+
+ALTER TABLE IF EXISTS cart RENAME TO cart_unpartitioned;
+ALTER TABLE IF EXISTS cart_item RENAME TO cart_item_unpartitioned;
+
+CREATE TABLE cart (
+    id            bigint       NOT NULL,
+    user_id       varchar(255) NOT NULL,
+    version       bigint       NOT NULL DEFAULT 0,
+    last_modified timestamp(6) with time zone,
+    CONSTRAINT pk_cart PRIMARY KEY (id, user_id) -- named apart from the renamed table's cart_pkey
+) PARTITION BY HASH (user_id);
+
+CREATE TABLE cart_item (
+    id         bigint  NOT NULL,
+    cart_id    bigint  NOT NULL,
+    product_id bigint,
+    quantity   integer NOT NULL,
+    CONSTRAINT pk_cart_item PRIMARY KEY (id, cart_id)
+) PARTITION BY HASH (cart_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE cart_p%s PARTITION OF cart FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+        EXECUTE format('CREATE TABLE cart_item_p%s PARTITION OF cart_item FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+
+    IF to_regclass('cart_unpartitioned') IS NOT NULL THEN
+        -- Databases that never ran with the optimistic-locking columns
+        ALTER TABLE cart_unpartitioned ADD COLUMN IF NOT EXISTS version bigint;
+        ALTER TABLE cart_unpartitioned ADD COLUMN IF NOT EXISTS last_modified timestamp(6) with time zone;
+
+        INSERT INTO cart (id, user_id, version, last_modified)
+        SELECT DISTINCT ON (user_id) id, user_id, COALESCE(version, 0), last_modified
+        FROM cart_unpartitioned
+        WHERE user_id IS NOT NULL
+        ORDER BY user_id, id;
+
+        IF to_regclass('cart_item_unpartitioned') IS NOT NULL THEN
+            INSERT INTO cart_item (id, cart_id, product_id, quantity)
+            SELECT MIN(i.id), kept.id, i.product_id, SUM(i.quantity)
+            FROM cart_item_unpartitioned i
+            JOIN cart_unpartitioned c ON c.id = i.cart_id
+            JOIN cart kept ON kept.user_id = c.user_id
+            GROUP BY kept.id, i.product_id;
+        END IF;
+
+        DROP TABLE IF EXISTS cart_item_unpartitioned;
+        DROP TABLE cart_unpartitioned;
+    END IF;
+END $$;
+
+-- Added once the old tables (and their index names) are gone.
+-- findByUserId / findReadOnlyByUserId / findSummaryByUserId: a unique index on the partition key, so a
+-- lookup touches one partition. It carries id for the join to cart_item, but not version/last_modified:
+-- those change on every write and would rule out HOT updates of the cart row.
+ALTER TABLE cart ADD CONSTRAINT idx_cart_user_id UNIQUE (user_id) INCLUDE (id);
+
+-- The item side of the same join, in the order the reactive repository reads them
+CREATE INDEX idx_cart_item_cart_id ON cart_item (cart_id, id);
+
+-- The outbox (not partitioned: rows only live until relayed)
+CREATE TABLE IF NOT EXISTS cart_event_outbox (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cart_id    bigint       NOT NULL,
+    event_type varchar(255) NOT NULL,
+    payload    text         NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_cart_event_outbox_cart_id_id ON cart_event_outbox (cart_id, id);
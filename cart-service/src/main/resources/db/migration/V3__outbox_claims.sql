@@ -0,0 +1,3 @@
+-- A relay claims a cart's pending events by stamping them, commits, and only then sends them
+-- (CartOutboxRelay). Other relays skip a cart whose oldest event is claimed until the stamp passes.
+ALTER TABLE cart_event_outbox ADD COLUMN claimed_until timestamp(6) with time zone;
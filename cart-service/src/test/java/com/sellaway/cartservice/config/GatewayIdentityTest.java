@@ -0,0 +1,79 @@
+package com.sellaway.cartservice.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayIdentityTest {
+
+    private static final String SECRET = "test-gateway-identity-secret-0123456789";
+
+    private TokenRevocationList revocationList;
+    private GatewayIdentity gatewayIdentity;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList(1_000);
+        gatewayIdentity = new GatewayIdentity(SECRET, revocationList);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void acceptsHeaderSignedByTheGateway() {
+        assertEquals("customer-1", gatewayIdentity.authenticate(header(SECRET, "customer-1", "jti-1", now - 1_000, now + 60_000)));
+    }
+
+    @Test
+    void rejectsForgedOrTamperedHeader() {
+        assertNull(gatewayIdentity.authenticate(header("some-other-secret-0123456789abcdef", "customer-1", "jti-1", now, now + 60_000)));
+
+        String valid = header(SECRET, "customer-1", "jti-1", now, now + 60_000);
+        assertNull(gatewayIdentity.authenticate(valid.replace("customer-1", "customer-2")));
+        assertNull(gatewayIdentity.authenticate("customer-1;jti-1;" + now));
+        assertNull(gatewayIdentity.authenticate("not a header"));
+    }
+
+    @Test
+    void rejectsExpiredOrRevokedIdentity() {
+        assertNull(gatewayIdentity.authenticate(header(SECRET, "customer-1", "jti-1", now - 120_000, now - 60_000)));
+
+        revocationList.revokeToken("jti-2", now + 60_000);
+        assertNull(gatewayIdentity.authenticate(header(SECRET, "customer-1", "jti-2", now - 1_000, now + 60_000)));
+
+        revocationList.revokeUser("customer-3", now, now + 60_000);
+        assertNull(gatewayIdentity.authenticate(header(SECRET, "customer-3", "jti-3", now - 1_000, now + 60_000)));
+        assertEquals("customer-3", gatewayIdentity.authenticate(header(SECRET, "customer-3", "jti-4", now + 1_000, now + 60_000)));
+    }
+
+    @Test
+    void ignoresHeaderWhenNoSecretIsConfigured() {
+        GatewayIdentity disabled = new GatewayIdentity("", revocationList);
+
+        assertFalse(disabled.isEnabled());
+        assertNull(disabled.authenticate(header("", "customer-1", "jti-1", now, now + 60_000)));
+    }
+
+    @Test
+    void rejectsShortSecret() {
+        assertThrows(IllegalStateException.class, () -> new GatewayIdentity("too-short-for-hmac", revocationList));
+    }
+
+    // Same format as the api-gateway's IdentityHeader
+    private static String header(String secret, String customerId, String jti, long issuedAt, long expiresAt) {
+        String payload = customerId + ';' + jti + ';' + issuedAt + ';' + expiresAt;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.isEmpty() ? new byte[1] : secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return payload + ';' + Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
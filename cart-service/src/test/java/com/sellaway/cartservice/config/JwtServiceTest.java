@@ -0,0 +1,170 @@
+package com.sellaway.cartservice.config;
+
+import com.sellaway.common.jwt.JwksKeyProvider;
+import com.sellaway.common.jwt.JwtClaimsCache;
+import com.sellaway.common.jwt.JwtVerifier;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "YourVerySecretKeyWhichShouldBeLongAndSecureAndStoredSafelyPreferablyNotInCodebase";
+
+    private JwtClaimsCache claimsCache;
+    private TokenRevocationList revocationList;
+    private JwtService jwtService;
+    private KeyPair signingKey;
+    private Faker faker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        faker = new Faker();
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        signingKey = generator.generateKeyPair();
+        claimsCache = new JwtClaimsCache(3);
+        revocationList = new TokenRevocationList(100);
+        jwtService = new JwtService(new JwtVerifier(claimsCache, JwksKeyProvider.fixed(Map.of("key-1", signingKey.getPublic())), SECRET),
+                revocationList);
+    }
+
+    @Test
+    void validTokenIsVerifiedOnceAndServedFromCache() {
+        String customerId = faker.internet().uuid();
+        String token = token(customerId, 60_000);
+
+        assertTrue(jwtService.isTokenValid(token));
+        assertEquals(customerId, jwtService.extractCustomerId(token));
+        assertSame(jwtService.verify(token), jwtService.verify(token));
+        assertEquals(1, claimsCache.size());
+    }
+
+    @Test
+    void authenticateCountsCacheHitsAndMisses() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtService counted = new JwtService(new JwtVerifier(new JwtClaimsCache(3, "cart.auth.jwt.cache", meterRegistry),
+                JwksKeyProvider.fixed(Map.of("key-1", signingKey.getPublic())), SECRET), revocationList);
+        String customerId = faker.internet().uuid();
+        String token = es256Token(customerId, "key-1", signingKey);
+
+        assertEquals(customerId, counted.authenticate(token).getCustomerId());
+        assertEquals(customerId, counted.authenticate(token).getCustomerId());
+        assertNull(counted.authenticate(es256Token(customerId, "key-2", signingKey)));
+
+        assertEquals(1, meterRegistry.get("cart.auth.jwt.cache").tag("result", "hit").counter().count());
+        assertEquals(2, meterRegistry.get("cart.auth.jwt.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void expiredTokenIsInvalidAndNotCached() {
+        String token = token(faker.internet().uuid(), -1_000);
+
+        assertFalse(jwtService.isTokenValid(token));
+        assertNull(jwtService.extractCustomerId(token));
+        assertEquals(0, claimsCache.size());
+    }
+
+    @Test
+    void tamperedTokenIsInvalidAndNotCached() {
+        String token = token(faker.internet().uuid(), 60_000);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertFalse(jwtService.isTokenValid(tampered));
+        assertEquals(0, claimsCache.size());
+    }
+
+    @Test
+    void cacheStaysWithinMaxSize() {
+        for (int i = 0; i < 10; i++) {
+            String customerId = faker.internet().uuid();
+            assertEquals(customerId, jwtService.extractCustomerId(token(customerId, 60_000)));
+        }
+
+        assertTrue(claimsCache.size() <= 3);
+    }
+
+    @Test
+    void disabledCacheStillVerifies() {
+        JwtService uncached = new JwtService(new JwtVerifier(new JwtClaimsCache(0), JwksKeyProvider.fixed(Map.of()), SECRET), revocationList);
+        String customerId = faker.internet().uuid();
+
+        assertTrue(uncached.isTokenValid(token(customerId, 60_000)));
+        assertEquals(customerId, uncached.extractCustomerId(token(customerId, 60_000)));
+    }
+
+    @Test
+    void es256TokenIsVerifiedWithTheKeyNamedByKid() {
+        String customerId = faker.internet().uuid();
+
+        assertTrue(jwtService.isTokenValid(es256Token(customerId, "key-1", signingKey)));
+        assertEquals(customerId, jwtService.extractCustomerId(es256Token(customerId, "key-1", signingKey)));
+    }
+
+    @Test
+    void es256TokenWithUnknownKidOrWrongKeyIsInvalid() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair otherKey = generator.generateKeyPair();
+
+        assertFalse(jwtService.isTokenValid(es256Token(faker.internet().uuid(), "key-2", signingKey)));
+        assertFalse(jwtService.isTokenValid(es256Token(faker.internet().uuid(), "key-1", otherKey)));
+        assertEquals(0, claimsCache.size());
+    }
+
+    @Test
+    void hs256IsRejectedWithoutSecret() {
+        JwtService es256Only = new JwtService(new JwtVerifier(claimsCache, JwksKeyProvider.fixed(Map.of()), ""), revocationList);
+
+        assertFalse(es256Only.isTokenValid(token(faker.internet().uuid(), 60_000)));
+    }
+
+    @Test
+    void revokedTokenIsInvalidEvenWhenCached() {
+        String token = es256Token(faker.internet().uuid(), "key-1", signingKey);
+        assertTrue(jwtService.isTokenValid(token));
+
+        revocationList.revokeToken(jwtService.verify(token).getJti(), System.currentTimeMillis() + 60_000);
+
+        assertFalse(jwtService.isTokenValid(token));
+    }
+
+    private String es256Token(String customerId, String kid, KeyPair key) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setHeaderParam("kid", kid)
+                .setClaims(Map.of("customerId", customerId))
+                .setId(faker.internet().uuid())
+                .setSubject(faker.name().username())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 60_000))
+                .signWith(key.getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+    }
+
+    private String token(String customerId, long ttlMillis) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setClaims(Map.of("customerId", customerId))
+                .setSubject(faker.name().username())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + ttlMillis))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
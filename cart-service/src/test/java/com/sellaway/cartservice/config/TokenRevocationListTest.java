@@ -0,0 +1,88 @@
+package com.sellaway.cartservice.config;
+
+import com.sellaway.common.jwt.VerifiedJwt;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    private TokenRevocationList revocationList;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList(1_000);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void revokesSingleTokenByJti() {
+        VerifiedJwt revoked = jwt("user-1", now - 1_000);
+        VerifiedJwt other = jwt("user-1", now - 1_000);
+
+        revocationList.revokeToken(revoked.getJti(), now + 60_000);
+
+        assertTrue(revocationList.isRevoked(revoked));
+        assertFalse(revocationList.isRevoked(other));
+    }
+
+    @Test
+    void revokesUserTokensIssuedBeforeTheRevocationOnly() {
+        revocationList.revokeUser("user-1", now, now + 60_000);
+
+        assertTrue(revocationList.isRevoked(jwt("user-1", now - 5_000)));
+        assertFalse(revocationList.isRevoked(jwt("user-1", now + 5_000)));
+        assertFalse(revocationList.isRevoked(jwt("user-2", now - 5_000)));
+    }
+
+    @Test
+    void purgeDropsExpiredRevocationsAndRebuildsFilter() {
+        VerifiedJwt expired = jwt("user-1", now - 1_000);
+        VerifiedJwt live = jwt("user-2", now - 1_000);
+        revocationList.revokeToken(expired.getJti(), now - 1);
+        revocationList.revokeToken(live.getJti(), now + 60_000);
+
+        revocationList.purgeExpired();
+
+        assertEquals(1, revocationList.size());
+        assertFalse(revocationList.isRevoked(expired));
+        assertTrue(revocationList.isRevoked(live));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        TokenRevocationList.BloomFilter filter = new TokenRevocationList.BloomFilter(10_000);
+        String[] keys = new String[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = UUID.randomUUID().toString();
+            filter.put(keys[i]);
+        }
+
+        for (String key : keys) {
+            assertTrue(filter.mightContain(key));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives); // ~1% expected
+    }
+
+    private static VerifiedJwt jwt(String customerId, long issuedAt) {
+        Claims claims = Jwts.claims();
+        claims.setId(UUID.randomUUID().toString());
+        claims.put("customerId", customerId);
+        claims.setIssuedAt(new Date(issuedAt));
+        claims.setExpiration(new Date(issuedAt + 3_600_000));
+        return new VerifiedJwt(claims);
+    }
+}
@@ -41,7 +41,7 @@ class CartGraphQLControllerTest {
         String userId = faker.internet().uuid();
         Cart cart = new Cart();
         cart.setUserId(userId);
-        when(cartService.getCartByUserId(userId)).thenReturn(cart);
+        when(cartService.getCartWithoutItems(userId)).thenReturn(cart);
 
         String query = """
                 query getCart($userId: String!) {
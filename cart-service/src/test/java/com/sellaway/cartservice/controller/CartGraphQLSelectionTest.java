@@ -0,0 +1,128 @@
+package com.sellaway.cartservice.controller;
+
+import com.sellaway.cartservice.client.ProductCatalogClient;
+import com.sellaway.cartservice.config.GraphQLConfig;
+import com.sellaway.cartservice.dto.ProductInfo;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import com.sellaway.cartservice.service.CartService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@GraphQlTest(CartGraphQLController.class)
+@Import(GraphQLConfig.class)
+class CartGraphQLSelectionTest {
+
+    private static final String USER_ID = "user-1";
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @MockBean
+    private CartService cartService;
+
+    @MockBean
+    private ProductCatalogClient productCatalogClient;
+
+    @BeforeEach
+    void setUp() {
+        // what JwtAuthenticationFilter sets for a valid token
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testItemsNotSelectedSkipsItemFetch() {
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setUserId(USER_ID);
+        when(cartService.getCartWithoutItems(USER_ID)).thenReturn(cart);
+
+        graphQlTester.document("{ cart { id userId } }")
+                .execute()
+                .path("cart.userId").entity(String.class).isEqualTo(USER_ID);
+
+        verify(cartService, never()).getCart(anyString());
+        verifyNoInteractions(productCatalogClient);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProductsResolvedInOneBatchedCall() {
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setUserId(USER_ID);
+        for (long i = 1; i <= 3; i++) {
+            CartItem item = new CartItem();
+            item.setId(i);
+            item.setProductId(100 + i);
+            item.setQuantity(1);
+            cart.addItem(item);
+        }
+        when(cartService.getCart(USER_ID)).thenReturn(cart);
+        when(productCatalogClient.getProducts(any())).thenReturn(Map.of(
+                101L, new ProductInfo(101L, "Apple", 1.5),
+                102L, new ProductInfo(102L, "Banana", 0.75)));
+
+        GraphQlTester.Response response = graphQlTester.document("{ cart { items { productId product { name basePrice } } } }")
+                .execute();
+
+        response.path("cart.items[0].product.name").entity(String.class).isEqualTo("Apple");
+        response.path("cart.items[1].product.basePrice").entity(Double.class).isEqualTo(0.75);
+        response.path("cart.items[2].product").valueIsNull();
+        verify(cartService, never()).getCartWithoutItems(anyString());
+        verify(productCatalogClient, times(1)).getProducts(argThat(ids -> ((Collection<Long>) ids).containsAll(Set.of(101L, 102L, 103L))));
+    }
+
+    @Test
+    void testQueryDepthLimit() {
+        graphQlTester.document("{ __schema { types { fields { type { ofType { ofType { ofType { ofType { ofType { ofType { name } } } } } } } } } } }")
+                .execute()
+                .errors()
+                .satisfy(errors -> {
+                    assertEquals(1, errors.size());
+                    assertTrue(errors.get(0).getMessage().contains("depth"), errors.get(0).getMessage());
+                });
+        verifyNoInteractions(cartService, productCatalogClient);
+    }
+
+    @Test
+    void testQueryComplexityLimit() {
+        StringBuilder query = new StringBuilder("{ cart { ");
+        for (int i = 0; i < 210; i++) {
+            query.append("a").append(i).append(": userId ");
+        }
+        query.append("} }");
+
+        graphQlTester.document(query.toString())
+                .execute()
+                .errors()
+                .satisfy(errors -> {
+                    assertEquals(1, errors.size());
+                    assertTrue(errors.get(0).getMessage().contains("complexity"), errors.get(0).getMessage());
+                });
+        verifyNoInteractions(cartService);
+    }
+}
@@ -44,7 +44,7 @@ class CartRestControllerTest {
         String userId = faker.internet().uuid();
         Cart cart = new Cart();
         cart.setUserId(userId);
-        when(cartService.getCartByUserId(userId)).thenReturn(cart);
+        when(cartService.getCart(userId)).thenReturn(cart);
 
         mockMvc.perform(get("/carts/{userId}", userId))
                 .andExpect(status().isOk())
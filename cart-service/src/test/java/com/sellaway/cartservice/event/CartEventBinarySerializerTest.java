@@ -0,0 +1,73 @@
+package com.sellaway.cartservice.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartEventBinarySerializerTest {
+
+    private final CartEventBinarySerializer serializer = new CartEventBinarySerializer();
+    private final CartEventBinaryDeserializer deserializer = new CartEventBinaryDeserializer();
+
+    @Test
+    void testRoundTripKnownTypes() {
+        for (String type : new String[]{"CartItemAdded", "CartItemUpdated", "CartItemRemoved", "CartCleared"}) {
+            CartEvent event = new CartEvent(type, 42L, 1_234_567L);
+            assertEquals(event, roundTrip(event));
+        }
+    }
+
+    @Test
+    void testRoundTripNullsAndUnknownType() {
+        assertEquals(new CartEvent("CartMerged", 7L, null), roundTrip(new CartEvent("CartMerged", 7L, null)));
+        assertEquals(new CartEvent(null, null, null), roundTrip(new CartEvent(null, null, null)));
+        assertEquals(new CartEvent("Ünïcode", Long.MAX_VALUE, Long.MIN_VALUE),
+                roundTrip(new CartEvent("Ünïcode", Long.MAX_VALUE, Long.MIN_VALUE)));
+        assertNull(serializer.serialize(CartEventPublisher.CART_TOPIC, null));
+        assertNull(deserializer.deserialize(CartEventPublisher.CART_TOPIC, null));
+    }
+
+    @Test
+    void testBinaryIsMuchSmallerThanJson() {
+        CartEvent event = new CartEvent("CartItemAdded", 42L, 1_234_567L);
+        byte[] binary = serializer.serialize(CartEventPublisher.CART_TOPIC, event);
+        byte[] json;
+        try (JsonSerializer<CartEvent> jsonSerializer = new JsonSerializer<>()) {
+            json = jsonSerializer.serialize(CartEventPublisher.CART_TOPIC, new RecordHeaders(), event);
+        }
+
+        assertEquals(9, binary.length);
+        assertTrue(binary.length * 5 < json.length, Arrays.toString(binary) + " vs " + json.length);
+    }
+
+    @Test
+    void testFallsBackToJson() {
+        CartEvent event = new CartEvent("CartItemUpdated", 3L, 9L);
+        byte[] json;
+        try (JsonSerializer<CartEvent> jsonSerializer = new JsonSerializer<>()) {
+            json = jsonSerializer.serialize(CartEventPublisher.CART_TOPIC, new RecordHeaders(), event);
+        }
+
+        assertEquals(event, deserializer.deserialize(CartEventPublisher.CART_TOPIC, json));
+    }
+
+    @Test
+    void testRejectsUnsupportedVersionAndTruncatedInput() {
+        byte[] binary = serializer.serialize(CartEventPublisher.CART_TOPIC, new CartEvent("CartItemAdded", 42L, 1L));
+
+        byte[] futureVersion = binary.clone();
+        futureVersion[1] = 2;
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(CartEventPublisher.CART_TOPIC, futureVersion));
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize(CartEventPublisher.CART_TOPIC, Arrays.copyOf(binary, binary.length - 1)));
+    }
+
+    private CartEvent roundTrip(CartEvent event) {
+        return deserializer.deserialize(CartEventPublisher.CART_TOPIC, serializer.serialize(CartEventPublisher.CART_TOPIC, event));
+    }
+}
@@ -0,0 +1,124 @@
+package com.sellaway.cartservice.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(partitions = 3, topics = CartEventPublisher.CART_TOPIC)
+class CartEventPublisherTest {
+
+    private static final int CARTS = 6;
+    private static final int EVENTS_PER_CART = 500;
+
+    private DefaultKafkaProducerFactory<String, CartEvent> producerFactory;
+    private SimpleMeterRegistry meterRegistry;
+    private CartEventPublisher publisher;
+
+    @BeforeEach
+    void setUp(EmbeddedKafkaBroker broker) {
+        // Same tuning as application.yml
+        Map<String, Object> props = new HashMap<>(KafkaTestUtils.producerProps(broker));
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        producerFactory = new DefaultKafkaProducerFactory<>(props);
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new CartEventPublisher(new KafkaTemplate<>(producerFactory), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        producerFactory.destroy();
+    }
+
+    @Test
+    void eventsOfACartStayOnOnePartitionInOrder(EmbeddedKafkaBroker broker) throws Exception {
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        for (long seq = 0; seq < EVENTS_PER_CART; seq++) {
+            for (long cartId = 1; cartId <= CARTS; cartId++) {
+                sends.add(publisher.publish(new CartEvent("CartItemAdded", cartId, seq)));
+            }
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        List<ConsumerRecord<String, CartEvent>> records = consumeAll(broker, CARTS * EVENTS_PER_CART);
+
+        Map<String, Integer> partitionByCart = new HashMap<>();
+        Map<String, Long> lastSeqByCart = new HashMap<>();
+        for (ConsumerRecord<String, CartEvent> record : records) {
+            assertEquals(String.valueOf(record.value().getCartId()), record.key());
+            Integer partition = partitionByCart.putIfAbsent(record.key(), record.partition());
+            assertTrue(partition == null || partition == record.partition(), "cart " + record.key() + " spread over partitions");
+            Long previous = lastSeqByCart.put(record.key(), record.value().getProductId());
+            assertTrue(previous == null || previous < record.value().getProductId(), "cart " + record.key() + " out of order");
+        }
+        assertEquals(CARTS, lastSeqByCart.size());
+        lastSeqByCart.values().forEach(last -> assertEquals(EVENTS_PER_CART - 1, last));
+        assertEquals(CARTS * EVENTS_PER_CART,
+                meterRegistry.get("cart.events.send").tag("result", "success").timer().count());
+    }
+
+    @Test
+    void failedSendCompletesExceptionallyWithoutResending() {
+        AtomicInteger attempts = new AtomicInteger();
+        KafkaTemplate<String, CartEvent> failing = new KafkaTemplate<>(() -> {
+            attempts.incrementAndGet();
+            throw new org.apache.kafka.common.errors.TimeoutException("broker unavailable");
+        });
+        CartEventPublisher failingPublisher = new CartEventPublisher(failing, meterRegistry);
+
+        CompletableFuture<?> result = failingPublisher.publish(new CartEvent("CartCleared", 1L, null));
+
+        assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, attempts.get()); // the outbox relay re-sends from the row, in order
+        assertEquals(1, meterRegistry.get("cart.events.send").tag("result", "failure").timer().count());
+    }
+
+    private List<ConsumerRecord<String, CartEvent>> consumeAll(EmbeddedKafkaBroker broker, int expected) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("cart-event-publisher-test", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        JsonDeserializer<CartEvent> valueDeserializer = new JsonDeserializer<>(CartEvent.class, false);
+        try (Consumer<String, CartEvent> consumer =
+                     new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), valueDeserializer).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, CartEventPublisher.CART_TOPIC);
+            List<ConsumerRecord<String, CartEvent>> records = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (records.size() < expected && System.currentTimeMillis() < deadline) {
+                consumer.poll(Duration.ofMillis(500)).forEach(records::add);
+            }
+            assertEquals(expected, records.size());
+            return records;
+        }
+    }
+}
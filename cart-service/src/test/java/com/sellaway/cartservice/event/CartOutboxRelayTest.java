@@ -0,0 +1,112 @@
+package com.sellaway.cartservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.model.CartOutboxEvent;
+import com.sellaway.cartservice.repository.CartOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartOutboxRelayTest {
+
+    @Mock
+    private CartOutboxRepository outboxRepository;
+
+    @Mock
+    private CartEventPublisher cartEventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CartOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new CartOutboxRelay(outboxRepository, cartEventPublisher, objectMapper, transactionManager, 500, 100, 200, 1_000);
+    }
+
+    @Test
+    void sendsClaimedEventsInOrderThenDeletesThem() throws Exception {
+        List<CartOutboxEvent> pending = List.of(row(1L, 7L, "CartItemAdded", 11L), row(2L, 7L, "CartItemUpdated", 11L), row(3L, 8L, "CartCleared", null));
+        when(outboxRepository.claimCarts(eq(100), any(Instant.class))).thenReturn(List.of(7L, 8L));
+        when(outboxRepository.findByCartIdInOrderByIdAsc(eq(List.of(7L, 8L)), any(Pageable.class))).thenReturn(pending);
+        when(cartEventPublisher.publish(any(CartEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(3, relay.relayBatch());
+
+        ArgumentCaptor<CartEvent> sent = ArgumentCaptor.forClass(CartEvent.class);
+        InOrder inOrder = inOrder(cartEventPublisher, outboxRepository, transactionManager);
+        inOrder.verify(outboxRepository).markClaimed(eq(List.of(1L, 2L, 3L)), any(Instant.class));
+        inOrder.verify(transactionManager).commit(any()); // the claim commits before anything is sent
+        inOrder.verify(cartEventPublisher, times(3)).publish(sent.capture());
+        inOrder.verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        inOrder.verify(transactionManager).commit(any());
+        assertEquals(List.of("CartItemAdded", "CartItemUpdated", "CartCleared"), sent.getAllValues().stream().map(CartEvent::getEventType).toList());
+        verify(outboxRepository, never()).releaseClaims(anyList());
+    }
+
+    @Test
+    void failedSendDeletesTheAckedPrefixAndReleasesTheRest() throws Exception {
+        when(outboxRepository.claimCarts(eq(100), any(Instant.class))).thenReturn(List.of(7L, 8L));
+        when(outboxRepository.findByCartIdInOrderByIdAsc(eq(List.of(7L, 8L)), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, 7L, "CartItemAdded", 11L), row(2L, 7L, "CartItemAdded", 12L), row(3L, 7L, "CartItemAdded", 13L), row(4L, 8L, "CartCleared", null)));
+        when(cartEventPublisher.publish(any(CartEvent.class))).thenReturn(
+                CompletableFuture.completedFuture(null),
+                CompletableFuture.failedFuture(new IllegalStateException("broker down")),
+                CompletableFuture.completedFuture(null), // acked after a failure: sent again so the cart stays in order
+                CompletableFuture.completedFuture(null));
+
+        assertThrows(IllegalStateException.class, () -> relay.relayBatch());
+
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 4L));
+        verify(outboxRepository).releaseClaims(List.of(2L, 3L));
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    void eventsStillInFlightStayClaimed() throws Exception {
+        when(outboxRepository.claimCarts(eq(100), any(Instant.class))).thenReturn(List.of(7L));
+        when(outboxRepository.findByCartIdInOrderByIdAsc(eq(List.of(7L)), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, 7L, "CartItemAdded", 11L), row(2L, 7L, "CartItemAdded", 12L)));
+        when(cartEventPublisher.publish(any(CartEvent.class))).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("broker down")),
+                new CompletableFuture<>()); // never acked within send-timeout-ms
+
+        assertThrows(IllegalStateException.class, () -> relay.relayBatch());
+
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(outboxRepository, never()).releaseClaims(anyList());
+    }
+
+    @Test
+    void emptyOutboxSendsNothing() {
+        when(outboxRepository.claimCarts(eq(100), any(Instant.class))).thenReturn(List.of());
+
+        assertEquals(0, relay.relayBatch());
+
+        verifyNoInteractions(cartEventPublisher);
+        verify(outboxRepository, never()).markClaimed(anyList(), any());
+    }
+
+    private CartOutboxEvent row(Long id, Long cartId, String type, Long productId) throws Exception {
+        CartOutboxEvent row = new CartOutboxEvent(cartId, type, objectMapper.writeValueAsString(new CartEvent(type, cartId, productId)));
+        row.setId(id);
+        return row;
+    }
+}
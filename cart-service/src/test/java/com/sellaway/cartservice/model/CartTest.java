@@ -0,0 +1,118 @@
+package com.sellaway.cartservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartTest {
+
+    @Test
+    void testAddSameProductMergesQuantity() {
+        Cart cart = new Cart();
+
+        CartItem first = cart.addItem(item(null, 100L, 2));
+        CartItem merged = cart.addItem(item(null, 100L, 3));
+
+        assertSame(first, merged);
+        assertEquals(1, cart.getItems().size());
+        assertEquals(5, first.getQuantity());
+        assertSame(first, cart.findItemByProductId(100L));
+    }
+
+    @Test
+    void testFindAndRemoveById() {
+        Cart cart = new Cart();
+        for (long i = 1; i <= 5; i++) {
+            cart.addItem(item(i, 100L + i, 1));
+        }
+
+        CartItem third = cart.findItem(3L);
+        assertEquals(103L, third.getProductId());
+        assertNull(cart.findItem(42L));
+        assertNull(cart.findItem(null));
+
+        cart.removeItem(third);
+
+        assertNull(cart.findItem(3L));
+        assertNull(cart.findItemByProductId(103L));
+        assertEquals(List.of(1L, 2L, 4L, 5L), cart.getItems().stream().map(CartItem::getId).toList());
+    }
+
+    @Test
+    void testRemoveUsesIdentityNotEquals() {
+        Cart cart = new Cart();
+        CartItem original = item(null, 100L, 1);
+        cart.addItem(original);
+
+        cart.removeItem(item(null, 100L, 1)); // equal by @Data, but not a line of this cart
+
+        assertEquals(1, cart.getItems().size());
+        cart.removeItem(original);
+        assertTrue(cart.getItems().isEmpty());
+    }
+
+    @Test
+    void testFindsItemOnceSaveAssignsId() {
+        Cart cart = new Cart();
+        CartItem item = cart.addItem(item(null, 100L, 1));
+
+        item.setId(7L); // what persisting the cart does
+
+        assertSame(item, cart.findItem(7L));
+    }
+
+    @Test
+    void testIndexFollowsReplacedAndExternallyModifiedList() {
+        Cart cart = new Cart();
+        cart.addItem(item(1L, 100L, 1));
+        assertNotNull(cart.findItem(1L));
+
+        // as Hibernate does when it loads the collection
+        List<CartItem> loaded = new ArrayList<>(List.of(item(2L, 200L, 1)));
+        cart.setItems(loaded);
+        assertNull(cart.findItem(1L));
+        assertNotNull(cart.findItem(2L));
+
+        cart.getItems().add(item(3L, 300L, 1));
+        assertNotNull(cart.findItem(3L));
+        assertNotNull(cart.findItemByProductId(300L));
+    }
+
+    @Test
+    void testClearItems() {
+        Cart cart = new Cart();
+        cart.addItem(item(1L, 100L, 1));
+
+        cart.clearItems();
+
+        assertTrue(cart.getItems().isEmpty());
+        assertNull(cart.findItem(1L));
+        cart.addItem(item(2L, 100L, 1));
+        assertEquals(1, cart.getItems().size());
+    }
+
+    @Test
+    void testCopyKeepsLinesVerbatimAndIgnoresIndexesInEquals() {
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.getItems().add(item(1L, 100L, 1));
+        cart.getItems().add(item(2L, 100L, 2)); // legacy duplicate line
+
+        Cart copy = cart.copy();
+        cart.findItem(1L); // builds the indexes on one side only
+
+        assertEquals(cart, copy);
+        assertEquals(2, copy.getItems().size());
+    }
+
+    private static CartItem item(Long id, Long productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setId(id);
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
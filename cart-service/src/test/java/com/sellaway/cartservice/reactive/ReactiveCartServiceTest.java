@@ -0,0 +1,260 @@
+package com.sellaway.cartservice.reactive;
+
+import com.sellaway.cartservice.dto.CartItemOperation;
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import com.sellaway.cartservice.service.CartMetrics;
+import com.sellaway.cartservice.service.CartOperations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCartServiceTest {
+
+    @Mock
+    private ReactiveCartRepository cartRepository;
+
+    @Mock
+    private ReactiveCartEventOutbox cartEventOutbox;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    private ReactiveCartService cartService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private Faker faker;
+
+    @BeforeEach
+    void setUp() {
+        faker = new Faker();
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(transactionManager.getReactiveTransaction(any())).thenAnswer(i -> Mono.just(mock(ReactiveTransaction.class)));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        lenient().when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        cartService = new ReactiveCartService(cartRepository, cartEventOutbox,
+                new ReactiveCartMutationExecutor(transactionManager, 16, 3), new CartMetrics(meterRegistry));
+    }
+
+    @Test
+    void getCartByUserId_NewCart() {
+        String userId = faker.internet().uuid();
+        when(cartRepository.findByUserId(userId)).thenReturn(Mono.empty());
+        when(cartRepository.save(any(Cart.class))).thenAnswer(i -> Mono.just(i.getArguments()[0]));
+
+        StepVerifier.create(cartService.getCartByUserId(userId))
+                .assertNext(cart -> assertEquals(userId, cart.getUserId()))
+                .verifyComplete();
+
+        verify(cartRepository, times(1)).save(any(Cart.class));
+    }
+
+    @Test
+    void getCartWithoutItems_ExistingCartSkipsItems() {
+        String userId = faker.internet().uuid();
+        Cart cart = cart(userId);
+        when(cartRepository.findWithoutItems(userId)).thenReturn(Mono.just(cart));
+
+        StepVerifier.create(cartService.getCartWithoutItems(userId))
+                .expectNext(cart)
+                .verifyComplete();
+
+        verify(cartRepository, never()).findByUserId(userId);
+    }
+
+    @Test
+    void addItemToCart() {
+        String userId = faker.internet().uuid();
+        Cart cart = cart(userId);
+        CartItem item = new CartItem();
+        item.setProductId(faker.number().randomNumber());
+        item.setQuantity(faker.number().numberBetween(1, 5));
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Mono.just(cart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(i -> Mono.just(i.getArguments()[0]));
+        when(cartEventOutbox.record(any(CartEvent.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.addItemToCart(userId, item))
+                .assertNext(result -> {
+                    assertEquals(1, result.getItems().size());
+                    assertEquals(item.getProductId(), result.getItems().get(0).getProductId());
+                })
+                .verifyComplete();
+
+        verify(cartEventOutbox, times(1)).record(new CartEvent("CartItemAdded", null, item.getProductId()));
+    }
+
+    @Test
+    void updateCartItem_NonExistingItemCompletesEmpty() {
+        String userId = faker.internet().uuid();
+        when(cartRepository.findByUserId(userId)).thenReturn(Mono.just(cart(userId)));
+
+        StepVerifier.create(cartService.updateCartItem(userId, faker.number().randomNumber(), 5))
+                .verifyComplete();
+
+        verify(cartRepository, never()).save(any(Cart.class));
+        verifyNoInteractions(cartEventOutbox);
+    }
+
+    @Test
+    void removeItemFromCart_ExistingItem() {
+        String userId = faker.internet().uuid();
+        Cart cart = cart(userId);
+        CartItem item = new CartItem();
+        item.setId(faker.number().randomNumber());
+        item.setProductId(faker.number().randomNumber());
+        item.setQuantity(1);
+        cart.addItem(item);
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Mono.just(cart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(i -> Mono.just(i.getArguments()[0]));
+        when(cartEventOutbox.record(any(CartEvent.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.removeItemFromCart(userId, item.getId()))
+                .assertNext(result -> assertTrue(result.getItems().isEmpty()))
+                .verifyComplete();
+
+        verify(cartEventOutbox, times(1)).record(any(CartEvent.class));
+    }
+
+    @Test
+    void applyCartOperations_InvalidOperationRejectsBatch() {
+        String userId = faker.internet().uuid();
+        when(cartRepository.findByUserId(userId)).thenReturn(Mono.just(cart(userId)));
+
+        List<CartItemOperation> operations = List.of(
+                CartItemOperation.builder().type(CartItemOperation.Type.ADD).productId(300L).quantity(2).build(),
+                CartItemOperation.builder().type(CartItemOperation.Type.REMOVE).itemId(faker.number().randomNumber()).build());
+
+        StepVerifier.create(cartService.applyCartOperations(userId, operations))
+                .verifyError(IllegalArgumentException.class);
+
+        verify(cartRepository, never()).save(any(Cart.class));
+        verifyNoInteractions(cartEventOutbox);
+    }
+
+    @Test
+    void applyCartOperations_TooManyOperations() {
+        CartItemOperation add = CartItemOperation.builder().type(CartItemOperation.Type.ADD).productId(1L).quantity(1).build();
+        List<CartItemOperation> operations = Collections.nCopies(CartOperations.MAX_BATCH_OPERATIONS + 1, add);
+
+        StepVerifier.create(cartService.applyCartOperations(faker.internet().uuid(), operations))
+                .verifyError(IllegalArgumentException.class);
+
+        verifyNoInteractions(cartRepository, cartEventOutbox);
+    }
+
+    @Test
+    void clearCart() {
+        String userId = faker.internet().uuid();
+        Cart cart = cart(userId);
+        CartItem item = new CartItem();
+        item.setId(faker.number().randomNumber());
+        item.setProductId(faker.number().randomNumber());
+        item.setQuantity(1);
+        cart.addItem(item);
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Mono.just(cart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(i -> Mono.just(i.getArguments()[0]));
+        when(cartEventOutbox.record(any(CartEvent.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.clearCart(userId)).verifyComplete();
+
+        assertTrue(cart.getItems().isEmpty());
+        verify(cartEventOutbox, times(1)).record(new CartEvent("CartCleared", null, null));
+    }
+
+    @Test
+    void addItemToCart_VersionConflictReappliesToFreshCart() {
+        String userId = faker.internet().uuid();
+        CartItem item = new CartItem();
+        item.setProductId(faker.number().randomNumber());
+        item.setQuantity(2);
+
+        when(cartRepository.findByUserId(userId)).thenAnswer(i -> Mono.just(cart(userId)));
+        when(cartRepository.save(any(Cart.class)))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("stale")))
+                .thenAnswer(i -> Mono.just(i.getArguments()[0]));
+        when(cartEventOutbox.record(any(CartEvent.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.addItemToCart(userId, item))
+                .assertNext(result -> assertEquals(2, result.getItems().get(0).getQuantity()))
+                .verifyComplete();
+
+        verify(cartRepository, times(2)).findByUserId(userId);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(1, meterRegistry.get("cart.operations").tags("operation", "add", "result", "success").timer().count());
+    }
+
+    @Test
+    void updateCartItem_VersionConflictPropagates() {
+        String userId = faker.internet().uuid();
+        Cart cart = cart(userId);
+        CartItem item = new CartItem();
+        item.setId(faker.number().randomNumber());
+        item.setProductId(faker.number().randomNumber());
+        item.setQuantity(1);
+        cart.addItem(item);
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Mono.just(cart));
+        when(cartRepository.save(any(Cart.class))).thenReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+        StepVerifier.create(cartService.updateCartItem(userId, item.getId(), 4))
+                .verifyError(OptimisticLockingFailureException.class);
+
+        verify(cartRepository, times(1)).save(any(Cart.class));
+        assertEquals(1, meterRegistry.get("cart.operations").tags("operation", "update", "result", "failure").timer().count());
+    }
+
+    @Test
+    void mutationsOfOneUserRunOneAtATime() {
+        String userId = faker.internet().uuid();
+        Sinks.One<Cart> firstSave = Sinks.one();
+        when(cartRepository.findByUserId(userId)).thenAnswer(i -> Mono.just(cart(userId)));
+        when(cartRepository.save(any(Cart.class)))
+                .thenReturn(firstSave.asMono())
+                .thenAnswer(i -> Mono.just(i.getArguments()[0]));
+        when(cartEventOutbox.record(any(CartEvent.class))).thenReturn(Mono.empty());
+
+        AtomicBoolean secondDone = new AtomicBoolean();
+        cartService.clearCart(userId).subscribe();
+        cartService.getCartByUserId(userId).subscribe(); // reads aren't serialized
+        cartService.clearCart(userId).subscribe(null, null, () -> secondDone.set(true));
+
+        // The second clear hasn't read the cart while the first one is still saving
+        verify(cartRepository, times(2)).findByUserId(userId);
+        assertFalse(secondDone.get());
+
+        firstSave.tryEmitValue(cart(userId));
+        verify(cartRepository, times(3)).findByUserId(userId);
+        assertTrue(secondDone.get());
+    }
+
+    private static Cart cart(String userId) {
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        return cart;
+    }
+}
@@ -0,0 +1,226 @@
+package com.sellaway.cartservice.repository;
+
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        // The migrations are PostgreSQL (partitioning); H2 gets the schema from Hibernate
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.sellaway.cartservice.repository.RecordingStatementInspector"
+})
+class CartRepositoryTest {
+
+    private static final String USER_ID = "user-1";
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long cartId;
+
+    @BeforeEach
+    void setUp() {
+        Cart cart = new Cart();
+        cart.setUserId(USER_ID);
+        for (long productId = 1; productId <= 3; productId++) {
+            CartItem item = new CartItem();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            cart.addItem(item);
+        }
+        cartId = entityManager.persistAndFlush(cart).getId();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        RecordingStatementInspector.clear();
+    }
+
+    @Test
+    void testReadPathIsOneQuery() {
+        Cart cart = cartRepository.findReadOnlyByUserId(USER_ID).orElseThrow();
+
+        assertEquals(3, cart.getItems().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testWritePathFetchesItemsInOneQuery() {
+        Cart cart = cartRepository.findByUserId(USER_ID).orElseThrow();
+
+        assertEquals(3, cart.getItems().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testSummaryReadsOnlyTheCartRow() {
+        CartRepository.CartSummary summary = cartRepository.findSummaryByUserId(USER_ID).orElseThrow();
+
+        assertEquals(cartId, summary.getId());
+        assertEquals(USER_ID, summary.getUserId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testLazyLoadWouldCostTwoQueries() {
+        Cart cart = cartRepository.findById(cartId).orElseThrow();
+
+        assertEquals(3, cart.getItems().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testReadPathIsNotDirtyChecked() {
+        Cart cart = cartRepository.findReadOnlyByUserId(USER_ID).orElseThrow();
+        cart.getItems().get(0).setQuantity(99);
+        entityManager.flush();
+
+        assertEquals(0, statistics.getEntityUpdateCount());
+        entityManager.clear();
+        assertEquals(1, cartRepository.findByUserId(USER_ID).orElseThrow().getItems().get(0).getQuantity());
+    }
+
+    @Test
+    void testUserIdIsIndexed() {
+        // A unique index is created as a unique constraint of that name, backed by an index
+        Number constraints = (Number) entityManager.getEntityManager()
+                .createNativeQuery("select count(*) from information_schema.table_constraints"
+                        + " where lower(constraint_name) = 'idx_cart_user_id' and constraint_type = 'UNIQUE'")
+                .getSingleResult();
+
+        assertEquals(1, constraints.intValue());
+    }
+
+    @Test
+    void testItemChangeBumpsCartVersion() {
+        Cart cart = cartRepository.findByUserId(USER_ID).orElseThrow();
+        long version = cart.getVersion();
+        cart.getItems().get(0).setQuantity(5);
+        cart.markModified(); // the item row alone wouldn't touch the cart row
+        cartRepository.saveAndFlush(cart);
+        entityManager.clear();
+
+        assertEquals(version + 1, cartRepository.findByUserId(USER_ID).orElseThrow().getVersion());
+    }
+
+    @Test
+    void testStaleVersionIsRejected() {
+        Cart stale = cartRepository.findReadOnlyByUserId(USER_ID).orElseThrow().copy();
+        entityManager.clear();
+        Cart current = cartRepository.findByUserId(USER_ID).orElseThrow();
+        current.markModified();
+        cartRepository.saveAndFlush(current);
+        entityManager.clear();
+
+        stale.markModified();
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> cartRepository.saveAndFlush(stale));
+    }
+
+    @Test
+    void testNewCartIsInsertedInBatches() {
+        Cart cart = new Cart();
+        cart.setUserId("user-2");
+        for (long productId = 1; productId <= 20; productId++) {
+            CartItem item = new CartItem();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            cart.addItem(item);
+        }
+        cartRepository.saveAndFlush(cart);
+
+        assertEquals(21, statistics.getEntityInsertCount());
+        assertEquals(1, RecordingStatementInspector.count("insert into cart ("), RecordingStatementInspector.statements()::toString);
+        // One batch for all items, each carrying its cart_id: no per-row insert, no follow-up UPDATE
+        assertEquals(1, RecordingStatementInspector.count("insert into cart_item"), RecordingStatementInspector.statements()::toString);
+        assertEquals(0, RecordingStatementInspector.count("update cart_item"), RecordingStatementInspector.statements()::toString);
+    }
+
+    @Test
+    void testItemsAddedToExistingCartAreOneBatch() {
+        Cart cart = cartRepository.findByUserId(USER_ID).orElseThrow();
+        for (long productId = 100; productId < 120; productId++) {
+            CartItem item = new CartItem();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            cart.addItem(item);
+        }
+        cart.markModified();
+        cartRepository.saveAndFlush(cart);
+
+        assertEquals(20, statistics.getEntityInsertCount());
+        assertEquals(1, RecordingStatementInspector.count("insert into cart_item"), RecordingStatementInspector.statements()::toString);
+        assertEquals(0, RecordingStatementInspector.count("update cart_item"), RecordingStatementInspector.statements()::toString);
+        assertEquals(1, RecordingStatementInspector.count("update cart "), RecordingStatementInspector.statements()::toString); // version bump
+        // with the partition key, so Postgres only touches the user's partition
+        String update = RecordingStatementInspector.statements().stream().filter(sql -> sql.startsWith("update cart ")).findFirst().orElseThrow();
+        assertTrue(update.substring(update.indexOf(" where ")).contains("user_id=?"), update);
+    }
+
+    @Test
+    void testRemovedItemIsDeleted() {
+        Cart cart = cartRepository.findByUserId(USER_ID).orElseThrow();
+        cart.removeItem(cart.getItems().get(0));
+        cart.markModified();
+        cartRepository.saveAndFlush(cart);
+        entityManager.clear();
+
+        assertEquals(1, RecordingStatementInspector.count("delete from cart_item"), RecordingStatementInspector.statements()::toString);
+        assertItemStatementHasPartitionKey("delete from cart_item");
+        assertEquals(2, cartRepository.findByUserId(USER_ID).orElseThrow().getItems().size());
+    }
+
+    @Test
+    void testItemUpdateHasPartitionKey() {
+        Cart cart = cartRepository.findByUserId(USER_ID).orElseThrow();
+        cart.getItems().get(0).setQuantity(7);
+        cart.markModified();
+        cartRepository.saveAndFlush(cart);
+
+        assertItemStatementHasPartitionKey("update cart_item");
+    }
+
+    @Test
+    void testMergedCopyUpdatesItemsInTheirPartition() {
+        // The write-behind store saves detached copies; lines added to them get the cart's id too
+        Cart copy = cartRepository.findReadOnlyByUserId(USER_ID).orElseThrow().copy();
+        entityManager.clear();
+        copy.getItems().get(0).setQuantity(7);
+        CartItem added = new CartItem();
+        added.setProductId(100L);
+        added.setQuantity(1);
+        copy.addItem(added);
+        copy.markModified();
+        cartRepository.saveAndFlush(copy);
+        entityManager.clear();
+
+        assertItemStatementHasPartitionKey("update cart_item");
+        Cart cart = cartRepository.findByUserId(USER_ID).orElseThrow();
+        assertEquals(7, cart.findItemByProductId(1L).getQuantity());
+        assertEquals(cartId, cart.findItemByProductId(100L).getCartId());
+    }
+
+    private static void assertItemStatementHasPartitionKey(String prefix) {
+        String sql = RecordingStatementInspector.statements().stream().filter(s -> s.startsWith(prefix)).findFirst().orElseThrow();
+        assertTrue(sql.substring(sql.indexOf(" where ")).contains("cart_id=?"), sql);
+    }
+}
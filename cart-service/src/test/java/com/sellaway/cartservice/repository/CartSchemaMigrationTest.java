@@ -0,0 +1,114 @@
+package com.sellaway.cartservice.repository;
+
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The schema as production gets it: the Flyway migrations on PostgreSQL (application-test.yml), run
+ * over tables in the shape ddl-auto left them before the migrations, then Hibernate's {@code validate}
+ * of the entities against the result. Runs in its own schema, cleaned before every run.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.flyway.schemas=" + CartSchemaMigrationTest.SCHEMA,
+        "spring.flyway.clean-disabled=false",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.default_schema=" + CartSchemaMigrationTest.SCHEMA
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class CartSchemaMigrationTest {
+
+    static final String SCHEMA = "cart_migration_test";
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class LegacySchema {
+
+        // Tables and rows as the service wrote them with ddl-auto: identity ids, and two carts for user-1
+        // whose lines overlap on product 10
+        @Bean
+        FlywayMigrationStrategy migrateFromLegacyTables() {
+            return flyway -> {
+                flyway.clean();
+                JdbcTemplate jdbc = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+                jdbc.execute("create schema if not exists " + SCHEMA);
+                jdbc.execute("create table " + SCHEMA + ".cart (id bigint generated by default as identity primary key, user_id varchar(255))");
+                jdbc.execute("create table " + SCHEMA + ".cart_item (id bigint generated by default as identity primary key,"
+                        + " product_id bigint, quantity integer not null, cart_id bigint references " + SCHEMA + ".cart)");
+                jdbc.execute("insert into " + SCHEMA + ".cart (id, user_id) values (1, 'user-1'), (2, 'user-1'), (3, 'user-2')");
+                jdbc.execute("insert into " + SCHEMA + ".cart_item (id, product_id, quantity, cart_id) values"
+                        + " (1, 10, 1, 1), (2, 11, 2, 1), (3, 10, 3, 2), (4, 12, 1, 2), (5, 10, 5, 3), (6, null, 1, null)");
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Test
+    void testDuplicateCartsAreMergedWithOneLinePerProduct() {
+        Cart cart = cartRepository.findByUserId("user-1").orElseThrow();
+
+        assertEquals(1L, cart.getId()); // the oldest
+        List<Map<String, Object>> items = jdbcTemplate.queryForList(
+                "select id, product_id, quantity from " + SCHEMA + ".cart_item where cart_id = 1 order by id");
+        assertEquals(List.of(
+                Map.of("id", 1L, "product_id", 10L, "quantity", 4),
+                Map.of("id", 2L, "product_id", 11L, "quantity", 2),
+                Map.of("id", 4L, "product_id", 12L, "quantity", 1)), items);
+        assertEquals(3, cart.getItems().size());
+        assertEquals(5, cartRepository.findByUserId("user-2").orElseThrow().getItems().get(0).getQuantity());
+        // Detached lines are dropped by V1, the second cart by V2
+        assertEquals(4, jdbcTemplate.queryForObject("select count(*) from " + SCHEMA + ".cart_item", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from " + SCHEMA + ".cart", Integer.class));
+    }
+
+    @Test
+    void testTablesArePartitioned() {
+        String partitions = "select count(*) from pg_inherits where inhparent = ?::regclass";
+
+        assertEquals(16, jdbcTemplate.queryForObject(partitions, Integer.class, SCHEMA + ".cart"));
+        assertEquals(16, jdbcTemplate.queryForObject(partitions, Integer.class, SCHEMA + ".cart_item"));
+    }
+
+    @Test
+    void testNewCartsTakeIdsAboveTheMigratedOnes() {
+        Cart cart = new Cart();
+        cart.setUserId("user-3");
+        cart = cartRepository.saveAndFlush(cart); // saved first, as CartService does, so its lines get the partition key
+        CartItem item = new CartItem();
+        item.setProductId(10L);
+        item.setQuantity(1);
+        cart.addItem(item);
+        cart.markModified();
+        cart = cartRepository.saveAndFlush(cart);
+        CartItem line = cart.getItems().get(0); // the merged copy of the new line
+
+        assertTrue(cart.getId() > 3);
+        assertTrue(line.getId() > 6);
+        // Updated in the same session: the item's UPDATE carries cart_id in its WHERE and must still hit the row
+        line.setQuantity(7);
+        cart.markModified();
+        cartRepository.saveAndFlush(cart);
+        assertEquals(7, jdbcTemplate.queryForObject("select quantity from " + SCHEMA + ".cart_item where cart_id = ?",
+                Integer.class, cart.getId()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.sellaway.cartservice.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Records the SQL of every statement Hibernate prepares; a JDBC batch is prepared (and recorded) once
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql.toLowerCase());
+        return sql;
+    }
+
+    static void clear() {
+        statements.clear();
+    }
+
+    static long count(String prefix) {
+        return statements.stream().filter(sql -> sql.startsWith(prefix)).count();
+    }
+
+    static List<String> statements() {
+        return List.copyOf(statements);
+    }
+}
@@ -0,0 +1,145 @@
+package com.sellaway.cartservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.event.CartEventOutbox;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import com.sellaway.cartservice.repository.CartOutboxRepository;
+import com.sellaway.cartservice.repository.CartRepository;
+import com.sellaway.cartservice.store.JpaCartStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Real transactions against H2 from many threads; each CartService built here stands for one instance
+// The migrations are PostgreSQL (partitioning); H2 gets the schema from Hibernate
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 25;
+    private static final long PRODUCT_ID = 42L;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartOutboxRepository cartOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        cartOutboxRepository.deleteAll();
+        cartRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentAddsOnOneInstanceAreNotLost() throws Exception {
+        CartService cartService = instance(3);
+
+        runConcurrently(THREADS, thread -> cartService.addItemToCart(thread % 2 == 0 ? "user-a" : "user-b", item()));
+
+        assertQuantity("user-a", THREADS / 2 * ADDS_PER_THREAD);
+        assertQuantity("user-b", THREADS / 2 * ADDS_PER_THREAD);
+        assertEquals(THREADS * ADDS_PER_THREAD, cartOutboxRepository.count());
+    }
+
+    @Test
+    void concurrentAddsAcrossInstancesAreMergedOnConflict() throws Exception {
+        // Separate lock stripes, so only the version check stands between the two; enough attempts for a hot cart
+        CartService first = instance(100);
+        CartService second = instance(100);
+
+        runConcurrently(THREADS, thread -> (thread % 2 == 0 ? first : second).addItemToCart("user-a", item()));
+
+        assertQuantity("user-a", THREADS * ADDS_PER_THREAD);
+        assertEquals(THREADS * ADDS_PER_THREAD, cartOutboxRepository.count());
+    }
+
+    @Test
+    void concurrentFirstVisitsCreateOneCart() throws Exception {
+        CartService first = instance(3);
+        CartService second = instance(3);
+
+        runConcurrently(THREADS, thread -> (thread % 2 == 0 ? first : second).getCart("user-" + (thread / 2) % 2));
+
+        assertEquals(2, cartRepository.count());
+    }
+
+    @Test
+    void userIdIsUnique() {
+        Cart cart = new Cart();
+        cart.setUserId("user-a");
+        cartRepository.saveAndFlush(cart);
+        Cart duplicate = new Cart();
+        duplicate.setUserId("user-a");
+
+        assertThrows(DataIntegrityViolationException.class, () -> cartRepository.saveAndFlush(duplicate));
+    }
+
+    private CartService instance(int maxAttempts) {
+        JpaCartStore cartStore = new JpaCartStore(cartRepository, new CartEventOutbox(cartOutboxRepository, new ObjectMapper()));
+        return new CartService(cartStore, new CartVersionCache(2000, 1000),
+                new CartMutationExecutor(transactionManager, cartStore, 1024, maxAttempts), new CartMetrics(new SimpleMeterRegistry()));
+    }
+
+    private void assertQuantity(String userId, int expected) {
+        Cart cart = cartRepository.findReadOnlyByUserId(userId).orElseThrow();
+        assertEquals(1, cart.getItems().size());
+        assertEquals(expected, cart.getItems().get(0).getQuantity());
+    }
+
+    private static CartItem item() {
+        CartItem item = new CartItem();
+        item.setProductId(PRODUCT_ID);
+        item.setQuantity(1);
+        return item;
+    }
+
+    private static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        task.run(thread);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS); // rethrows any failure of the thread
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
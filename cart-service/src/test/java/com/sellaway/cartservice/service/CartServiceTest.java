@@ -1,18 +1,23 @@
 package com.sellaway.cartservice.service;
 
+import com.sellaway.cartservice.dto.CartItemOperation;
 import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.event.CartEventOutbox;
 import com.sellaway.cartservice.model.Cart;
 import com.sellaway.cartservice.model.CartItem;
 import com.sellaway.cartservice.repository.CartRepository;
+import com.sellaway.cartservice.store.JpaCartStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import net.datafaker.Faker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,16 +32,24 @@ class CartServiceTest {
     private CartRepository cartRepository;
 
     @Mock
-    private KafkaTemplate<String, CartEvent> kafkaTemplate;
+    private CartEventOutbox cartEventOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
-    @InjectMocks
     private CartService cartService;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private Faker faker;
 
     @BeforeEach
     void setUp() {
         faker = new Faker();
+        meterRegistry = new SimpleMeterRegistry();
+        JpaCartStore cartStore = new JpaCartStore(cartRepository, cartEventOutbox);
+        cartService = new CartService(cartStore, new CartVersionCache(2000, 1000),
+                new CartMutationExecutor(transactionManager, cartStore, 16, 3), new CartMetrics(meterRegistry));
     }
 
     @Test
@@ -68,6 +81,33 @@ class CartServiceTest {
         verify(cartRepository, times(1)).save(any(Cart.class));
     }
 
+    @Test
+    void getCart_ExistingCartUsesReadPath() {
+        String userId = faker.internet().uuid();
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        when(cartRepository.findReadOnlyByUserId(userId)).thenReturn(Optional.of(cart));
+
+        Cart result = cartService.getCart(userId);
+
+        assertSame(cart, result);
+        verify(cartRepository, never()).findByUserId(userId);
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
+    @Test
+    void getCart_NewCartIsCreated() {
+        String userId = faker.internet().uuid();
+        when(cartRepository.findReadOnlyByUserId(userId)).thenReturn(Optional.empty());
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.empty());
+        when(cartRepository.save(any(Cart.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        Cart result = cartService.getCart(userId);
+
+        assertEquals(userId, result.getUserId());
+        verify(cartRepository, times(1)).save(any(Cart.class));
+    }
+
     @Test
     void addItemToCart() {
         String userId = faker.internet().uuid();
@@ -87,7 +127,10 @@ class CartServiceTest {
         assertEquals(item.getProductId(), result.getItems().get(0).getProductId());
         verify(cartRepository, times(1)).findByUserId(userId);
         verify(cartRepository, times(1)).save(any(Cart.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), any(CartEvent.class));
+        verify(cartEventOutbox, times(1)).record(any(CartEvent.class));
+        assertEquals(1, meterRegistry.get("cart.operations").tag("operation", "add").tag("result", "success").timer().count());
+        assertEquals(1, meterRegistry.get("cart.size").summary().count());
+        assertEquals(1.0, meterRegistry.get("cart.size").summary().max());
     }
 
     @Test
@@ -110,7 +153,7 @@ class CartServiceTest {
         assertEquals(5, result.getItems().get(0).getQuantity());
         verify(cartRepository, times(1)).findByUserId(userId);
         verify(cartRepository, times(1)).save(any(Cart.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), any(CartEvent.class));
+        verify(cartEventOutbox, times(1)).record(any(CartEvent.class));
     }
 
     @Test
@@ -126,7 +169,7 @@ class CartServiceTest {
         assertNull(result);
         verify(cartRepository, times(1)).findByUserId(userId);
         verify(cartRepository, never()).save(any(Cart.class));
-        verify(kafkaTemplate, never()).send(anyString(), any(CartEvent.class));
+        verify(cartEventOutbox, never()).record(any(CartEvent.class));
     }
 
     @Test
@@ -149,7 +192,7 @@ class CartServiceTest {
         assertEquals(0, result.getItems().size());
         verify(cartRepository, times(1)).findByUserId(userId);
         verify(cartRepository, times(1)).save(any(Cart.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), any(CartEvent.class));
+        verify(cartEventOutbox, times(1)).record(any(CartEvent.class));
     }
 
     @Test
@@ -165,7 +208,7 @@ class CartServiceTest {
         assertNull(result);
         verify(cartRepository, times(1)).findByUserId(userId);
         verify(cartRepository, never()).save(any(Cart.class));
-        verify(kafkaTemplate, never()).send(anyString(), any(CartEvent.class));
+        verify(cartEventOutbox, never()).record(any(CartEvent.class));
     }
 
     @Test
@@ -187,6 +230,165 @@ class CartServiceTest {
         assertEquals(0, cart.getItems().size());
         verify(cartRepository, times(1)).findByUserId(userId);
         verify(cartRepository, times(1)).save(any(Cart.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), any(CartEvent.class));
+        verify(cartEventOutbox, times(1)).record(any(CartEvent.class));
+    }
+
+    @Test
+    void applyCartOperations_SavesOnceAndRecordsOneEvent() {
+        String userId = faker.internet().uuid();
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        CartItem kept = new CartItem();
+        kept.setId(1L);
+        kept.setProductId(100L);
+        kept.setQuantity(1);
+        CartItem removed = new CartItem();
+        removed.setId(2L);
+        removed.setProductId(200L);
+        removed.setQuantity(1);
+        cart.addItem(kept);
+        cart.addItem(removed);
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        Cart result = cartService.applyCartOperations(userId, List.of(
+                CartItemOperation.builder().type(CartItemOperation.Type.ADD).productId(300L).quantity(2).build(),
+                CartItemOperation.builder().type(CartItemOperation.Type.ADD).productId(400L).quantity(1).build(),
+                CartItemOperation.builder().type(CartItemOperation.Type.UPDATE).itemId(1L).quantity(7).build(),
+                CartItemOperation.builder().type(CartItemOperation.Type.REMOVE).itemId(2L).build()));
+
+        assertEquals(List.of(100L, 300L, 400L), result.getItems().stream().map(CartItem::getProductId).toList());
+        assertEquals(7, result.getItems().get(0).getQuantity());
+        verify(cartRepository, times(1)).findByUserId(userId);
+        verify(cartRepository, times(1)).save(any(Cart.class));
+        verify(cartEventOutbox, times(1)).record(new CartEvent("CartItemsBatchUpdated", null, null));
+    }
+
+    @Test
+    void applyCartOperations_InvalidOperationRejectsBatch() {
+        String userId = faker.internet().uuid();
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+
+        List<CartItemOperation> operations = List.of(
+                CartItemOperation.builder().type(CartItemOperation.Type.ADD).productId(300L).quantity(2).build(),
+                CartItemOperation.builder().type(CartItemOperation.Type.REMOVE).itemId(faker.number().randomNumber()).build());
+
+        assertThrows(IllegalArgumentException.class, () -> cartService.applyCartOperations(userId, operations));
+        verify(cartRepository, never()).save(any(Cart.class));
+        verify(cartEventOutbox, never()).record(any(CartEvent.class));
+    }
+
+    @Test
+    void applyCartOperations_TooManyOperations() {
+        CartItemOperation add = CartItemOperation.builder().type(CartItemOperation.Type.ADD).productId(1L).quantity(1).build();
+        List<CartItemOperation> operations = Collections.nCopies(CartOperations.MAX_BATCH_OPERATIONS + 1, add);
+
+        assertThrows(IllegalArgumentException.class, () -> cartService.applyCartOperations(faker.internet().uuid(), operations));
+        verifyNoInteractions(cartRepository, cartEventOutbox);
+    }
+
+    @Test
+    void getCartWithoutItems_ServedFromVersionCacheAfterRead() {
+        String userId = faker.internet().uuid();
+        Cart cart = new Cart();
+        cart.setId(faker.number().randomNumber());
+        cart.setUserId(userId);
+        cart.setVersion(3L);
+        cart.markModified();
+        when(cartRepository.findReadOnlyByUserId(userId)).thenReturn(Optional.of(cart));
+
+        cartService.getCart(userId);
+        Cart header = cartService.getCartWithoutItems(userId);
+
+        assertEquals(cart.getId(), header.getId());
+        assertEquals(3L, header.getVersion());
+        assertEquals(CartVersionCache.eTag(cart), cartService.getCachedETag(userId));
+        verify(cartRepository, never()).findSummaryByUserId(userId);
+    }
+
+    @Test
+    void addItemToCart_ChangesETag() {
+        String userId = faker.internet().uuid();
+        Cart cart = new Cart();
+        cart.setId(faker.number().randomNumber());
+        cart.setUserId(userId);
+        cart.setVersion(0L);
+        cart.markModified();
+        String before = CartVersionCache.eTag(cart);
+        CartItem item = new CartItem();
+        item.setProductId(faker.number().randomNumber());
+        item.setQuantity(1);
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(i -> {
+            Cart saved = i.getArgument(0);
+            saved.setVersion(saved.getVersion() + 1); // what Hibernate's @Version does on flush
+            return saved;
+        });
+
+        Cart result = cartService.addItemToCart(userId, item);
+
+        assertNotEquals(before, CartVersionCache.eTag(result));
+        assertEquals(CartVersionCache.eTag(result), cartService.getCachedETag(userId));
+    }
+
+    @Test
+    void eTagMatching() {
+        String eTag = "\"4-1700000000000000\"";
+
+        assertTrue(CartVersionCache.matches(eTag, eTag));
+        assertTrue(CartVersionCache.matches("\"1-1\", W/" + eTag, eTag));
+        assertTrue(CartVersionCache.matches("*", eTag));
+        assertFalse(CartVersionCache.matches("\"3-1700000000000000\"", eTag));
+    }
+
+    @Test
+    void addItemToCart_VersionConflictIsReappliedToFreshCart() {
+        String userId = faker.internet().uuid();
+        Cart stale = new Cart();
+        stale.setUserId(userId);
+        Cart fresh = new Cart();
+        fresh.setUserId(userId);
+        CartItem concurrent = new CartItem();
+        concurrent.setId(1L);
+        concurrent.setProductId(100L);
+        concurrent.setQuantity(2);
+        fresh.addItem(concurrent);
+        CartItem item = new CartItem();
+        item.setProductId(100L);
+        item.setQuantity(3);
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(cartRepository.save(any(Cart.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Cart.class, 1L))
+                .thenAnswer(i -> i.getArguments()[0]);
+
+        Cart result = cartService.addItemToCart(userId, item);
+
+        assertSame(fresh, result);
+        assertEquals(5, result.getItems().get(0).getQuantity());
+        verify(cartEventOutbox, times(1)).record(any(CartEvent.class));
+    }
+
+    @Test
+    void updateCartItem_VersionConflictPropagates() {
+        String userId = faker.internet().uuid();
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        CartItem item = new CartItem();
+        item.setId(1L);
+        item.setProductId(100L);
+        item.setQuantity(1);
+        cart.addItem(item);
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartRepository.save(any(Cart.class))).thenThrow(new ObjectOptimisticLockingFailureException(Cart.class, 1L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> cartService.updateCartItem(userId, 1L, 5));
+        verify(cartRepository, times(1)).save(any(Cart.class));
     }
 }
@@ -0,0 +1,342 @@
+package com.sellaway.cartservice.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.cartservice.event.CartEvent;
+import com.sellaway.cartservice.event.CartEventOutbox;
+import com.sellaway.cartservice.model.Cart;
+import com.sellaway.cartservice.model.CartItem;
+import com.sellaway.cartservice.repository.CartRepository;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindCartStoreTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private CartEventOutbox cartEventOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDir;
+
+    private final List<WriteBehindCartStore> stores = new ArrayList<>();
+    private Faker faker;
+
+    @BeforeEach
+    void setUp() {
+        faker = new Faker();
+        lenient().when(cartRepository.saveAll(anyList())).thenAnswer(i -> new ArrayList<>((List<?>) i.getArguments()[0]));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stores.forEach(WriteBehindCartStore::stop);
+    }
+
+    @Test
+    void repeatedSavesOfOneCartCoalesceIntoOneFlush() {
+        WriteBehindCartStore store = newStore();
+        Cart cart = existingCart();
+        when(cartRepository.findByUserId(cart.getUserId())).thenReturn(Optional.of(cart));
+
+        for (int i = 0; i < 10; i++) {
+            Cart loaded = store.findByUserId(cart.getUserId()).orElseThrow();
+            loaded.addItem(item());
+            store.save(loaded);
+        }
+        verify(cartRepository, never()).saveAll(anyList());
+
+        store.flush();
+
+        ArgumentCaptor<List<Cart>> flushed = batchCaptor();
+        verify(cartRepository, times(1)).saveAll(flushed.capture());
+        assertEquals(1, flushed.getValue().size());
+        assertEquals(10, flushed.getValue().get(0).getItems().size());
+        verify(cartRepository, times(1)).findByUserId(cart.getUserId());
+        verify(cartRepository, never()).save(any(Cart.class));
+        assertEquals(0, store.dirtyCount());
+    }
+
+    @Test
+    void newCartIsInsertedImmediately() {
+        WriteBehindCartStore store = newStore();
+        Cart cart = new Cart();
+        cart.setUserId(faker.internet().uuid());
+        when(cartRepository.save(cart)).thenAnswer(i -> {
+            cart.setId(faker.number().randomNumber());
+            return cart;
+        });
+
+        Cart saved = store.save(cart);
+
+        assertNotNull(saved.getId());
+        assertEquals(0, store.dirtyCount());
+        assertEquals(saved.getId(), store.findByUserId(cart.getUserId()).orElseThrow().getId());
+    }
+
+    @Test
+    void callersGetCopiesNotTheCachedSnapshot() {
+        WriteBehindCartStore store = newStore();
+        Cart cart = existingCart();
+        when(cartRepository.findByUserId(cart.getUserId())).thenReturn(Optional.of(cart));
+
+        store.findByUserId(cart.getUserId()).orElseThrow().addItem(item());
+
+        assertTrue(store.findByUserId(cart.getUserId()).orElseThrow().getItems().isEmpty());
+    }
+
+    @Test
+    void unflushedCartsAreReplayedFromTheJournalOnRestart() {
+        WriteBehindCartStore crashed = newStore();
+        Cart cart = existingCart();
+        cart.addItem(item());
+        crashed.save(cart);
+        // no flush and no stop(): the process died here
+
+        WriteBehindCartStore restarted = newStore();
+
+        ArgumentCaptor<List<Cart>> flushed = batchCaptor();
+        verify(cartRepository).saveAll(flushed.capture());
+        assertEquals(cart.getUserId(), flushed.getValue().get(0).getUserId());
+        assertEquals(1, flushed.getValue().get(0).getItems().size());
+        assertEquals(0, restarted.dirtyCount());
+    }
+
+    @Test
+    void failedFlushKeepsCartsDirty() {
+        WriteBehindCartStore store = newStore();
+        when(cartRepository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+        store.save(existingCart());
+
+        store.flush();
+
+        assertEquals(1, store.dirtyCount());
+    }
+
+    @Test
+    void eventsAreWrittenInTheFlushTransactionOfTheirCart() {
+        WriteBehindCartStore store = newStore();
+        Cart cart = existingCart();
+        CartEvent added = new CartEvent("CartItemAdded", cart.getId(), 1L);
+        CartEvent cleared = new CartEvent("CartCleared", cart.getId(), null);
+
+        store.save(cart, added);
+        store.save(cart, cleared);
+        verifyNoInteractions(cartEventOutbox, transactionManager);
+
+        store.flush();
+
+        InOrder inOrder = inOrder(transactionManager, cartRepository, cartEventOutbox);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(cartRepository).saveAll(anyList());
+        inOrder.verify(cartEventOutbox).record(added);
+        inOrder.verify(cartEventOutbox).record(cleared);
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void eventsOfAFailedFlushAreWrittenByTheNextOneInOrder() {
+        WriteBehindCartStore store = newStore();
+        Cart cart = existingCart();
+        CartEvent first = new CartEvent("CartItemAdded", cart.getId(), 1L);
+        CartEvent second = new CartEvent("CartItemAdded", cart.getId(), 2L);
+        when(cartRepository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"))
+                .thenAnswer(i -> new ArrayList<>((List<?>) i.getArguments()[0]));
+
+        store.save(cart, first);
+        store.flush();
+        store.save(cart, second);
+        store.flush();
+
+        InOrder inOrder = inOrder(cartEventOutbox);
+        inOrder.verify(cartEventOutbox).record(first);
+        inOrder.verify(cartEventOutbox).record(second);
+        assertEquals(0, store.dirtyCount());
+    }
+
+    @Test
+    void unflushedEventsAreReplayedFromTheJournalOnRestart() {
+        WriteBehindCartStore crashed = newStore();
+        Cart cart = existingCart();
+        crashed.save(cart, new CartEvent("CartItemAdded", cart.getId(), 1L));
+        crashed.save(cart, new CartEvent("CartItemAdded", cart.getId(), 2L));
+
+        newStore();
+
+        InOrder inOrder = inOrder(cartEventOutbox);
+        inOrder.verify(cartEventOutbox).record(new CartEvent("CartItemAdded", cart.getId(), 1L));
+        inOrder.verify(cartEventOutbox).record(new CartEvent("CartItemAdded", cart.getId(), 2L));
+    }
+
+    @Test
+    void saveDuringAFlushKeepsTheItemIdsTheFlushAssigned() {
+        WriteBehindCartStore store = newStore();
+        Cart cart = existingCart();
+        CartItem first = item();
+        cart.addItem(first);
+        store.save(cart);
+        long[] nextId = {100};
+        when(cartRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<Cart> persisted = new ArrayList<>();
+            for (Object flushed : (List<?>) i.getArguments()[0]) {
+                Cart copy = ((Cart) flushed).copy();
+                copy.getItems().stream().filter(line -> line.getId() == null).forEach(line -> line.setId(nextId[0]++));
+                persisted.add(copy);
+            }
+            if (nextId[0] == 101) {
+                // A request saves on top of the pre-flush snapshot while the first flush is still running
+                Cart newer = store.findByUserId(cart.getUserId()).orElseThrow();
+                newer.addItem(item());
+                store.save(newer);
+            }
+            return persisted;
+        });
+
+        store.flush();
+        store.flush();
+
+        ArgumentCaptor<List<Cart>> flushed = batchCaptor();
+        verify(cartRepository, times(2)).saveAll(flushed.capture());
+        Cart second = flushed.getAllValues().get(1).get(0);
+        assertEquals(100L, second.findItemByProductId(first.getProductId()).getId()); // not inserted again
+        assertEquals(List.of(100L, 101L), store.findByUserId(cart.getUserId()).orElseThrow().getItems().stream().map(CartItem::getId).toList());
+    }
+
+    @Test
+    void cartChangedByAnotherWriterIsNotOverwritten() {
+        WriteBehindCartStore store = newStore();
+        Cart cart = existingCart();
+        cart.setVersion(3L);
+        when(cartRepository.findByUserId(cart.getUserId())).thenReturn(Optional.of(cart));
+        Cart loaded = store.findByUserId(cart.getUserId()).orElseThrow();
+        loaded.addItem(item());
+        store.save(loaded, new CartEvent("CartItemAdded", cart.getId(), 1L));
+        Cart changedElsewhere = cart.copy();
+        changedElsewhere.setVersion(4L);
+        when(cartRepository.findWithItemsByIdIn(List.of(cart.getId()))).thenReturn(List.of(changedElsewhere));
+
+        store.flush();
+
+        ArgumentCaptor<List<Cart>> flushed = batchCaptor();
+        verify(cartRepository).saveAll(flushed.capture());
+        assertTrue(flushed.getValue().isEmpty());
+        verifyNoInteractions(cartEventOutbox);
+        assertEquals(0, store.dirtyCount());
+        store.findByUserId(cart.getUserId());
+        verify(cartRepository, times(2)).findByUserId(cart.getUserId()); // dropped, so reloaded
+    }
+
+    @Test
+    void laterSavesCarryTheVersionAFlushWrote() {
+        WriteBehindCartStore store = newStore();
+        Cart cart = existingCart();
+        cart.setVersion(3L);
+        when(cartRepository.findByUserId(cart.getUserId())).thenReturn(Optional.of(cart));
+        Cart stale = store.findByUserId(cart.getUserId()).orElseThrow(); // read before the flush
+        store.save(store.findByUserId(cart.getUserId()).orElseThrow());
+        when(cartRepository.saveAll(anyList())).thenAnswer(i -> ((List<?>) i.getArguments()[0]).stream().map(flushed -> {
+            Cart persisted = ((Cart) flushed).copy();
+            persisted.setVersion(persisted.getVersion() + 1);
+            return persisted;
+        }).toList());
+        store.flush();
+
+        store.save(stale);
+        Cart atFour = cart.copy();
+        atFour.setVersion(4L);
+        when(cartRepository.findWithItemsByIdIn(List.of(cart.getId()))).thenReturn(List.of(atFour));
+        store.flush();
+
+        ArgumentCaptor<List<Cart>> flushed = batchCaptor();
+        verify(cartRepository, times(2)).saveAll(flushed.capture());
+        assertEquals(4L, flushed.getAllValues().get(1).get(0).getVersion());
+    }
+
+    @Test
+    void evictionDropsOnlyCleanCarts() {
+        WriteBehindCartStore store = newStore(10);
+        Cart dirtyCart = existingCart();
+        store.save(dirtyCart);
+        for (int i = 0; i < 20; i++) {
+            Cart clean = existingCart();
+            when(cartRepository.findByUserId(clean.getUserId())).thenReturn(Optional.of(clean));
+            store.findByUserId(clean.getUserId());
+        }
+
+        store.evict();
+
+        assertTrue(store.size() <= 9, "evicted down to 90% of max-carts, was " + store.size());
+        assertEquals(dirtyCart.getId(), store.findByUserId(dirtyCart.getUserId()).orElseThrow().getId());
+        verify(cartRepository, never()).findByUserId(dirtyCart.getUserId());
+    }
+
+    @Test
+    void fsyncedJournalIsReplayedToo() {
+        WriteBehindCartStore crashed = newStore(100, true);
+        Cart cart = existingCart();
+        crashed.save(cart, new CartEvent("CartCleared", cart.getId(), null));
+
+        newStore(100, true);
+
+        verify(cartEventOutbox).record(new CartEvent("CartCleared", cart.getId(), null));
+    }
+
+    private WriteBehindCartStore newStore() {
+        return newStore(100);
+    }
+
+    private WriteBehindCartStore newStore(int maxCarts) {
+        return newStore(maxCarts, false);
+    }
+
+    private WriteBehindCartStore newStore(int maxCarts, boolean fsync) {
+        WriteBehindCartStore store = new WriteBehindCartStore(cartRepository, cartEventOutbox, transactionManager, new ObjectMapper(),
+                journalDir.toString(), fsync, maxCarts, 1_000, 50, 60_000);
+        store.start();
+        stores.add(store);
+        return store;
+    }
+
+    private Cart existingCart() {
+        Cart cart = new Cart();
+        cart.setId(faker.number().randomNumber());
+        cart.setUserId(faker.internet().uuid());
+        return cart;
+    }
+
+    private CartItem item() {
+        CartItem item = new CartItem();
+        item.setProductId(faker.number().randomNumber());
+        item.setQuantity(1);
+        return item;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Cart>> batchCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,51 @@
+package com.sellaway.common.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/** Reads an encoded event front to back; truncated or malformed input fails with a SerializationException naming the event. */
+public final class BinaryReader {
+
+    private final byte[] data;
+    private final String what;
+    private int pos;
+
+    /** {@code what}: the event class, for error messages. */
+    public BinaryReader(byte[] data, String what) {
+        this.data = data;
+        this.what = what;
+    }
+
+    public String what() {
+        return what;
+    }
+
+    public byte readByte() {
+        if (pos >= data.length) {
+            throw new SerializationException("Truncated " + what);
+        }
+        return data[pos++];
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in " + what);
+    }
+
+    public String readUtf8(int length) {
+        if (length < 0 || pos + length > data.length) {
+            throw new SerializationException("Truncated " + what);
+        }
+        String value = new String(data, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+}
@@ -0,0 +1,71 @@
+package com.sellaway.common.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The event type field of the binary formats: a varint code into a fixed table of known types, or
+ * 0 followed by the name as a varint length + 1 (0 meaning a null type) and its UTF-8 bytes. The
+ * table is part of the wire format: only ever append to it.
+ */
+public final class EventTypes {
+
+    private final String[] known;
+
+    /** {@code known}: the types for codes 1, 2, ... in that order. */
+    public EventTypes(String... known) {
+        this.known = new String[known.length + 1];
+        System.arraycopy(known, 0, this.known, 1, known.length);
+    }
+
+    /** Bytes {@link #write} takes for {@code eventType}. */
+    public int size(String eventType) {
+        int code = code(eventType);
+        if (code != 0) {
+            return VarInts.size(code);
+        }
+        if (eventType == null) {
+            return 2;
+        }
+        int length = eventType.getBytes(StandardCharsets.UTF_8).length;
+        return 1 + VarInts.size(length + 1) + length;
+    }
+
+    /** Writes {@code eventType} at {@code pos} and returns the position after it. */
+    public int write(byte[] out, int pos, String eventType) {
+        int code = code(eventType);
+        pos = VarInts.write(out, pos, code);
+        if (code != 0) {
+            return pos;
+        }
+        byte[] name = eventType != null ? eventType.getBytes(StandardCharsets.UTF_8) : null;
+        pos = VarInts.write(out, pos, name != null ? name.length + 1 : 0);
+        if (name != null) {
+            System.arraycopy(name, 0, out, pos, name.length);
+            pos += name.length;
+        }
+        return pos;
+    }
+
+    public String read(BinaryReader in) {
+        int code = (int) in.readVarLong();
+        if (code == 0) {
+            int length = (int) in.readVarLong();
+            return length == 0 ? null : in.readUtf8(length - 1);
+        }
+        if (code < 0 || code >= known.length) {
+            throw new SerializationException("Unknown " + in.what() + " type code " + code);
+        }
+        return known[code];
+    }
+
+    private int code(String eventType) {
+        for (int code = 1; code < known.length; code++) {
+            if (known[code].equals(eventType)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.sellaway.common.codec;
+
+/**
+ * Base-128 varints (7 bits per byte, low group first, high bit set on all but the last byte) and the
+ * zigzag mapping that keeps small negative numbers short, as in protobuf.
+ */
+public final class VarInts {
+
+    private VarInts() {
+    }
+
+    public static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    public static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** Bytes {@link #write} takes for {@code value}. */
+    public static int size(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /** Writes {@code value} at {@code pos} and returns the position after it. */
+    public static int write(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+}
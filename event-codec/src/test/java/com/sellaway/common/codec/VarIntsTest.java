@@ -0,0 +1,47 @@
+package com.sellaway.common.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VarIntsTest {
+
+    @Test
+    void testRoundTripAndSizes() {
+        long[] values = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        for (long value : values) {
+            long encoded = VarInts.zigZag(value);
+            byte[] out = new byte[10];
+            int end = VarInts.write(out, 0, encoded);
+
+            assertEquals(VarInts.size(encoded), end, () -> "size of " + value);
+            assertEquals(value, VarInts.unZigZag(new BinaryReader(out, "Test").readVarLong()));
+        }
+        assertEquals(1, VarInts.size(VarInts.zigZag(-64)));
+        assertEquals(10, VarInts.size(VarInts.zigZag(Long.MIN_VALUE)));
+    }
+
+    @Test
+    void testEventTypesUseCodesForKnownTypesAndNamesOtherwise() {
+        EventTypes types = new EventTypes("Known");
+        for (String type : new String[]{"Known", "Other", null, ""}) {
+            byte[] out = new byte[types.size(type)];
+            assertEquals(out.length, types.write(out, 0, type));
+            assertEquals(type, types.read(new BinaryReader(out, "Test")));
+        }
+        assertEquals(1, types.size("Known"));
+        assertThrows(SerializationException.class, () -> types.read(new BinaryReader(new byte[]{2}, "Test")));
+    }
+
+    @Test
+    void testReaderRejectsTruncatedAndOverlongInput() {
+        assertThrows(SerializationException.class, () -> new BinaryReader(new byte[]{(byte) 0x80}, "Test").readVarLong());
+        assertThrows(SerializationException.class, () -> new BinaryReader(new byte[]{1, 2}, "Test").readUtf8(3));
+        byte[] overlong = new byte[11];
+        Arrays.fill(overlong, (byte) 0x80);
+        assertThrows(SerializationException.class, () -> new BinaryReader(overlong, "Test").readVarLong());
+    }
+}
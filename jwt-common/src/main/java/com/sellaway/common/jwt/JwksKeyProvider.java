@@ -0,0 +1,149 @@
+package com.sellaway.common.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Public keys of user-service (its {@code /.well-known/jwks.json}), decoded once per refresh and kept
+ * as {@link PublicKey} objects by kid, so verifying a token is a map lookup plus the signature check.
+ * The set is refreshed in the background; user-service publishes a key a full rotation interval before
+ * signing with it, so a rotation is picked up without a redeploy. An unknown kid fails the token and
+ * schedules an early refresh (at most one per {@code jwt.jwks.min-refresh-interval-ms}) off the
+ * request thread. A failed fetch keeps the previous set. The fetch is blocking, which also suits the
+ * reactive api-gateway: it only runs on the scheduler thread or the common pool, never on an event loop.
+ */
+@Component
+public class JwksKeyProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyProvider.class);
+
+    private static final ParameterizedTypeReference<Map<String, List<Map<String, String>>>> JWKS = new ParameterizedTypeReference<>() {};
+    private static final ECParameterSpec P256 = p256();
+
+    private final RestClient restClient;
+    private final String[] jwksUrls;
+    private final long minRefreshIntervalMs;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private final AtomicLong lastRefreshMillis = new AtomicLong();
+
+    // One url per user-service instance when they don't share keys; the key sets are merged
+    @Autowired
+    public JwksKeyProvider(ObjectProvider<RestClient.Builder> builder,
+                           @Value("${jwt.jwks.urls:}") String[] jwksUrls,
+                           @Value("${jwt.jwks.min-refresh-interval-ms:30000}") long minRefreshIntervalMs,
+                           @Value("${jwt.jwks.timeout-ms:2000}") int timeoutMs) {
+        this(restClient(builder.getIfAvailable(RestClient::builder), timeoutMs), jwksUrls, minRefreshIntervalMs);
+    }
+
+    private JwksKeyProvider(RestClient restClient, String[] jwksUrls, long minRefreshIntervalMs) {
+        this.restClient = restClient;
+        this.jwksUrls = jwksUrls;
+        this.minRefreshIntervalMs = minRefreshIntervalMs;
+    }
+
+    /** Fixed key set that is never fetched or refreshed; for tests and the benchmarks, which run without user-service. */
+    public static JwksKeyProvider fixed(Map<String, PublicKey> keys) {
+        JwksKeyProvider provider = new JwksKeyProvider(null, new String[0], Long.MAX_VALUE);
+        provider.keys = Map.copyOf(keys);
+        return provider;
+    }
+
+    /** Cached key for the kid, or null (and an early background refresh) if it isn't known. */
+    public PublicKey getKey(String kid) {
+        PublicKey key = keys.get(kid);
+        if (key == null) {
+            long now = System.currentTimeMillis();
+            long last = lastRefreshMillis.get();
+            if (now - last >= minRefreshIntervalMs && lastRefreshMillis.compareAndSet(last, now)) {
+                CompletableFuture.runAsync(this::refresh);
+            }
+        }
+        return key;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.jwks.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (jwksUrls.length == 0) {
+            return;
+        }
+        lastRefreshMillis.set(System.currentTimeMillis());
+        Map<String, PublicKey> fetched = new HashMap<>();
+        for (String url : jwksUrls) {
+            try {
+                Map<String, List<Map<String, String>>> document = restClient.get().uri(url).retrieve().body(JWKS);
+                if (document != null && document.get("keys") != null) {
+                    fetched.putAll(parse(document.get("keys")));
+                }
+            } catch (RestClientException e) {
+                log.warn("Cannot fetch JWKS from {}, keeping {} cached key(s): {}", url, keys.size(), e.getMessage());
+                return;
+            }
+        }
+        keys = Map.copyOf(fetched);
+    }
+
+    // EC P-256 signing keys only; other entries (e.g. encryption keys) are skipped
+    static Map<String, PublicKey> parse(List<Map<String, String>> jwks) {
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (Map<String, String> jwk : jwks) {
+            if (!"EC".equals(jwk.get("kty")) || !"P-256".equals(jwk.get("crv")) || jwk.get("kid") == null
+                    || (jwk.get("use") != null && !"sig".equals(jwk.get("use")))) {
+                continue;
+            }
+            try {
+                ECPoint point = new ECPoint(coordinate(jwk.get("x")), coordinate(jwk.get("y")));
+                parsed.put(jwk.get("kid"), KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, P256)));
+            } catch (GeneralSecurityException | IllegalArgumentException | NullPointerException e) {
+                log.warn("Skipping unreadable JWK {}: {}", jwk.get("kid"), e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    private static RestClient restClient(RestClient.Builder builder, int timeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        return builder.requestFactory(requestFactory).build();
+    }
+
+    private static BigInteger coordinate(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+
+    private static ECParameterSpec p256() {
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            return parameters.getParameterSpec(ECParameterSpec.class);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("P-256 not available", e);
+        }
+    }
+}
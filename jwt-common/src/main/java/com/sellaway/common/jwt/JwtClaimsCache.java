@@ -0,0 +1,130 @@
+package com.sellaway.common.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache of already verified tokens, keyed by the SHA-256 digest of the compact token
+ * (so raw bearer tokens are never kept on the heap). Entries live until the token's own
+ * exp and the map is bounded by {@code jwt.claims-cache.max-size}; a size of 0 disables caching.
+ * Lookups are counted as hits and misses (a miss is a signature check) under
+ * {@code jwt.claims-cache.meter-name}, e.g. {@code cart.auth.jwt.cache} in cart-service.
+ */
+@Component
+public class JwtClaimsCache {
+
+    // Cloned per call rather than cached in a ThreadLocal: with virtual threads (cart-service) every
+    // request runs on a fresh thread, so a ThreadLocal would build (and drop) a digest per request anyway
+    private static final MessageDigest SHA_256;
+
+    static {
+        try {
+            SHA_256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final String DEFAULT_METER_NAME = "auth.jwt.cache";
+
+    private final int maxSize;
+    private final Map<String, VerifiedJwt> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public JwtClaimsCache(int maxSize) {
+        this(maxSize, DEFAULT_METER_NAME, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public JwtClaimsCache(@Value("${jwt.claims-cache.max-size:10000}") int maxSize,
+                          @Value("${jwt.claims-cache.meter-name:" + DEFAULT_METER_NAME + "}") String meterName,
+                          MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.hits = lookupCounter(meterRegistry, meterName, "hit");
+        this.misses = lookupCounter(meterRegistry, meterName, "miss");
+    }
+
+    /**
+     * Returns the cached verification result for the token, or runs {@code verifier} and
+     * caches its result. Exceptions thrown by the verifier (bad signature, expired, malformed)
+     * propagate and nothing is cached.
+     */
+    public VerifiedJwt getOrVerify(String token, Function<String, VerifiedJwt> verifier) {
+        if (maxSize <= 0) {
+            misses.increment();
+            return verifier.apply(token);
+        }
+        long now = System.currentTimeMillis();
+        String key = digest(token);
+        VerifiedJwt cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                hits.increment();
+                return cached;
+            }
+            entries.remove(key, cached);
+        }
+        misses.increment();
+
+        VerifiedJwt verified = verifier.apply(token);
+        if (!verified.isExpired(now)) {
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(key, verified);
+        }
+        return verified;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    // Drop expired entries first; if the cache is still full (lots of live tokens), shed an
+    // arbitrary tenth of it rather than tracking access order on the hot path.
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        int excess = entries.size() - (maxSize - Math.max(1, maxSize / 10));
+        Iterator<String> keys = entries.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder(name)
+                .description("Token verifications answered from the cache (hit) or by checking the signature (miss)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String digest(String token) {
+        MessageDigest md;
+        try {
+            md = (MessageDigest) SHA_256.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest is not cloneable", e);
+        }
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+}
@@ -0,0 +1,14 @@
+package com.sellaway.common.jwt;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Registers the token verification beans (outside the services' component scan). Imported by a
+ * configuration class of each service, whose application class also needs @EnableScheduling for the
+ * JWKS refresh.
+ */
+@Configuration(proxyBeanMethods = false)
+@Import({JwksKeyProvider.class, JwtClaimsCache.class, JwtVerifier.class})
+public class JwtVerificationConfig {
+}
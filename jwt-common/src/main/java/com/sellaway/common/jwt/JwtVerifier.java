@@ -0,0 +1,67 @@
+package com.sellaway.common.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+
+/**
+ * Signature check of user-service tokens: ES256 against the cached JWKS keys, HS256 against
+ * {@code jwt.secret} while old tokens are still around. Results are cached until the token's exp
+ * ({@link JwtClaimsCache}), so a client's token is signature-checked once per instance, not once
+ * per request. Expiry and revocation are left to the caller.
+ */
+@Component
+public class JwtVerifier {
+
+    private final JwtClaimsCache claimsCache;
+    // Built once: decoding the secret and building a parser per call was a large share of filter CPU
+    private final JwtParser jwtParser;
+
+    // secret: only for HS256 tokens issued before user-service switched to ES256; empty rejects them
+    public JwtVerifier(JwtClaimsCache claimsCache, JwksKeyProvider jwksKeyProvider, @Value("${jwt.secret:}") String secret) {
+        this.claimsCache = claimsCache;
+        Key hmacKey = secret == null || secret.isEmpty() ? null : Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        // ES256 tokens name their key (kid) and resolve to an already decoded JWKS key; no per-token key work
+        this.jwtParser = Jwts
+                .parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        if (SignatureAlgorithm.HS256.getValue().equals(header.getAlgorithm())) {
+                            if (hmacKey == null) {
+                                throw new SignatureException("HS256 tokens are not accepted");
+                            }
+                            return hmacKey;
+                        }
+                        Key key = header.getKeyId() != null ? jwksKeyProvider.getKey(header.getKeyId()) : null;
+                        if (key == null) {
+                            throw new SignatureException("Unknown signing key " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Verifies the token signature (or returns the cached result of an earlier verification).
+     * Throws the underlying JJWT exception if the token is malformed, tampered with or expired.
+     */
+    public VerifiedJwt verify(String token) {
+        return claimsCache.getOrVerify(token, this::parse);
+    }
+
+    private VerifiedJwt parse(String token) {
+        return new VerifiedJwt(jwtParser.parseClaimsJws(token).getBody());
+    }
+}
@@ -0,0 +1,51 @@
+package com.sellaway.common.jwt;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Result of a successful signature check on a JWT. Holds the parsed claims plus the
+ * fields the filter needs on every request, extracted once so cache hits don't
+ * re-read (and re-convert) them from the claims map.
+ */
+public final class VerifiedJwt {
+
+    private final Claims claims;
+    private final String customerId;
+    private final String jti;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+
+    public VerifiedJwt(Claims claims) {
+        this.claims = claims;
+        this.customerId = claims.get("customerId", String.class);
+        this.jti = claims.getId();
+        // Without iat the token is treated as issued at the epoch, i.e. covered by any user revocation
+        this.issuedAtMillis = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+        // Tokens without an exp claim are treated as already expired (same as before caching)
+        this.expiresAtMillis = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MIN_VALUE;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public long getIssuedAtMillis() {
+        return issuedAtMillis;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
@@ -0,0 +1,59 @@
+package com.sellaway.common.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwksKeyProviderTest {
+
+    @Test
+    void parsesEcSigningKeysByKid() throws Exception {
+        ECPublicKey key = newKey();
+
+        Map<String, PublicKey> keys = JwksKeyProvider.parse(List.of(
+                jwk("key-1", key),
+                Map.of("kty", "RSA", "kid", "rsa-key", "n", "AQAB", "e", "AQAB"),
+                Map.of("kty", "EC", "crv", "P-256", "kid", "broken", "x", "AA")));
+
+        assertEquals(1, keys.size());
+        assertEquals(key, keys.get("key-1"));
+    }
+
+    @Test
+    void fixedKeySetNeverRefreshes() throws Exception {
+        ECPublicKey key = newKey();
+        JwksKeyProvider provider = JwksKeyProvider.fixed(Map.of("key-1", key));
+
+        assertSame(key, provider.getKey("key-1"));
+        assertNull(provider.getKey("key-2"));
+    }
+
+    private static ECPublicKey newKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return (ECPublicKey) generator.generateKeyPair().getPublic();
+    }
+
+    // As user-service's JwtKeyRing publishes it
+    private static Map<String, String> jwk(String kid, ECPublicKey key) {
+        return Map.of("kty", "EC", "crv", "P-256", "use", "sig", "alg", "ES256", "kid", kid,
+                "x", coordinate(key.getW().getAffineX()), "y", coordinate(key.getW().getAffineY()));
+    }
+
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
@@ -5,6 +5,7 @@ import (
 	"log"
 	"net/http"
 	"strconv"
+	"strings"
 
 	"github.com/example/pricing-api/services" // <-- Adjust to your module name
 	"github.com/example/pricing-api/store"    // <-- Adjust to your module name
@@ -77,6 +78,25 @@ func (h *APIHandler) GetProductHandler(w http.ResponseWriter, r *http.Request) {
 }
 
 func (h *APIHandler) GetProductsHandler(w http.ResponseWriter, r *http.Request) {
+	// Optional ?ids=1,2,3 so callers can fetch exactly the products they need in one request
+	if idsParam := r.URL.Query().Get("ids"); idsParam != "" {
+		var ids []int
+		for _, part := range strings.Split(idsParam, ",") {
+			id, err := strconv.Atoi(strings.TrimSpace(part))
+			if err != nil {
+				h.respondError(w, http.StatusBadRequest, "Invalid product ID in ids")
+				return
+			}
+			ids = append(ids, id)
+		}
+		products, err := h.DBStore.GetProductsByIDs(ids)
+		if err != nil {
+			h.respondError(w, http.StatusInternalServerError, "Failed to retrieve products")
+			return
+		}
+		h.respondJSON(w, http.StatusOK, products)
+		return
+	}
 	products, err := h.DBStore.GetProducts()
 	if err != nil {
 		h.respondError(w, http.StatusInternalServerError, "Failed to retrieve products")
@@ -7,6 +7,7 @@ import (
 	"log"
 	"os"
 	"path/filepath"
+	"strings"
 	"time"
 
 	_ "github.com/mattn/go-sqlite3" // SQLite driver
@@ -111,6 +112,33 @@ func (s *DBStore) GetProducts() ([]Product, error) {
 	return products, nil
 }
 
+// GetProductsByIDs returns the products with the given IDs in a single query; unknown IDs are skipped
+func (s *DBStore) GetProductsByIDs(ids []int) ([]Product, error) {
+	products := []Product{}
+	if len(ids) == 0 {
+		return products, nil
+	}
+	placeholders := strings.TrimSuffix(strings.Repeat("?,", len(ids)), ",")
+	args := make([]interface{}, len(ids))
+	for i, id := range ids {
+		args[i] = id
+	}
+	rows, err := s.DB.Query("SELECT id, name, base_price FROM products WHERE id IN ("+placeholders+")", args...)
+	if err != nil {
+		return nil, err
+	}
+	defer rows.Close()
+
+	for rows.Next() {
+		var p Product
+		if err := rows.Scan(&p.ID, &p.Name, &p.BasePrice); err != nil {
+			return nil, err
+		}
+		products = append(products, p)
+	}
+	return products, rows.Err()
+}
+
 // Promotion CRUD
 func (s *DBStore) CreatePromotion(promo *Promotion) (int, error) {
 	res, err := s.DB.Exec("INSERT INTO promotions (name, type, value, target_product_id) VALUES (?, ?, ?, ?)",
@@ -2,8 +2,10 @@ package com.sellaway.userservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // JwtKeyRing rotation
 public class UserServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,100 @@
+package com.sellaway.userservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+/**
+ * Delegating encoder whose new hashes are {@code {bcrypt}} at a configurable cost. Hashes without an
+ * {@code {id}} prefix (everything stored before this encoder) are still verified as BCrypt.
+ * {@link #upgradeEncoding} reports every hash that is not BCrypt at the current cost, lower or higher,
+ * so LoginService can re-hash it after a successful login and the cost can be moved in both
+ * directions without a password reset.
+ */
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePasswordEncoder.class);
+
+    public static final int MIN_STRENGTH = 4;
+    public static final int MAX_STRENGTH = 31;
+
+    private static final String BCRYPT_ID = "bcrypt";
+    private static final String BCRYPT_PREFIX = "{" + BCRYPT_ID + "}";
+
+    private final int strength;
+    private final DelegatingPasswordEncoder delegate;
+
+    public AdaptivePasswordEncoder(int strength) {
+        if (strength < MIN_STRENGTH || strength > MAX_STRENGTH) {
+            throw new IllegalArgumentException("BCrypt strength must be between " + MIN_STRENGTH + " and " + MAX_STRENGTH + ": " + strength);
+        }
+        this.strength = strength;
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        this.delegate = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        this.delegate.setDefaultPasswordEncoderForMatches(bcrypt); // legacy hashes stored without a prefix
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || !encodedPassword.startsWith(BCRYPT_PREFIX)) {
+            return true;
+        }
+        return strengthOf(encodedPassword) != strength;
+    }
+
+    /** Cost factor of a BCrypt hash ({@code $2a$10$...}), with or without the {@code {bcrypt}} prefix; -1 if unparseable. */
+    public static int strengthOf(String encodedPassword) {
+        String hash = encodedPassword.startsWith(BCRYPT_PREFIX) ? encodedPassword.substring(BCRYPT_PREFIX.length()) : encodedPassword;
+        // $2a$10$<salt+hash>
+        if (hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$' || hash.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Highest strength whose verify time on this machine stays within {@code targetMs}, never below
+     * {@code minStrength}. Each cost doubles the work, so timing starts at minStrength and stops at the
+     * first strength over the target.
+     */
+    public static int calibrate(long targetMs, int minStrength, int maxStrength) {
+        String password = "calibration-password";
+        int chosen = minStrength;
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(candidate);
+            String hash = bcrypt.encode(password);
+            bcrypt.matches(password, hash); // warm-up
+            long start = System.nanoTime();
+            bcrypt.matches(password, hash);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            log.info("BCrypt strength {} verifies in {}ms", candidate, elapsedMs);
+            if (elapsedMs > targetMs) {
+                break;
+            }
+            chosen = candidate;
+        }
+        return chosen;
+    }
+}
@@ -1,6 +1,9 @@
- package com.sellaway.userservice.config;
- 
- import org.springframework.context.annotation.Bean;
+package com.sellaway.userservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -10,7 +13,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
@@ -22,8 +24,24 @@ import lombok.RequiredArgsConstructor;
  @EnableWebSecurity
  @RequiredArgsConstructor
  public class SecurityConfig {
+
+     private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
  
      private final AppUserDetailsService userDetailsService;
+
+     // BCrypt cost of new hashes. Stored hashes at any other cost are re-hashed on the next successful login.
+     @Value("${user.password.bcrypt.strength:10}")
+     private int bcryptStrength = 10;
+
+     // When set, ignore the configured strength and pick the highest one verifying within target-ms on this machine
+     @Value("${user.password.bcrypt.calibrate:false}")
+     private boolean calibrate;
+
+     @Value("${user.password.bcrypt.target-ms:250}")
+     private long calibrationTargetMs = 250;
+
+     @Value("${user.password.bcrypt.min-strength:10}")
+     private int minStrength = 10;
  
      @Bean
      public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -32,6 +50,8 @@ import lombok.RequiredArgsConstructor;
              .authorizeHttpRequests(auth -> auth
                 // "/auth/**" already covers "/auth/register" and "/auth/login"
                 .requestMatchers("/auth/**", "/graphql", "/graphiql/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/metrics/**", "/actuator/prometheus").permitAll()
+                .requestMatchers("/.well-known/jwks.json").permitAll()
                 .anyRequest().authenticated()
             ) 
              .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)); // Stateless session
@@ -55,7 +75,12 @@ import lombok.RequiredArgsConstructor;
  
      @Bean
      public PasswordEncoder passwordEncoder() {
-         return new BCryptPasswordEncoder();
+         int strength = bcryptStrength;
+         if (calibrate) {
+             strength = AdaptivePasswordEncoder.calibrate(calibrationTargetMs, minStrength, 16);
+             log.info("Calibrated BCrypt strength {} for a {}ms verify target", strength, calibrationTargetMs);
+         }
+         return new AdaptivePasswordEncoder(strength);
      }
  }
  
\ No newline at end of file
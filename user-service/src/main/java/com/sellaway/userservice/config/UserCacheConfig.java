@@ -0,0 +1,78 @@
+package com.sellaway.userservice.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The regions of Hibernate's second-level cache, in a Caffeine JCache manager local to this instance.
+ * Entries are bounded by {@code user.cache.max-size} and expire {@code user.cache.ttl-ms} after they
+ * were written; expiry only bounds how stale an entry can get when an invalidation from another
+ * instance is lost (see UserEventListener). Hit, miss and eviction counts of every region are
+ * published as the {@code cache.*} meters, tagged with the region name.
+ */
+@Configuration
+public class UserCacheConfig {
+
+    public static final String USER_REGION = "users";
+    public static final String USER_BY_USERNAME_REGION = "users-by-username";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            MeterRegistry meterRegistry,
+            @Value("${user.cache.max-size:100000}") long maxSize,
+            @Value("${user.cache.ttl-ms:600000}") long ttlMs
+    ) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        monitor(meterRegistry, cacheManager, USER_REGION, bounded(maxSize, ttlMs));
+        monitor(meterRegistry, cacheManager, USER_BY_USERNAME_REGION, bounded(maxSize, ttlMs));
+        monitor(meterRegistry, cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded(maxSize, ttlMs));
+        // One entry per table; must outlive every query result that depends on it, so never evicted
+        monitor(meterRegistry, cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, configuration());
+        return cacheManager;
+    }
+
+    // Hibernate looks its regions up in our manager; with missing_cache_strategy: fail a misspelled region fails startup
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void monitor(MeterRegistry meterRegistry, CacheManager cacheManager, String region,
+                                CaffeineConfiguration<Object, Object> configuration) {
+        Cache<Object, Object> cache = cacheManager.getCache(region);
+        if (cache == null) {
+            cache = cacheManager.createCache(region, configuration);
+        }
+        JCacheMetrics.monitor(meterRegistry, cache);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, long ttlMs) {
+        CaffeineConfiguration<Object, Object> configuration = configuration();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+        return configuration;
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false); // Hibernate's entries are immutable; don't copy them on every access
+        configuration.setStatisticsEnabled(true); // read by JCacheMetrics
+        return configuration;
+    }
+}
@@ -3,40 +3,40 @@ package com.sellaway.userservice.controller;
 import com.sellaway.userservice.dto.AuthenticationResponse;
 import com.sellaway.userservice.dto.CreateUserRequest; // Import new DTO
 import com.sellaway.userservice.dto.UserResponse; // Import new DTO
-import com.sellaway.userservice.service.AppUserDetailsService;
-import com.sellaway.userservice.service.JwtService;
+import com.sellaway.userservice.service.LoginService;
 import com.sellaway.userservice.service.UserService; // Import UserService
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
 import jakarta.validation.Valid; // Import validation annotation
 import lombok.RequiredArgsConstructor;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.GraphQlExceptionHandler;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated; // For validating @Argument
 
+import java.util.concurrent.RejectedExecutionException;
+
 @Controller
 @RequiredArgsConstructor
 @Validated // Enable validation for method arguments annotated with @Valid
 public class AuthGraphQLController {
 
-    private final AuthenticationManager authenticationManager;
-    private final AppUserDetailsService appUserDetailsService; // Renamed for clarity
-    private final JwtService jwtService;
+    private final LoginService loginService;
     private final UserService userService; // Inject UserService
 
     @MutationMapping
     public AuthenticationResponse login(@Argument String username, @Argument String password) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(username, password)
-        );
-
-        final UserDetails userDetails = appUserDetailsService.loadUserByUsername(username);
-        final String customerId = appUserDetailsService.getCustomerIdByUsername(username);
-        final String jwt = jwtService.generateToken(userDetails, customerId);
+        return loginService.login(username, password);
+    }
 
-        return AuthenticationResponse.builder().token(jwt).build();
+    // Login pool saturated; the REST endpoint answers 429 for the same case
+    @GraphQlExceptionHandler
+    public GraphQLError loginRejected(RejectedExecutionException e) {
+        return GraphQLError.newError()
+                .errorType(ErrorClassification.errorClassification("TOO_MANY_REQUESTS"))
+                .message("Too many login attempts, retry shortly")
+                .build();
     }
 
     // --- New User Creation Mutation ---
@@ -4,47 +4,88 @@ import com.sellaway.userservice.dto.AuthenticationRequest;
 import com.sellaway.userservice.dto.AuthenticationResponse;
 import com.sellaway.userservice.dto.CreateUserRequest; // Import new DTO
 import com.sellaway.userservice.dto.UserResponse; // Import new DTO
-import com.sellaway.userservice.service.AppUserDetailsService;
 import com.sellaway.userservice.service.JwtService;
+import com.sellaway.userservice.service.LoginService;
+import com.sellaway.userservice.service.TokenRevocationService;
 import com.sellaway.userservice.service.UserService; // Import UserService
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid; // Import validation annotation
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus; // Import HttpStatus
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @RestController
 @RequestMapping("/auth") // Keep user creation under /auth for simplicity, or create a new /users controller
 @RequiredArgsConstructor
 public class AuthRestController {
 
-    private final AuthenticationManager authenticationManager;
-    private final AppUserDetailsService appUserDetailsService; // Renamed for clarity
+    private final LoginService loginService;
     private final JwtService jwtService;
+    private final TokenRevocationService revocationService;
     private final UserService userService; // Inject UserService
 
     @PostMapping("/login")
     public ResponseEntity<AuthenticationResponse> authenticate(
             @Valid @RequestBody AuthenticationRequest request // Add @Valid
     ) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsername(),
-                        request.getPassword()
-                )
-        );
-
-        final UserDetails userDetails = appUserDetailsService.loadUserByUsername(request.getUsername());
-        final String customerId = appUserDetailsService.getCustomerIdByUsername(request.getUsername());
-        final String jwt = jwtService.generateToken(userDetails, customerId);
-
-        return ResponseEntity.ok(AuthenticationResponse.builder().token(jwt).build());
+        try {
+            return ResponseEntity.ok(loginService.login(request.getUsername(), request.getPassword()));
+        } catch (RejectedExecutionException e) {
+            // Login pool saturated: shed the request now rather than queue it behind the others
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").build();
+        }
+    }
+
+    // Revokes the presented token; answers once the revocation is on the topic the verifying services read
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        try {
+            return awaitRevocation(revocationService.revokeToken(bearerToken(authorization)));
+        } catch (JwtException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
+    // Revokes every token of the caller issued so far (all devices)
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        try {
+            return awaitRevocation(revocationService.revokeAllTokens(jwtService.extractCustomerId(bearerToken(authorization))));
+        } catch (JwtException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
+    private static String bearerToken(String authorization) {
+        if (!authorization.startsWith("Bearer ")) {
+            throw new IllegalArgumentException("Not a bearer token");
+        }
+        return authorization.substring(7);
+    }
+
+    private static ResponseEntity<Void> awaitRevocation(CompletableFuture<?> sent) {
+        try {
+            sent.get(5, TimeUnit.SECONDS);
+            return ResponseEntity.noContent().build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (ExecutionException | TimeoutException e) {
+            // Not revoked; the client should retry rather than assume it is logged out
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     // --- New User Creation Endpoint ---
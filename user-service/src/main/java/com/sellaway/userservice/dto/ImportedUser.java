@@ -0,0 +1,31 @@
+package com.sellaway.userservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row of a bulk import file (CSV with a header row, or one JSON object per line)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ImportedUser {
+
+    @NotBlank(message = "User ID cannot be blank")
+    @Size(min = 3, max = 50, message = "User ID must be between 3 and 50 characters")
+    private String userId;
+
+    @NotBlank(message = "Username cannot be blank")
+    @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
+    private String username;
+
+    @Size(min = 8, message = "Password must be at least 8 characters long")
+    private String password; // Plain text; hashed during the import
+
+    private String passwordHash; // Or an existing BCrypt hash, stored as is and re-hashed at the current cost on first login
+}
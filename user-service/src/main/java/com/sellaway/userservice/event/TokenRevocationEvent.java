@@ -0,0 +1,21 @@
+package com.sellaway.userservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published on {@code token-revocations}. Either one token ({@code jti} set) or every token of a user
+ * issued before {@code issuedBefore} (jti null, e.g. logout everywhere or a password change).
+ * {@code expiresAt} is when the revocation can be forgotten: the revoked token's exp, or
+ * issuedBefore plus the token lifetime.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRevocationEvent {
+    private String jti;
+    private String userId; // customerId claim
+    private long issuedBefore;
+    private long expiresAt;
+}
@@ -8,6 +8,10 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class UserEvent {
+
+    public static final String USER_CREATED = "UserCreated";
+    public static final String PASSWORD_CHANGED = "UserPasswordChanged";
+
     private String eventType;
     private Long userId; 
 }
@@ -0,0 +1,32 @@
+package com.sellaway.userservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka value deserializer for user events. Reads the binary {@link UserEventCodec} format and
+ * falls back to JSON for records written by JsonSerializer, so a topic can carry both while
+ * producers are migrated.
+ */
+public class UserEventBinaryDeserializer implements Deserializer<UserEvent> {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (UserEventCodec.isBinary(data)) {
+            return UserEventCodec.decode(data);
+        }
+        try {
+            return objectMapper.readValue(data, UserEvent.class);
+        } catch (IOException e) {
+            throw new SerializationException("UserEvent is neither binary nor JSON", e);
+        }
+    }
+}
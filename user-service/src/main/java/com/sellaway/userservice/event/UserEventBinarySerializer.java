@@ -0,0 +1,16 @@
+package com.sellaway.userservice.event;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer writing the compact {@link UserEventCodec} format. Enable with
+ * {@code spring.kafka.producer.value-serializer: com.sellaway.userservice.event.UserEventBinarySerializer}
+ * once consumers read with {@link UserEventBinaryDeserializer}.
+ */
+public class UserEventBinarySerializer implements Serializer<UserEvent> {
+
+    @Override
+    public byte[] serialize(String topic, UserEvent data) {
+        return data == null ? null : UserEventCodec.encode(data);
+    }
+}
@@ -0,0 +1,74 @@
+package com.sellaway.userservice.event;
+
+import com.sellaway.common.codec.BinaryReader;
+import com.sellaway.common.codec.EventTypes;
+import com.sellaway.common.codec.VarInts;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Compact, schema-versioned binary encoding of {@link UserEvent}.
+ *
+ * <pre>
+ * byte    MAGIC (0xC6, never the first byte of a JSON document)
+ * byte    schema version (1)
+ * varint  event type code, 0 = type name follows as varint length + UTF-8 bytes
+ * byte    presence flags: bit 0 userId
+ * varint  userId (zigzag, only if present)
+ * </pre>
+ *
+ * A typical event is 4-6 bytes against ~45 for the JSON form plus its type header. Codes in
+ * {@link #TYPES} are part of the wire format: only ever append to that list.
+ */
+final class UserEventCodec {
+
+    static final byte MAGIC = (byte) 0xC6;
+    static final byte VERSION_1 = 1;
+
+    private static final EventTypes TYPES = new EventTypes(
+            "UserCreated",
+            "UserUpdated",
+            "UserDeleted",
+            "UserPasswordChanged");
+
+    private static final int HAS_USER_ID = 1;
+
+    private UserEventCodec() {
+    }
+
+    static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    static byte[] encode(UserEvent event) {
+        int flags = event.getUserId() != null ? HAS_USER_ID : 0;
+        int size = 2 + TYPES.size(event.getEventType()) + 1;
+        if ((flags & HAS_USER_ID) != 0) {
+            size += VarInts.size(VarInts.zigZag(event.getUserId()));
+        }
+
+        byte[] out = new byte[size];
+        out[0] = MAGIC;
+        out[1] = VERSION_1;
+        int pos = TYPES.write(out, 2, event.getEventType());
+        out[pos++] = (byte) flags;
+        if ((flags & HAS_USER_ID) != 0) {
+            VarInts.write(out, pos, VarInts.zigZag(event.getUserId()));
+        }
+        return out;
+    }
+
+    static UserEvent decode(byte[] data) {
+        BinaryReader in = new BinaryReader(data, "UserEvent");
+        if (in.readByte() != MAGIC) {
+            throw new SerializationException("Not a binary UserEvent");
+        }
+        byte version = in.readByte();
+        if (version != VERSION_1) {
+            throw new SerializationException("Unsupported UserEvent schema version " + version);
+        }
+        String eventType = TYPES.read(in);
+        int flags = in.readByte();
+        Long userId = (flags & HAS_USER_ID) != 0 ? VarInts.unZigZag(in.readVarLong()) : null;
+        return new UserEvent(eventType, userId);
+    }
+}
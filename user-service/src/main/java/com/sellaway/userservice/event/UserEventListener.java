@@ -0,0 +1,68 @@
+package com.sellaway.userservice.event;
+
+import com.sellaway.userservice.model.User;
+import com.sellaway.userservice.service.UserEventPublisher;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+
+import java.util.Map;
+
+/**
+ * Keeps the second-level cache of this instance consistent with the others: every instance consumes
+ * {@value UserEventPublisher#USER_TOPIC} in its own group and drops what a change makes stale. A
+ * changed user is evicted by id; a created one empties the query results (a cached "no such userId"
+ * would otherwise outlive the insert on the other instances). Its own events come back too, which
+ * also evicts anything a concurrent read cached here before the change committed. Only events from
+ * now on matter, so the group starts at the end of the topic and never commits.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class UserEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventListener.class);
+
+    private final SessionFactory sessionFactory;
+
+    public UserEventListener(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    // Own factory: UserEventBinaryDeserializer reads both the binary and the JSON form, whichever producers write.
+    // Static, so it doesn't wait on this configuration and with it on the EntityManagerFactory
+    @Bean
+    public static ConcurrentKafkaListenerContainerFactory<String, UserEvent> userEventListenerFactory(
+            KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        props.put("auto.offset.reset", "latest");
+        props.put("enable.auto.commit", false);
+        ConcurrentKafkaListenerContainerFactory<String, UserEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new UserEventBinaryDeserializer()));
+        return factory;
+    }
+
+    @KafkaListener(topics = UserEventPublisher.USER_TOPIC, groupId = "user-service-cache-${random.uuid}",
+            containerFactory = "userEventListenerFactory")
+    public void onUserEvent(UserEvent event) {
+        if (event.getUserId() == null) {
+            log.warn("Ignoring user event without userId: {}", event);
+            return;
+        }
+        sessionFactory.getCache().evictEntityData(User.class, event.getUserId());
+        if (UserEvent.USER_CREATED.equals(event.getEventType())) {
+            sessionFactory.getCache().evictDefaultQueryRegion();
+        }
+    }
+}
@@ -1,30 +1,50 @@
 package com.sellaway.userservice.model;
 
+import com.sellaway.userservice.config.UserCacheConfig;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor; // Optional: Add constructors if needed
 import lombok.AllArgsConstructor; // Optional: Add constructors if needed
 import lombok.Builder;       // Optional: Add builder if needed
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "app_user") // Good practice to explicitly name the table
+@Table(name = "app_user", // Good practice to explicitly name the table
+        // Same names as in the V2/V3 migrations, which also make the username one cover the login lookup
+        uniqueConstraints = {
+                @UniqueConstraint(name = User.USER_ID_CONSTRAINT, columnNames = "userId"),
+                @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username")
+        })
+// Second-level cached (UserCacheConfig); other instances' changes arrive as UserEvents (UserEventListener)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserCacheConfig.USER_REGION)
+@NaturalIdCache(region = UserCacheConfig.USER_BY_USERNAME_REGION)
 @Data
 @Builder // Added builder for easier object creation (optional)
 @NoArgsConstructor // Needed for JPA/Builder
 @AllArgsConstructor // Needed for Builder
 public class User {
 
+    public static final String USER_ID_CONSTRAINT = "uk_app_user_user_id";
+    public static final String USERNAME_CONSTRAINT = "uk_app_user_username";
+    // Ids per sequence call; UserImportService hands them out the same way (pooled-lo)
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_user_seq")
+    @SequenceGenerator(name = "app_user_seq", sequenceName = "app_user_seq", allocationSize = ID_ALLOCATION_SIZE) // batchable inserts
     private Long id; // Internal database primary key
 
-    @Column(unique = true, nullable = false) // Make userId unique and not null
+    @Column(nullable = false) // Unique through uk_app_user_user_id
     private String userId; // Public-facing user identifier (used as customerId)
 
-    @Column(unique = true, nullable = false) // Make username unique and not null
+    @NaturalId // username -> id resolved through the users-by-username region
+    @Column(nullable = false) // Unique through uk_app_user_username
     private String username; // Used for login
 
     @Column(nullable = false) // Password should not be null
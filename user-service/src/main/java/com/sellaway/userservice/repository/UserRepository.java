@@ -1,19 +1,21 @@
 package com.sellaway.userservice.repository;
 
 import com.sellaway.userservice.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     Optional<User> findByUsername(String username);
 
-    // Add these methods for duplicate checks in UserService
-    boolean existsByUsername(String username);
-    boolean existsByUserId(String userId);
-
-    // Optional<User> findByUserId(String userId); // If needed elsewhere
+    // username is the natural id (findCachedByUsername); userId can't be a second one, so its lookups go
+    // through the query cache, which the UserCreated events of other instances invalidate
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Optional<User> findByUserId(String userId);
 }
@@ -0,0 +1,14 @@
+package com.sellaway.userservice.repository;
+
+import com.sellaway.userservice.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    // Natural-id lookup: served from the second-level cache when this instance has seen the user
+    Optional<User> findCachedByUsername(String username);
+
+    // Re-hash on login; only replaces the hash that was verified, so a concurrent password change wins
+    int replacePasswordHash(User user, String newHash);
+}
@@ -0,0 +1,41 @@
+package com.sellaway.userservice.repository;
+
+import com.sellaway.userservice.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// Fragment of UserRepository (Spring Data picks it up by the Impl suffix)
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findCachedByUsername(String username) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(username);
+    }
+
+    @Override
+    @Transactional
+    public int replacePasswordHash(User user, String newHash) {
+        // Plain JDBC rather than a JPQL bulk update, which would clear the whole users region; only this entry is evicted
+        int updated = jdbcTemplate.update("update app_user set password = ? where id = ? and password = ?",
+                newHash, user.getId(), user.getPassword());
+        if (updated == 1) {
+            entityManager.getEntityManagerFactory().getCache().evict(User.class, user.getId());
+        }
+        return updated;
+    }
+}
@@ -18,7 +18,7 @@ public class AppUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        com.sellaway.userservice.model.User appUser = userRepository.findByUsername(username)
+        com.sellaway.userservice.model.User appUser = userRepository.findCachedByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
         // Adapt your User entity to Spring Security's UserDetails
@@ -31,12 +31,4 @@ public class AppUserDetailsService implements UserDetailsService {
                 Collections.emptyList() // Add authorities/roles here if you have them
         );
     }
-
-    // Helper method to get customerId after authentication (if not stored in UserDetails)
-    public String getCustomerIdByUsername(String username) {
-         com.sellaway.userservice.model.User appUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
-         // CORRECTED: Use getUserId() which returns the String identifier
-         return appUser.getUserId();
-    }
 }
@@ -0,0 +1,134 @@
+package com.sellaway.userservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ES256 signing keys with rotation. The ring holds a pending key, the active (signing) key and the
+ * retired keys whose tokens may still be live. Every key except the expired retired ones is published
+ * in the JWKS document, the pending one included, so verifiers have fetched a key for a whole rotation
+ * interval before the first token is signed with it. Keys live in memory only: a restart starts a new
+ * ring, and tokens signed by the previous process stop verifying once verifiers refresh.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final long retentionMs;
+
+    private volatile State state;
+
+    public JwtKeyRing(@Value("${jwt.expiration.ms}") long tokenLifetimeMs) {
+        this.retentionMs = tokenLifetimeMs;
+        this.state = new State(generate(), generate(), List.of());
+    }
+
+    public SigningKey activeKey() {
+        return state.active;
+    }
+
+    /** Public key of a published key id, or null if it is unknown or expired. */
+    public ECPublicKey publicKey(String kid) {
+        State current = state;
+        if (current.active.kid().equals(kid)) {
+            return current.active.publicKey();
+        }
+        long now = System.currentTimeMillis();
+        for (RetiredKey key : current.retired) {
+            if (key.key.kid().equals(kid) && key.expiresAtMillis > now) {
+                return key.key.publicKey();
+            }
+        }
+        return null;
+    }
+
+    /** Retires the active key, activates the pending one and generates the next pending key. */
+    @Scheduled(fixedDelayString = "${jwt.signing.rotation-interval-ms:86400000}", initialDelayString = "${jwt.signing.rotation-interval-ms:86400000}")
+    public void rotate() {
+        State current = state;
+        long now = System.currentTimeMillis();
+        List<RetiredKey> retired = new ArrayList<>();
+        retired.add(new RetiredKey(current.active, now + retentionMs));
+        for (RetiredKey key : current.retired) {
+            if (key.expiresAtMillis > now) {
+                retired.add(key);
+            }
+        }
+        state = new State(current.pending, generate(), List.copyOf(retired));
+        log.info("Rotated JWT signing key: active {}, pending {}", state.active.kid(), state.pending.kid());
+    }
+
+    /** JWKS document (RFC 7517) with the public half of every published key. */
+    public Map<String, Object> jwks() {
+        State current = state;
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> keys = new ArrayList<>();
+        keys.add(toJwk(current.active));
+        keys.add(toJwk(current.pending));
+        for (RetiredKey key : current.retired) {
+            if (key.expiresAtMillis > now) {
+                keys.add(toJwk(key.key));
+            }
+        }
+        return Map.of("keys", keys);
+    }
+
+    private static Map<String, Object> toJwk(SigningKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", key.kid());
+        jwk.put("x", coordinate(key.publicKey().getW().getAffineX()));
+        jwk.put("y", coordinate(key.publicKey().getW().getAffineY()));
+        return jwk;
+    }
+
+    // Unsigned big-endian, left-padded to the 32-byte field size (BigInteger adds a sign byte or drops leading zeros)
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+
+    private static SigningKey generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+            return new SigningKey(UUID.randomUUID().toString(), pair.getPrivate(), (ECPublicKey) pair.getPublic());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate P-256 key pair", e);
+        }
+    }
+
+    public record SigningKey(String kid, PrivateKey privateKey, ECPublicKey publicKey) {
+    }
+
+    private record RetiredKey(SigningKey key, long expiresAtMillis) {
+    }
+
+    private record State(SigningKey active, SigningKey pending, List<RetiredKey> retired) {
+    }
+}
@@ -1,10 +1,14 @@
 package com.sellaway.userservice.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -13,37 +17,56 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final JwtKeyRing keyRing;
+
     @Value("${jwt.secret}")
     private String secretKey;
 
+    // ES256 with the rotating JwtKeyRing (verifiers fetch /.well-known/jwks.json); HS256 with jwt.secret as rollback
+    @Value("${jwt.signing.algorithm:ES256}")
+    private String signingAlgorithm = "ES256";
+
     @Value("${jwt.expiration.ms}")
     private long jwtExpiration;
 
     // --- Token Generation ---
 
     public String generateToken(UserDetails userDetails, String customerId) {
+        return generateToken(userDetails.getUsername(), customerId);
+    }
+
+    public String generateToken(String username, String customerId) {
         Map<String, Object> extraClaims = new HashMap<>();
         extraClaims.put("customerId", customerId); // Add customerId claim
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        return buildToken(extraClaims, username, jwtExpiration);
     }
 
     private String buildToken(
             Map<String, Object> extraClaims,
-            UserDetails userDetails,
+            String subject,
             long expiration
     ) {
-        return Jwts
+        JwtBuilder builder = Jwts
                 .builder()
                 .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername()) // Usually the username
+                .setSubject(subject) // Usually the username
+                .setId(UUID.randomUUID().toString()) // jti, so a single token can be revoked
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+        if ("HS256".equals(signingAlgorithm)) {
+            return builder.signWith(getSignInKey(), SignatureAlgorithm.HS256).compact();
+        }
+        JwtKeyRing.SigningKey key = keyRing.activeKey();
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, key.kid()) // lets verifiers pick the key without trying each one
+                .signWith(key.privateKey(), SignatureAlgorithm.ES256)
                 .compact();
     }
 
@@ -53,7 +76,7 @@ public class JwtService {
     public boolean isTokenValid(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-        // Note: In a real app, you might also check if the token is revoked
+        // Revocation is checked by the verifying services (TokenRevocationService publishes it)
     }
 
     private boolean isTokenExpired(String token) {
@@ -81,7 +104,12 @@ public class JwtService {
     private Claims extractAllClaims(String token) {
         return Jwts
                 .parserBuilder()
-                .setSigningKey(getSignInKey())
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return header.getKeyId() != null ? keyRing.publicKey(header.getKeyId()) : getSignInKey();
+                    }
+                })
                 .build()
                 .parseClaimsJws(token)
                 .getBody();
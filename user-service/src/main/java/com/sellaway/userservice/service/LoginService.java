@@ -0,0 +1,191 @@
+package com.sellaway.userservice.service;
+
+import com.sellaway.userservice.dto.AuthenticationResponse;
+import com.sellaway.userservice.event.UserEvent;
+import com.sellaway.userservice.model.User;
+import com.sellaway.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Login without the AuthenticationManager round trips: one natural-id lookup for username, hash and
+ * userId (from the second-level cache once this instance has seen the user), then the BCrypt check on a dedicated pool sized to the cores. The pool's queue is bounded;
+ * when it is full (or a queued check waits longer than {@code user.login.queue-timeout-ms}) the login
+ * is rejected with a {@link RejectedExecutionException}, which the controllers turn into a 429, so a
+ * login storm can no longer occupy every request thread with BCrypt.
+ * <p>
+ * A hash the encoder reports for {@code upgradeEncoding} (legacy format or a cost other than the
+ * configured one) is re-hashed in the same pool task after a successful check and stored, so changing
+ * {@code user.password.bcrypt.strength} migrates users as they log in. The new hash is announced as a
+ * UserEvent so the other instances drop their cached copy.
+ */
+@Service
+public class LoginService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginService.class);
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+    private final UserEventPublisher userEventPublisher;
+    private final ThreadPoolExecutor bcryptExecutor;
+    private final long queueTimeoutMs;
+
+    // Matched against for unknown usernames so they take as long as a wrong password
+    private final String dummyHash;
+
+    private final Timer loginSuccess;
+    private final Timer loginFailure;
+    private final Timer loginRejected;
+    private final Timer queueWait;
+    private final Timer bcryptCheck;
+    private final Counter rehashed;
+
+    public LoginService(
+            UserRepository userRepository,
+            PasswordEncoder passwordEncoder,
+            JwtService jwtService,
+            UserEventPublisher userEventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${user.login.threads:0}") int threads,
+            @Value("${user.login.queue-capacity:64}") int queueCapacity,
+            @Value("${user.login.queue-timeout-ms:2000}") long queueTimeoutMs
+    ) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtService = jwtService;
+        this.userEventPublisher = userEventPublisher;
+        this.queueTimeoutMs = queueTimeoutMs;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.bcryptExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "login-bcrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.dummyHash = passwordEncoder.encode("not-a-user-password");
+
+        this.loginSuccess = loginTimer(meterRegistry, "success");
+        this.loginFailure = loginTimer(meterRegistry, "failure");
+        this.loginRejected = loginTimer(meterRegistry, "rejected");
+        this.queueWait = Timer.builder("user.login.queue.wait")
+                .description("Time a password check waits for a login thread")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.bcryptCheck = Timer.builder("user.login.bcrypt")
+                .description("BCrypt verification of a login password, excluding re-hashing")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rehashed = Counter.builder("user.login.rehash")
+                .description("Stored password hashes re-encoded at the current cost on login")
+                .register(meterRegistry);
+        Gauge.builder("user.login.queue", bcryptExecutor, executor -> executor.getQueue().size())
+                .description("Password checks waiting for a login thread")
+                .register(meterRegistry);
+        Gauge.builder("user.login.active", bcryptExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Password checks running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks the credentials and issues a token. Throws BadCredentialsException for an unknown user
+     * or a wrong password, RejectedExecutionException when the login pool is saturated.
+     */
+    public AuthenticationResponse login(String username, String password) {
+        long start = System.nanoTime();
+        Timer outcome = loginFailure;
+        try {
+            User user = userRepository.findCachedByUsername(username).orElse(null);
+            String hash = user != null ? user.getPassword() : dummyHash;
+            PasswordCheck check = checkPassword(password, hash, user != null);
+            if (user == null || !check.matches()) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+            if (check.newHash() != null) {
+                storeNewHash(user, check.newHash());
+            }
+            String jwt = jwtService.generateToken(user.getUsername(), user.getUserId());
+            outcome = loginSuccess;
+            return AuthenticationResponse.builder().token(jwt).build();
+        } catch (RejectedExecutionException e) {
+            outcome = loginRejected;
+            throw e;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private PasswordCheck checkPassword(String password, String hash, boolean rehash) {
+        // throws RejectedExecutionException when the queue is full
+        long submitted = System.nanoTime();
+        Future<PasswordCheck> check = bcryptExecutor.submit(() -> {
+            long start = System.nanoTime();
+            queueWait.record(start - submitted, TimeUnit.NANOSECONDS);
+            boolean matches = passwordEncoder.matches(password, hash);
+            bcryptCheck.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            String newHash = matches && rehash && passwordEncoder.upgradeEncoding(hash) ? passwordEncoder.encode(password) : null;
+            return new PasswordCheck(matches, newHash);
+        });
+        try {
+            return check.get(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            throw new RejectedExecutionException("Login pool saturated", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            check.cancel(true);
+            throw new IllegalStateException("Interrupted while checking password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password check failed", e.getCause());
+        }
+    }
+
+    // The login already succeeded; a failed re-hash is retried on the next one
+    private void storeNewHash(User user, String newHash) {
+        try {
+            if (userRepository.replacePasswordHash(user, newHash) == 1) {
+                rehashed.increment();
+                userEventPublisher.publish(UserEvent.PASSWORD_CHANGED, user.getId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not store re-hashed password for {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
+
+    private static Timer loginTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("user.login")
+                .description("Login requests, from lookup to issued token")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private record PasswordCheck(boolean matches, String newHash) {
+    }
+
+    @PreDestroy
+    void shutdown() {
+        bcryptExecutor.shutdownNow();
+    }
+}
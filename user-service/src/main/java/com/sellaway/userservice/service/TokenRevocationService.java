@@ -0,0 +1,72 @@
+package com.sellaway.userservice.service;
+
+import com.sellaway.userservice.event.TokenRevocationEvent;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes token revocations for the verifying services, which keep them in memory (cart-service's
+ * TokenRevocationList); nothing is stored here. Records are keyed by userId and always JSON, whatever
+ * value serializer spring.kafka.producer configures for the other events.
+ */
+@Service
+public class TokenRevocationService {
+
+    public static final String REVOCATION_TOPIC = "token-revocations";
+
+    private final DefaultKafkaProducerFactory<String, TokenRevocationEvent> producerFactory;
+    private final KafkaTemplate<String, TokenRevocationEvent> kafkaTemplate;
+    private final JwtService jwtService;
+    private final long tokenLifetimeMs;
+
+    public TokenRevocationService(
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            JwtService jwtService,
+            @Value("${jwt.expiration.ms}") long tokenLifetimeMs
+    ) {
+        this.producerFactory = new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()), new StringSerializer(), new JsonSerializer<>());
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        this.jwtService = jwtService;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+    }
+
+    /** Revokes the presented token (logout). Throws the JJWT exception if it isn't a valid token of ours. */
+    public CompletableFuture<?> revokeToken(String token) {
+        Claims claims = jwtService.extractClaim(token, c -> c);
+        String userId = claims.get("customerId", String.class);
+        if (claims.getId() == null) {
+            // Issued before tokens carried a jti: only a per-user revocation can cover it
+            return revokeAllTokens(userId);
+        }
+        return send(new TokenRevocationEvent(claims.getId(), userId, 0L, claims.getExpiration().getTime()));
+    }
+
+    /** Revokes every token of the user issued up to now (logout everywhere, password change). */
+    public CompletableFuture<?> revokeAllTokens(String userId) {
+        long now = System.currentTimeMillis();
+        return send(new TokenRevocationEvent(null, userId, now, now + tokenLifetimeMs));
+    }
+
+    private CompletableFuture<?> send(TokenRevocationEvent event) {
+        return kafkaTemplate.send(REVOCATION_TOPIC, event.getUserId(), event);
+    }
+
+    // Closing the producer sends what it still buffers, so a logout acknowledged just before shutdown isn't lost
+    @PreDestroy
+    void shutdown() {
+        producerFactory.destroy();
+    }
+}
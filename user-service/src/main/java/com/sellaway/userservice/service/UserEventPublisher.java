@@ -0,0 +1,70 @@
+package com.sellaway.userservice.service;
+
+import com.sellaway.userservice.event.UserEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes {@link UserEvent}s on {@value #USER_TOPIC}, keyed by the user's id, with the value
+ * serializer configured under spring.kafka.producer. Inside a transaction the event is sent once it
+ * has committed, so no instance evicts (and reloads) a user before the change is visible.
+ */
+@Service
+public class UserEventPublisher {
+
+    public static final String USER_TOPIC = "user-events";
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventPublisher.class);
+
+    private final DefaultKafkaProducerFactory<String, UserEvent> producerFactory;
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    public UserEventPublisher(KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+        this.producerFactory = new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()));
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    }
+
+    public void publish(String eventType, Long userId) {
+        UserEvent event = new UserEvent(eventType, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    // The change has committed, so a failure is only logged: a lost event leaves other instances'
+    // entries stale until user.cache.ttl-ms expires them
+    private void send(UserEvent event) {
+        try {
+            kafkaTemplate.send(USER_TOPIC, String.valueOf(event.getUserId()), event)
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            log.warn("Could not publish {}: {}", event, e.getMessage());
+                        }
+                    });
+        } catch (RuntimeException e) { // send() itself throws when the topic's metadata can't be fetched in time
+            log.warn("Could not publish {}: {}", event, e.getMessage());
+        }
+    }
+
+    // Closing the producer sends the events it still buffers
+    @PreDestroy
+    void shutdown() {
+        producerFactory.destroy();
+    }
+}
@@ -0,0 +1,51 @@
+package com.sellaway.userservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Command-line mode for {@link UserImportService}: started with {@code --user.import.file=<path>}
+ * (add {@code --spring.main.web-application-type=none} to skip the web server), the service imports
+ * the file once the schema is migrated and exits, with status 1 if any batch failed.
+ */
+@Component
+@ConditionalOnProperty(name = "user.import.file")
+public class UserImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportRunner.class);
+
+    private final UserImportService importService;
+    private final ConfigurableApplicationContext context;
+    private final Path file;
+
+    public UserImportRunner(UserImportService importService, ConfigurableApplicationContext context,
+                            @Value("${user.import.file}") String file) {
+        this.importService = importService;
+        this.context = context;
+        this.file = Path.of(file);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        int status = 0;
+        try {
+            if (importService.importUsers(file).failed() > 0) {
+                status = 1;
+            }
+        } catch (Exception e) {
+            log.error("Import of {} failed", file, e);
+            status = 1;
+        }
+        int exitCode = status;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
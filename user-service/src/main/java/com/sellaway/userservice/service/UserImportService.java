@@ -0,0 +1,224 @@
+package com.sellaway.userservice.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.sellaway.userservice.config.AdaptivePasswordEncoder;
+import com.sellaway.userservice.dto.ImportedUser;
+import com.sellaway.userservice.event.UserEvent;
+import com.sellaway.userservice.model.User;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk user import from a CSV file (header row naming the columns) or a JSON Lines file, read as a
+ * stream so the file size doesn't matter. Rows are cut into batches of {@link User#ID_ALLOCATION_SIZE};
+ * each batch hashes its passwords and is written as one JDBC batch in its own transaction, on a pool of
+ * {@code user.import.threads}. The pool's queue is as long as the pool is wide and the reader runs a
+ * batch itself when it is full, so at most that many batches are ever held in memory.
+ * <p>
+ * Ids are taken the way Hibernate's pooled-lo optimizer takes them: one sequence call per batch, whose
+ * value is the first of the batch's ids. A username or userId that already exists is skipped by the
+ * unique constraints (ON CONFLICT DO NOTHING) instead of failing its batch; so is the second of two
+ * equal rows, which makes an interrupted import safe to run again. Rows may carry an existing BCrypt
+ * {@code passwordHash} instead of a {@code password}: it is stored as is, skipping the hashing that
+ * dominates an import, and re-hashed at the current cost on the user's first login.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String NEXT_IDS = "select nextval('app_user_seq')";
+    private static final String INSERT = "insert into app_user (id, user_id, username, password) values (?, ?, ?, ?) on conflict do nothing";
+    private static final int LOGGED_REJECTIONS = 100;
+    private static final long PROGRESS_EVERY = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final UserEventPublisher userEventPublisher;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final int threads;
+
+    public UserImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            PasswordEncoder passwordEncoder,
+            Validator validator,
+            UserEventPublisher userEventPublisher,
+            ObjectMapper objectMapper,
+            @Value("${user.import.threads:0}") int threads
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.userEventPublisher = userEventPublisher;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** Imports {@code file}: CSV if it ends in .csv, JSON Lines otherwise. Returns once every batch is written. */
+    public ImportResult importUsers(Path file) throws IOException, InterruptedException {
+        boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        ImportCounts counts = new ImportCounts();
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads),
+                r -> new Thread(r, "user-import-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy()); // back-pressure on the reader
+        long start = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             MappingIterator<ImportedUser> rows = csv
+                     ? csvMapper.readerFor(ImportedUser.class).with(CsvSchema.emptySchema().withHeader()).readValues(reader)
+                     : objectMapper.readerFor(ImportedUser.class).readValues(reader)) {
+            List<ImportedUser> batch = new ArrayList<>(User.ID_ALLOCATION_SIZE);
+            long row = 0;
+            while (rows.hasNextValue()) {
+                ImportedUser user = normalize(rows.nextValue());
+                row++;
+                String problem = validate(user);
+                if (problem != null) {
+                    if (counts.rejected.incrementAndGet() <= LOGGED_REJECTIONS) {
+                        log.warn("Skipping row {}: {}", row, problem);
+                    }
+                    continue;
+                }
+                batch.add(user);
+                if (batch.size() == User.ID_ALLOCATION_SIZE) {
+                    submit(pool, batch, counts);
+                    batch = new ArrayList<>(User.ID_ALLOCATION_SIZE);
+                }
+                if (row % PROGRESS_EVERY == 0) {
+                    log.info("Read {} rows, {} users imported so far", row, counts.inserted.get());
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(pool, batch, counts);
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        ImportResult result = new ImportResult(counts.inserted.get(), counts.duplicates.get(), counts.rejected.get(),
+                counts.failed.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Imported {} users from {}: {}", result.inserted(), file, result);
+        return result;
+    }
+
+    private void submit(ThreadPoolExecutor pool, List<ImportedUser> batch, ImportCounts counts) {
+        pool.execute(() -> {
+            try {
+                writeBatch(batch, counts);
+            } catch (RuntimeException e) {
+                counts.failed.addAndGet(batch.size());
+                log.error("Could not import a batch of {} users starting with {}: {}", batch.size(), batch.get(0).getUsername(), e.getMessage());
+            }
+        });
+    }
+
+    private void writeBatch(List<ImportedUser> batch, ImportCounts counts) {
+        List<String> hashes = new ArrayList<>(batch.size());
+        for (ImportedUser user : batch) {
+            hashes.add(user.getPasswordHash() != null ? user.getPasswordHash() : passwordEncoder.encode(user.getPassword()));
+        }
+        // Counted once the batch has committed: a failed commit counts the whole batch as failed (submit)
+        Integer inserted = transactionTemplate.execute(status -> {
+            long firstId = jdbcTemplate.queryForObject(NEXT_IDS, Long.class);
+            int[] updated = jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ImportedUser user = batch.get(i);
+                    ps.setLong(1, firstId + i);
+                    ps.setString(2, user.getUserId());
+                    ps.setString(3, user.getUsername());
+                    ps.setString(4, hashes.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            int written = 0;
+            for (int count : updated) {
+                if (count != 0) { // 1, or SUCCESS_NO_INFO when the driver rewrites the batch into one statement
+                    written++;
+                }
+            }
+            if (written > 0) {
+                // Drops the query results other instances cached for these userIds (UserEventListener); sent on commit
+                userEventPublisher.publish(UserEvent.USER_CREATED, firstId);
+            }
+            return written;
+        });
+        counts.inserted.addAndGet(inserted);
+        counts.duplicates.addAndGet(batch.size() - inserted);
+    }
+
+    // CSV has no nulls: an empty cell is ""
+    private static ImportedUser normalize(ImportedUser user) {
+        if (!StringUtils.hasText(user.getPassword())) {
+            user.setPassword(null);
+        }
+        if (!StringUtils.hasText(user.getPasswordHash())) {
+            user.setPasswordHash(null);
+        }
+        return user;
+    }
+
+    private String validate(ImportedUser user) {
+        Set<ConstraintViolation<ImportedUser>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (user.getPasswordHash() != null) {
+            return AdaptivePasswordEncoder.strengthOf(user.getPasswordHash()) > 0 ? null : "passwordHash is not a BCrypt hash";
+        }
+        return user.getPassword() != null ? null : "Either password or passwordHash is required";
+    }
+
+    private static final class ImportCounts {
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+    }
+
+    /** Rows written, skipped as existing users, rejected as invalid, and lost with a failed batch. */
+    public record ImportResult(long inserted, long duplicates, long rejected, long failed, long elapsedMs) {
+    }
+}
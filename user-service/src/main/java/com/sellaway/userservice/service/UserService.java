@@ -2,40 +2,31 @@ package com.sellaway.userservice.service;
 
 import com.sellaway.userservice.dto.CreateUserRequest;
 import com.sellaway.userservice.dto.UserResponse;
+import com.sellaway.userservice.event.UserEvent;
 import com.sellaway.userservice.model.User;
 import com.sellaway.userservice.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Locale;
+
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserEventPublisher userEventPublisher;
 
-    // Add methods to check for existing user if not already in repository
-    // (Spring Data JPA can generate these based on method names)
-    // Add these methods to UserRepository interface:
-    // boolean existsByUsername(String username);
-    // boolean existsByUserId(String userId);
-
-
+    // Registration is one insert: uniqueness is left to the uk_app_user_* constraints, which, unlike
+    // exists* checks ahead of the insert, also hold between two concurrent registrations
     @Transactional // Ensure atomicity
     public UserResponse createUser(CreateUserRequest request) {
-        // 1. Check for duplicates
-        if (userRepository.existsByUsername(request.getUsername())) {
-            // Consider creating custom exceptions
-            throw new IllegalArgumentException("Username already exists: " + request.getUsername());
-        }
-        if (userRepository.existsByUserId(request.getUserId())) {
-             // Consider creating custom exceptions
-            throw new IllegalArgumentException("User ID already exists: " + request.getUserId());
-        }
-
-        // 2. Create User entity
+        // 1. Create User entity
         User newUser = User.builder()
                 .userId(request.getUserId())
                 .username(request.getUsername())
@@ -43,13 +34,35 @@ public class UserService {
                 // Set other fields if necessary (e.g., roles, enabled status)
                 .build();
 
-        // 3. Save user
-        User savedUser = userRepository.save(newUser);
+        // 2. Save user; flushed here so a duplicate surfaces as the constraint it violates
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(newUser);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateOf(request, e);
+        }
+        userEventPublisher.publish(UserEvent.USER_CREATED, savedUser.getId()); // sent on commit
 
-        // 4. Map to response DTO (excluding password)
+        // 3. Map to response DTO (excluding password)
         return mapToUserResponse(savedUser);
     }
 
+    // Same messages as the exists* checks that used to run before the insert; anything else is rethrown
+    static RuntimeException duplicateOf(CreateUserRequest request, DataIntegrityViolationException e) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation ? violation.getConstraintName() : null;
+        if (constraint != null) {
+            // PostgreSQL reports the bare name, H2 wraps it in a longer description
+            constraint = constraint.toLowerCase(Locale.ROOT);
+            if (constraint.contains(User.USERNAME_CONSTRAINT)) {
+                return new IllegalArgumentException("Username already exists: " + request.getUsername());
+            }
+            if (constraint.contains(User.USER_ID_CONSTRAINT)) {
+                return new IllegalArgumentException("User ID already exists: " + request.getUserId());
+            }
+        }
+        return e;
+    }
+
     private UserResponse mapToUserResponse(User user) {
         return UserResponse.builder()
                 .id(user.getId())
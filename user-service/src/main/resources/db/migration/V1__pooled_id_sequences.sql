@@ -0,0 +1,13 @@
+-- app_user ids come from a pooled sequence (Hibernate pooled-lo takes nextval as the first of 50 ids),
+-- which has to start above the ids already in use, with the old identity default gone.
+-- On an empty database the table doesn't exist yet; V2 creates it.
+CREATE SEQUENCE IF NOT EXISTS app_user_seq INCREMENT BY 50;
+
+DO $$
+BEGIN
+    IF to_regclass('app_user') IS NOT NULL THEN
+        PERFORM setval('app_user_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM app_user), false);
+        ALTER TABLE app_user ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        ALTER TABLE app_user ALTER COLUMN id DROP DEFAULT;
+    END IF;
+END $$;
@@ -0,0 +1,29 @@
+-- Schema is owned by these migrations from here on (ddl-auto: validate).
+--
+-- The unique constraints double as the indexes of the hot queries, and they are what rejects a duplicate
+-- registration or import row:
+--   findCachedByUsername (the login's natural-id load) and findByUsername -> username, carrying user_id
+--   and password so login is answered from the index alone (V3 adds id);
+--   findByUserId -> user_id.
+-- The constraints Hibernate generated (random uk_ names) on existing tables are replaced.
+
+CREATE TABLE IF NOT EXISTS app_user (
+    id       bigint       NOT NULL PRIMARY KEY,
+    user_id  varchar(255) NOT NULL,
+    username varchar(255) NOT NULL,
+    password varchar(255) NOT NULL
+);
+
+DO $$
+DECLARE
+    generated record;
+BEGIN
+    FOR generated IN
+        SELECT conname FROM pg_constraint WHERE conrelid = 'app_user'::regclass AND contype = 'u'
+    LOOP
+        EXECUTE format('ALTER TABLE app_user DROP CONSTRAINT %I', generated.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE app_user ADD CONSTRAINT uk_app_user_username UNIQUE (username) INCLUDE (user_id, password);
+ALTER TABLE app_user ADD CONSTRAINT uk_app_user_user_id UNIQUE (user_id);
@@ -0,0 +1,5 @@
+-- Login now loads the User by its natural id (username) into the second-level cache, which selects
+-- the id as well; carry it in the username index so a cache miss is still answered from the index alone.
+
+ALTER TABLE app_user DROP CONSTRAINT uk_app_user_username;
+ALTER TABLE app_user ADD CONSTRAINT uk_app_user_username UNIQUE (username) INCLUDE (id, user_id, password);
@@ -0,0 +1,79 @@
+package com.sellaway.userservice.controller;
+
+import com.sellaway.userservice.dto.AuthenticationRequest;
+import com.sellaway.userservice.dto.AuthenticationResponse;
+import com.sellaway.userservice.service.JwtService;
+import com.sellaway.userservice.service.LoginService;
+import com.sellaway.userservice.service.TokenRevocationService;
+import com.sellaway.userservice.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthRestControllerTest {
+
+    @Mock
+    private LoginService loginService;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    @Mock
+    private UserService userService;
+
+    private AuthRestController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new AuthRestController(loginService, jwtService, revocationService, userService);
+    }
+
+    @Test
+    void testLoginReturnsToken() {
+        when(loginService.login("alice", "secret")).thenReturn(AuthenticationResponse.builder().token("token").build());
+
+        ResponseEntity<AuthenticationResponse> response = controller.authenticate(request("alice", "secret"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("token", response.getBody().getToken());
+    }
+
+    @Test
+    void testSaturatedLoginPoolAnswers429() {
+        when(loginService.login("alice", "secret")).thenThrow(new RejectedExecutionException("Login pool saturated"));
+
+        ResponseEntity<AuthenticationResponse> response = controller.authenticate(request("alice", "secret"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void testBadCredentialsAreNotSwallowed() {
+        when(loginService.login("alice", "wrong")).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> controller.authenticate(request("alice", "wrong")));
+    }
+
+    private static AuthenticationRequest request(String username, String password) {
+        AuthenticationRequest request = new AuthenticationRequest();
+        request.setUsername(username);
+        request.setPassword(password);
+        return request;
+    }
+}
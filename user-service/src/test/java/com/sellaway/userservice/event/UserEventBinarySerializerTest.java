@@ -0,0 +1,77 @@
+package com.sellaway.userservice.event;
+
+import com.sellaway.userservice.service.UserEventPublisher;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserEventBinarySerializerTest {
+
+    private final UserEventBinarySerializer serializer = new UserEventBinarySerializer();
+    private final UserEventBinaryDeserializer deserializer = new UserEventBinaryDeserializer();
+
+    @Test
+    void testRoundTripKnownTypes() {
+        for (String type : new String[]{"UserCreated", "UserUpdated", "UserDeleted", "UserPasswordChanged"}) {
+            UserEvent event = new UserEvent(type, 1_234_567L);
+            assertEquals(event, roundTrip(event));
+        }
+    }
+
+    @Test
+    void testRoundTripNullsAndUnknownType() {
+        assertEquals(new UserEvent("UserMerged", 7L), roundTrip(new UserEvent("UserMerged", 7L)));
+        assertEquals(new UserEvent(null, null), roundTrip(new UserEvent(null, null)));
+        assertEquals(new UserEvent("Ünïcode", Long.MIN_VALUE), roundTrip(new UserEvent("Ünïcode", Long.MIN_VALUE)));
+        assertEquals(new UserEvent(UserEvent.USER_CREATED, Long.MAX_VALUE), roundTrip(new UserEvent(UserEvent.USER_CREATED, Long.MAX_VALUE)));
+        assertNull(serializer.serialize(UserEventPublisher.USER_TOPIC, null));
+        assertNull(deserializer.deserialize(UserEventPublisher.USER_TOPIC, null));
+    }
+
+    @Test
+    void testBinaryIsMuchSmallerThanJson() {
+        UserEvent event = new UserEvent(UserEvent.USER_CREATED, 1_234_567L);
+        byte[] binary = serializer.serialize(UserEventPublisher.USER_TOPIC, event);
+        byte[] json;
+        try (JsonSerializer<UserEvent> jsonSerializer = new JsonSerializer<>()) {
+            json = jsonSerializer.serialize(UserEventPublisher.USER_TOPIC, new RecordHeaders(), event);
+        }
+
+        assertEquals(8, binary.length);
+        assertTrue(binary.length * 5 < json.length, Arrays.toString(binary) + " vs " + json.length);
+    }
+
+    @Test
+    void testFallsBackToJson() {
+        UserEvent event = new UserEvent(UserEvent.PASSWORD_CHANGED, 3L);
+        byte[] json;
+        try (JsonSerializer<UserEvent> jsonSerializer = new JsonSerializer<>()) {
+            json = jsonSerializer.serialize(UserEventPublisher.USER_TOPIC, new RecordHeaders(), event);
+        }
+
+        assertEquals(event, deserializer.deserialize(UserEventPublisher.USER_TOPIC, json));
+    }
+
+    @Test
+    void testRejectsUnsupportedVersionUnknownCodeAndTruncatedInput() {
+        byte[] binary = serializer.serialize(UserEventPublisher.USER_TOPIC, new UserEvent(UserEvent.USER_CREATED, 42L));
+
+        byte[] futureVersion = binary.clone();
+        futureVersion[1] = 2;
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(UserEventPublisher.USER_TOPIC, futureVersion));
+        byte[] unknownCode = binary.clone();
+        unknownCode[2] = 99;
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(UserEventPublisher.USER_TOPIC, unknownCode));
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize(UserEventPublisher.USER_TOPIC, Arrays.copyOf(binary, binary.length - 1)));
+    }
+
+    private UserEvent roundTrip(UserEvent event) {
+        return deserializer.deserialize(UserEventPublisher.USER_TOPIC, serializer.serialize(UserEventPublisher.USER_TOPIC, event));
+    }
+}
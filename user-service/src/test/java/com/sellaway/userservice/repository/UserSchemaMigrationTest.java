@@ -0,0 +1,103 @@
+package com.sellaway.userservice.repository;
+
+import com.sellaway.userservice.config.UserCacheConfig;
+import com.sellaway.userservice.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The schema as production gets it: the Flyway migrations on PostgreSQL (application-test.yml), run
+ * over the table ddl-auto created before the migrations, then Hibernate's {@code validate} of User
+ * against the result. Runs in its own schema, cleaned before every run.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.flyway.schemas=" + UserSchemaMigrationTest.SCHEMA,
+        "spring.flyway.clean-disabled=false",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.default_schema=" + UserSchemaMigrationTest.SCHEMA
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(UserCacheConfig.class)
+class UserSchemaMigrationTest {
+
+    static final String SCHEMA = "user_migration_test";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class LegacySchema {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        // The table as ddl-auto created it: identity ids and unique constraints under generated names
+        @Bean
+        FlywayMigrationStrategy migrateFromLegacyTable() {
+            return flyway -> {
+                flyway.clean();
+                JdbcTemplate jdbc = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+                jdbc.execute("create schema if not exists " + SCHEMA);
+                jdbc.execute("create table " + SCHEMA + ".app_user (id bigint generated by default as identity primary key,"
+                        + " user_id varchar(255) not null constraint uk_8fa1c2 unique, username varchar(255) not null constraint uk_3b09d7 unique,"
+                        + " password varchar(255) not null)");
+                jdbc.execute("insert into " + SCHEMA + ".app_user (id, user_id, username, password) values"
+                        + " (1, 'u-1', 'alice', 'hash'), (2, 'u-2', 'bob', 'hash')");
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Test
+    void testGeneratedConstraintsAreReplacedByCoveringOnes() {
+        Map<String, String> constraints = jdbcTemplate.queryForList(
+                        "select conname, pg_get_constraintdef(oid) as def from pg_constraint where conrelid = ?::regclass and contype = 'u'",
+                        SCHEMA + ".app_user").stream()
+                .collect(Collectors.toMap(row -> (String) row.get("conname"), row -> (String) row.get("def")));
+
+        assertEquals(Map.of(
+                User.USERNAME_CONSTRAINT, "UNIQUE (username) INCLUDE (id, user_id, password)",
+                User.USER_ID_CONSTRAINT, "UNIQUE (user_id)"), constraints);
+    }
+
+    @Test
+    void testNewUsersTakeIdsAboveTheMigratedOnes() {
+        User user = userRepository.saveAndFlush(User.builder().userId("u-3").username("carol").password("hash").build());
+
+        assertTrue(user.getId() > 2);
+        assertEquals("u-3", userRepository.findCachedByUsername("carol").orElseThrow().getUserId());
+    }
+
+    @Test
+    void testDuplicateUsernameReportsTheConstraint() {
+        // What UserService.duplicateOf matches on
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class, () -> userRepository.saveAndFlush(
+                User.builder().userId("u-4").username("alice").password("hash").build()));
+
+        assertEquals(User.USERNAME_CONSTRAINT, ((ConstraintViolationException) e.getCause()).getConstraintName());
+    }
+}
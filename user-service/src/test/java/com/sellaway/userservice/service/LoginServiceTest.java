@@ -0,0 +1,184 @@
+package com.sellaway.userservice.service;
+
+import com.sellaway.userservice.config.AdaptivePasswordEncoder;
+import com.sellaway.userservice.dto.AuthenticationResponse;
+import com.sellaway.userservice.event.UserEvent;
+import com.sellaway.userservice.model.User;
+import com.sellaway.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginServiceTest {
+
+    private static final String PASSWORD = "correct-horse";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserEventPublisher userEventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(4);
+    private LoginService loginService;
+
+    @AfterEach
+    void tearDown() {
+        if (loginService != null) {
+            loginService.shutdown();
+        }
+    }
+
+    @Test
+    void testLoginIssuesToken() {
+        loginService = loginService(encoder, 1, 4, 2000);
+        User user = user(encoder.encode(PASSWORD));
+        when(userRepository.findCachedByUsername("alice")).thenReturn(Optional.of(user));
+        when(jwtService.generateToken("alice", "u-1")).thenReturn("token");
+
+        AuthenticationResponse response = loginService.login("alice", PASSWORD);
+
+        assertEquals("token", response.getToken());
+        verify(userRepository, never()).replacePasswordHash(any(), any());
+        assertEquals(1, meterRegistry.get("user.login").tag("result", "success").timer().count());
+    }
+
+    @Test
+    void testWrongPasswordIsRejected() {
+        loginService = loginService(encoder, 1, 4, 2000);
+        when(userRepository.findCachedByUsername("alice")).thenReturn(Optional.of(user(encoder.encode(PASSWORD))));
+
+        assertThrows(BadCredentialsException.class, () -> loginService.login("alice", "wrong"));
+        verifyNoInteractions(jwtService, userEventPublisher);
+        verify(userRepository, never()).replacePasswordHash(any(), any());
+        assertEquals(1, meterRegistry.get("user.login").tag("result", "failure").timer().count());
+    }
+
+    @Test
+    void testUnknownUserIsRejectedAfterADummyCheck() {
+        PasswordEncoder spied = spy(encoder);
+        loginService = loginService(spied, 1, 4, 2000);
+        when(userRepository.findCachedByUsername("nobody")).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> loginService.login("nobody", PASSWORD));
+        // Same BCrypt work as a wrong password, so the response time doesn't reveal which usernames exist
+        verify(spied).matches(eq(PASSWORD), anyString());
+        verify(spied, never()).upgradeEncoding(anyString());
+        verifyNoInteractions(jwtService, userEventPublisher);
+    }
+
+    @Test
+    void testOutdatedHashIsReplacedAndAnnounced() {
+        loginService = loginService(encoder, 1, 4, 2000);
+        String oldHash = new AdaptivePasswordEncoder(5).encode(PASSWORD);
+        User user = user(oldHash);
+        when(userRepository.findCachedByUsername("alice")).thenReturn(Optional.of(user));
+        when(userRepository.replacePasswordHash(same(user), anyString())).thenReturn(1);
+        when(jwtService.generateToken("alice", "u-1")).thenReturn("token");
+
+        loginService.login("alice", PASSWORD);
+
+        // Compared against the hash that was verified: the user passed in still carries it
+        verify(userRepository).replacePasswordHash(same(user), argThat(hash ->
+                AdaptivePasswordEncoder.strengthOf(hash) == 4 && encoder.matches(PASSWORD, hash)));
+        assertEquals(oldHash, user.getPassword());
+        verify(userEventPublisher).publish(UserEvent.PASSWORD_CHANGED, user.getId());
+        assertEquals(1, meterRegistry.get("user.login.rehash").counter().count());
+    }
+
+    @Test
+    void testRehashLosingTheCompareAndSetKeepsTheLogin() {
+        loginService = loginService(encoder, 1, 4, 2000);
+        User user = user(new AdaptivePasswordEncoder(5).encode(PASSWORD));
+        when(userRepository.findCachedByUsername("alice")).thenReturn(Optional.of(user));
+        // The password was changed concurrently: the stored hash no longer matches, nothing is updated
+        when(userRepository.replacePasswordHash(same(user), anyString())).thenReturn(0);
+        when(jwtService.generateToken("alice", "u-1")).thenReturn("token");
+
+        assertEquals("token", loginService.login("alice", PASSWORD).getToken());
+        verifyNoInteractions(userEventPublisher);
+        assertEquals(0, meterRegistry.get("user.login.rehash").counter().count());
+    }
+
+    @Test
+    void testSaturatedPoolRejectsLogins() throws Exception {
+        CountDownLatch checking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = mock(PasswordEncoder.class);
+        when(blocking.encode(anyString())).thenReturn("dummy");
+        when(blocking.matches(any(), any())).thenAnswer(invocation -> {
+            checking.countDown();
+            release.await();
+            return false;
+        });
+        // One thread and one queue slot: the first login runs, the second waits, the third is shed
+        loginService = loginService(blocking, 1, 1, 60_000);
+        when(userRepository.findCachedByUsername(anyString())).thenReturn(Optional.empty());
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> loginService.login("a", PASSWORD));
+        assertTrue(checking.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> loginService.login("b", PASSWORD));
+        await(() -> meterRegistry.get("user.login.queue").gauge().value() == 1);
+
+        assertThrows(RejectedExecutionException.class, () -> loginService.login("c", PASSWORD));
+        assertEquals(1, meterRegistry.get("user.login").tag("result", "rejected").timer().count());
+
+        release.countDown();
+        for (CompletableFuture<Void> login : List.of(running, queued)) {
+            Throwable failure = assertThrows(Exception.class, () -> login.get(5, TimeUnit.SECONDS)).getCause();
+            assertInstanceOf(BadCredentialsException.class, failure);
+        }
+    }
+
+    @Test
+    void testQueueTimeoutRejectsLogin() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = mock(PasswordEncoder.class);
+        when(blocking.encode(anyString())).thenReturn("dummy");
+        when(blocking.matches(any(), any())).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+        loginService = loginService(blocking, 1, 4, 50);
+        when(userRepository.findCachedByUsername("alice")).thenReturn(Optional.of(user("hash")));
+
+        assertThrows(RejectedExecutionException.class, () -> loginService.login("alice", PASSWORD));
+        release.countDown();
+        verifyNoInteractions(jwtService);
+    }
+
+    private LoginService loginService(PasswordEncoder passwordEncoder, int threads, int queueCapacity, long queueTimeoutMs) {
+        return new LoginService(userRepository, passwordEncoder, jwtService, userEventPublisher, meterRegistry,
+                threads, queueCapacity, queueTimeoutMs);
+    }
+
+    private static User user(String hash) {
+        return User.builder().id(7L).userId("u-1").username("alice").password(hash).build();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+}
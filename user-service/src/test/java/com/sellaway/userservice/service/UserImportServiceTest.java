@@ -0,0 +1,137 @@
+package com.sellaway.userservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sellaway.userservice.config.AdaptivePasswordEncoder;
+import com.sellaway.userservice.event.UserEvent;
+import com.sellaway.userservice.model.User;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private UserEventPublisher userEventPublisher;
+
+    private final AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(4);
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Same table, constraints and sequence as the migrations, in H2's PostgreSQL mode for ON CONFLICT
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("import-" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        UserServiceTest.createSchema(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testImportsCsvSkippingDuplicatesAndInvalidRows() throws Exception {
+        String hash = new AdaptivePasswordEncoder(5).encode("imported-hash-pw");
+        Path file = Files.writeString(dir.resolve("users.csv"), """
+                userId,username,password,passwordHash
+                u-1,alice,password-1,
+                u-2,bob,,%s
+                u-3,alice,password-3,
+                u-4,x,password-4,
+                u-5,carol,,
+                """.formatted(hash));
+
+        UserImportService.ImportResult result = importService(new DataSourceTransactionManager(database)).importUsers(file);
+
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.duplicates()); // second alice
+        assertEquals(2, result.rejected()); // short username, no password
+        assertEquals(0, result.failed());
+        assertTrue(encoder.matches("password-1", password("alice")));
+        assertEquals(hash, password("bob")); // stored as is
+        verify(userEventPublisher).publish(eq(UserEvent.USER_CREATED), anyLong());
+    }
+
+    @Test
+    void testImportsJsonLinesAndIsSafeToRunAgain() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        int users = User.ID_ALLOCATION_SIZE * 2 + 3; // three batches
+        for (int i = 0; i < users; i++) {
+            lines.append("{\"userId\":\"u-").append(i).append("\",\"username\":\"user-").append(i)
+                    .append("\",\"password\":\"password-").append(i).append("\"}\n");
+        }
+        Path file = Files.writeString(dir.resolve("users.jsonl"), lines);
+        UserImportService importService = importService(new DataSourceTransactionManager(database));
+
+        UserImportService.ImportResult first = importService.importUsers(file);
+        UserImportService.ImportResult second = importService.importUsers(file);
+
+        assertEquals(users, first.inserted());
+        assertEquals(0, first.duplicates());
+        assertEquals(0, second.inserted());
+        assertEquals(users, second.duplicates());
+        assertEquals(users, jdbcTemplate.queryForObject("select count(*) from app_user", Integer.class));
+        assertEquals(users, jdbcTemplate.queryForObject("select count(distinct id) from app_user", Integer.class));
+        verify(userEventPublisher, times(3)).publish(eq(UserEvent.USER_CREATED), anyLong());
+    }
+
+    @Test
+    void testBatchWhoseCommitFailsIsCountedAsFailed() throws Exception {
+        Path file = Files.writeString(dir.resolve("users.csv"), """
+                userId,username,password
+                u-1,alice,password-1
+                u-2,bob,password-2
+                """);
+        PlatformTransactionManager failingCommit = new DataSourceTransactionManager(database) {
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+                throw new TransactionSystemException("Commit failed");
+            }
+        };
+
+        UserImportService.ImportResult result = importService(failingCommit).importUsers(file);
+
+        assertEquals(0, result.inserted());
+        assertEquals(0, result.duplicates());
+        assertEquals(2, result.failed());
+    }
+
+    private UserImportService importService(PlatformTransactionManager transactionManager) {
+        return new UserImportService(jdbcTemplate, transactionManager, encoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), userEventPublisher, new ObjectMapper(), 2);
+    }
+
+    private String password(String username) {
+        return jdbcTemplate.queryForObject("select password from app_user where username = ?", String.class, username);
+    }
+}
@@ -0,0 +1,157 @@
+package com.sellaway.userservice.service;
+
+import com.sellaway.userservice.dto.CreateUserRequest;
+import com.sellaway.userservice.dto.UserResponse;
+import com.sellaway.userservice.event.UserEvent;
+import com.sellaway.userservice.model.User;
+import com.sellaway.userservice.repository.UserRepository;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserEventPublisher userEventPublisher;
+
+    @Test
+    void testCreateUserPublishesEvent() {
+        when(passwordEncoder.encode("password-1")).thenReturn("hash");
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(51L);
+            return user;
+        });
+
+        UserResponse response = userService().createUser(request());
+
+        assertEquals(51L, response.getId());
+        assertEquals("alice", response.getUsername());
+        verify(userEventPublisher).publish(UserEvent.USER_CREATED, 51L);
+    }
+
+    @Test
+    void testDuplicateUsernameOnPostgres() {
+        DataIntegrityViolationException e = violation(postgresError("uk_app_user_username"), new PostgreSQLDialect());
+
+        assertEquals("Username already exists: alice", UserService.duplicateOf(request(), e).getMessage());
+    }
+
+    @Test
+    void testDuplicateUserIdOnPostgres() {
+        DataIntegrityViolationException e = violation(postgresError("uk_app_user_user_id"), new PostgreSQLDialect());
+
+        assertEquals("User ID already exists: u-1", UserService.duplicateOf(request(), e).getMessage());
+    }
+
+    @Test
+    void testDuplicatesOnH2() throws SQLException {
+        // H2 reports the index behind the constraint, upper-cased and with the offending row, in its message
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+                .setName("duplicates-" + UUID.randomUUID()).build();
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            createSchema(jdbcTemplate);
+            jdbcTemplate.update("insert into app_user (id, user_id, username, password) values (1, 'u-1', 'alice', 'hash')");
+
+            SQLException sameUsername = insertError(jdbcTemplate, "insert into app_user (id, user_id, username, password) values (2, 'u-2', 'alice', 'hash')");
+            SQLException sameUserId = insertError(jdbcTemplate, "insert into app_user (id, user_id, username, password) values (3, 'u-1', 'bob', 'hash')");
+
+            assertEquals("Username already exists: alice",
+                    UserService.duplicateOf(request(), violation(sameUsername, new H2Dialect())).getMessage());
+            assertEquals("User ID already exists: u-1",
+                    UserService.duplicateOf(request(), violation(sameUserId, new H2Dialect())).getMessage());
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    @Test
+    void testOtherViolationsAreRethrown() {
+        DataIntegrityViolationException other = violation(postgresError("app_user_pkey"), new PostgreSQLDialect());
+        DataIntegrityViolationException unnamed = new DataIntegrityViolationException("not null");
+
+        assertSame(other, UserService.duplicateOf(request(), other));
+        assertSame(unnamed, UserService.duplicateOf(request(), unnamed));
+    }
+
+    @Test
+    void testCreateUserTurnsDuplicateIntoIllegalArgument() {
+        when(passwordEncoder.encode("password-1")).thenReturn("hash");
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(violation(postgresError("uk_app_user_username"), new PostgreSQLDialect()));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> userService().createUser(request()));
+        assertEquals("Username already exists: alice", e.getMessage());
+        verifyNoInteractions(userEventPublisher);
+    }
+
+    // Schema of the V2/V3 migrations, without their PostgreSQL-only INCLUDE columns
+    static void createSchema(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("create sequence app_user_seq increment by " + User.ID_ALLOCATION_SIZE);
+        jdbcTemplate.execute("create table app_user (id bigint not null primary key, user_id varchar(255) not null, "
+                + "username varchar(255) not null, password varchar(255) not null, "
+                + "constraint " + User.USERNAME_CONSTRAINT + " unique (username), "
+                + "constraint " + User.USER_ID_CONSTRAINT + " unique (user_id))");
+    }
+
+    private UserService userService() {
+        return new UserService(userRepository, passwordEncoder, userEventPublisher);
+    }
+
+    private static CreateUserRequest request() {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUserId("u-1");
+        request.setUsername("alice");
+        request.setPassword("password-1");
+        return request;
+    }
+
+    // What Hibernate hands to Spring for a unique violation: the constraint name as the dialect extracts it
+    private static DataIntegrityViolationException violation(SQLException cause, Dialect dialect) {
+        String constraint = dialect.getViolatedConstraintNameExtractor().extractConstraintName(cause);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", cause, "insert into app_user", constraint));
+    }
+
+    private static SQLException postgresError(String constraint) {
+        return new PSQLException(new ServerErrorMessage("SERROR\0C23505\0Mduplicate key value violates unique constraint \""
+                + constraint + "\"\0tapp_user\0n" + constraint + "\0"));
+    }
+
+    private static SQLException insertError(JdbcTemplate jdbcTemplate, String sql) {
+        return assertThrows(SQLException.class, () -> {
+            try (var connection = jdbcTemplate.getDataSource().getConnection();
+                 var statement = connection.createStatement()) {
+                statement.executeUpdate(sql);
+            }
+        });
+    }
+}